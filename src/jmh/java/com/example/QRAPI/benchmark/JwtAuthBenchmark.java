@@ -0,0 +1,86 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.security.JwtKeyRegistry;
+import com.example.QRAPI.security.JwtUtil;
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.security.SigningKeyProperties;
+import com.example.QRAPI.service.QRCodeService;
+import com.example.QRAPI.service.QRImageRenderer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'authentification par requête : ancien chemin (clé et parser reconstruits, token parsé
+ * deux fois par le filtre) contre le registre de clés avec un seul parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String PROVIDER_SECRET = "464313da08dcfbc5e3bf6eb5367f87ec760ff7b9699505ef2ee806296da3e5a7565c74e3d89ffdca9ab55e5144f1fb9a92c2697ab67077b11ca134a510d8d77e";
+    private static final String QR_SECRET = "0123456789abcdef0123456789abcdef";
+
+    private JwtUtil jwtUtil;
+    private QRCodeService qrCodeService;
+    private String providerToken;
+    private String qrToken;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtKeyRegistry registry = new JwtKeyRegistry(16);
+        jwtUtil = new JwtUtil(PROVIDER_SECRET, registry);
+        qrCodeService = new QRCodeService(registry, new QRSigningKeys(new SigningKeyProperties()), new QRImageRenderer(new SimpleMeterRegistry(), 1 << 20, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+        providerToken = jwtUtil.generateTokenForProvider("bench");
+        qrToken = qrCodeService.signData("a".repeat(64), QR_SECRET, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Benchmark
+    public String filterLegacy() {
+        // validateToken puis extractFournisseur : deux parsings complets
+        if (legacyParse(PROVIDER_SECRET, providerToken).get("provider", String.class) != null) {
+            return legacyParse(PROVIDER_SECRET, providerToken).get("provider", String.class);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String filterRegistry() {
+        Claims claims = jwtUtil.parseClaims(providerToken);
+        return JwtUtil.extractFournisseur(claims);
+    }
+
+    /** API par token de JwtUtil : validateToken puis extractFournisseur, chacun avec son parsing. */
+    @Benchmark
+    public String validateAndExtract() {
+        return jwtUtil.validateToken(providerToken) ? jwtUtil.extractFournisseur(providerToken) : null;
+    }
+
+    @Benchmark
+    public String verifySignatureLegacy() {
+        return legacyParse(QR_SECRET, qrToken).getSubject();
+    }
+
+    @Benchmark
+    public String verifySignatureRegistry() {
+        return qrCodeService.verifySignature(qrToken, QR_SECRET);
+    }
+
+    private static Claims legacyParse(String secret, String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.QrapiApplication;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.Decoder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge de bout en bout : enchaîne génération, scan et rescan de QR Codes à débit fixe
+ * à travers la pile HTTP réelle (filtres JWT, limites de débit, sérialisation, Tomcat).
+ * <p>
+ * Sans {@code --url}, démarre l'application sur un port libre avec le profil {@code memory} (stockage en
+ * mémoire, sans Cassandra) et la limitation de débit par fournisseur désactivée ; les options non reconnues
+ * ({@code --qrapi.x=...}) sont transmises à l'application. Avec {@code --url}, vise une instance déjà démarrée.
+ * <p>
+ * Modèle ouvert : la requête {@code i} est due à {@code début + i / rate}, que les précédentes aient répondu
+ * ou non. La latence est mesurée depuis cet instant prévu et non depuis l'envoi effectif : un serveur qui
+ * ralentit retarde les envois suivants, et ce retard compte (correction de la coordinated omission). Le temps
+ * de service (depuis l'envoi) est rapporté à côté. Histogrammes HdrHistogram par endpoint, en microsecondes.
+ * <p>
+ * Options : {@code --rate=200} (requêtes/s), {@code --duration=30s}, {@code --warmup=10s},
+ * {@code --mix=2:2:1} (poids génération:scan:rescan), {@code --providers=4}, {@code --max-in-flight=2000},
+ * {@code --timeout=10s}, {@code --secret=...} (HS256, ES256 si vide), {@code --hgrm=<répertoire>}
+ * (distributions complètes, une par endpoint).
+ */
+public final class LoadGenerator {
+
+    private enum Endpoint { GENERATE, SCAN, RESCAN }
+
+    // Codes générés mais pas encore scannés au-delà de cette taille : les plus anciens sont oubliés
+    private static final int MAX_PENDING = 100_000;
+    private static final int SCANNED_RING = 10_000;
+
+    /** Token fournisseur et contenu d'un QR Code généré. */
+    private record Code(String authorization, String qrCodeData) {
+    }
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final String secret;
+    private final List<String> authorizations = new ArrayList<>();
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final ConcurrentLinkedQueue<Code> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final AtomicReferenceArray<Code> scanned = new AtomicReferenceArray<>(SCANNED_RING);
+    private final AtomicLong scannedCount = new AtomicLong();
+    private final AtomicLong courseIds = new AtomicLong(System.currentTimeMillis());
+    private final int[] mix;
+
+    private LoadGenerator(Map<String, String> options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.executor = Executors.newCachedThreadPool();
+        this.timeout = duration("timeout", "10s");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+        String secretOption = options.getOrDefault("secret", "cle-de-test-de-charge-hs256-32-octets-minimum");
+        this.secret = secretOption.isEmpty() ? null : secretOption;
+        String[] weights = options.getOrDefault("mix", "2:2:1").split(":");
+        if (weights.length != 3) {
+            throw new IllegalArgumentException("--mix attend trois poids génération:scan:rescan");
+        }
+        this.mix = new int[]{Integer.parseInt(weights[0]), Integer.parseInt(weights[1]), Integer.parseInt(weights[2])};
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--spring.profiles.active=memory",
+                "--server.port=0",
+                "--qrapi.rate-limit.enabled=false",
+                "--logging.level.root=WARN"));
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Option inattendue : " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+            if (isOption(name)) {
+                options.put(name, separator < 0 ? "" : arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.get("url");
+        if (baseUrl == null) {
+            // Le classpath de test contient un autre application.properties : configuration de src/main/resources
+            Path mainResources = Path.of(QrapiApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            applicationArgs.add(0, "--spring.config.location=file:" + mainResources + "/");
+            application = SpringApplication.run(QrapiApplication.class, applicationArgs.toArray(String[]::new));
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+        }
+        LoadGenerator generator = new LoadGenerator(options, baseUrl);
+        try {
+            generator.run();
+        } finally {
+            generator.executor.shutdownNow();
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static boolean isOption(String name) {
+        return switch (name) {
+            case "url", "rate", "duration", "warmup", "mix", "providers", "max-in-flight", "timeout", "secret", "hgrm" -> true;
+            default -> false;
+        };
+    }
+
+    private void run() throws Exception {
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration warmup = duration("warmup", "10s");
+        Duration duration = duration("duration", "30s");
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        int providers = Integer.parseInt(options.getOrDefault("providers", "4"));
+        for (int i = 0; i < providers; i++) {
+            authorizations.add("Bearer " + reserve("charge-" + i));
+        }
+        System.out.printf("Cible %s : %.0f requêtes/s, chauffe %s, mesure %s, mix %d:%d:%d%n",
+                baseUrl, rate, DurationStyle.SIMPLE.print(warmup), DurationStyle.SIMPLE.print(duration), mix[0], mix[1], mix[2]);
+
+        long intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Attente bloquante si trop de requêtes en vol : le retard est compté dans la latence
+            inFlight.acquire();
+            send(intended, intended >= measureFrom).whenComplete((ignored, error) -> inFlight.release());
+        }
+        if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            System.out.println("Requêtes encore en vol à l'arrêt : " + (maxInFlight - inFlight.availablePermits()));
+        }
+        report(duration);
+    }
+
+    private String reserve(String fournisseur) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/reserve?fournisseur=" + encode(fournisseur)))
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Réservation du token " + fournisseur + " refusée : HTTP " + response.statusCode());
+        }
+        return response.body().trim();
+    }
+
+    private CompletableFuture<?> send(long intended, boolean measured) {
+        Endpoint endpoint = choose();
+        Code code = null;
+        if (endpoint == Endpoint.SCAN) {
+            code = pending.poll();
+            if (code == null) {
+                endpoint = Endpoint.GENERATE;
+            } else {
+                pendingSize.decrementAndGet();
+            }
+        } else if (endpoint == Endpoint.RESCAN) {
+            long count = scannedCount.get();
+            code = count == 0 ? null : scanned.get((int) (ThreadLocalRandom.current().nextLong(Math.min(count, SCANNED_RING))));
+            if (code == null) {
+                endpoint = Endpoint.GENERATE;
+            }
+        }
+
+        Endpoint sent = endpoint;
+        Code scannedCode = code;
+        HttpRequest request = sent == Endpoint.GENERATE ? generateRequest() : scanRequest(code);
+        long sentAt = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    long now = System.nanoTime();
+                    int status = error != null ? -1 : response.statusCode();
+                    if (measured) {
+                        stats.get(sent).record(now - intended, now - sentAt, status);
+                    }
+                    if (status != 200) {
+                        return;
+                    }
+                    if (sent == Endpoint.GENERATE) {
+                        String authorization = request.headers().firstValue("Authorization").orElseThrow();
+                        addPending(new Code(authorization, decode(response.body())));
+                    } else if (sent == Endpoint.SCAN) {
+                        scanned.set((int) (scannedCount.getAndIncrement() % SCANNED_RING), scannedCode);
+                    }
+                });
+    }
+
+    private Endpoint choose() {
+        int draw = ThreadLocalRandom.current().nextInt(mix[0] + mix[1] + mix[2]);
+        if (draw < mix[0]) {
+            return Endpoint.GENERATE;
+        }
+        return draw < mix[0] + mix[1] ? Endpoint.SCAN : Endpoint.RESCAN;
+    }
+
+    private HttpRequest generateRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // courseId unique : la clé d'idempotence dérivée ne rejoue jamais une génération précédente
+        String body = "{\"clientId\":" + random.nextLong(1, 1_000_000)
+                + ",\"chauffeurId\":" + random.nextLong(1, 10_000)
+                + ",\"courseId\":" + courseIds.incrementAndGet()
+                + ",\"lieu\":\"Gare centrale\",\"heure\":\"08:30\",\"date\":\"2026-01-15\""
+                + ",\"ville\":\"Yaoundé\",\"pays\":\"Cameroun\"}";
+        String uri = baseUrl + "/api/qr/generate?expirationMillis=3600000&format=raw&tokenFormat=compact"
+                + (secret == null ? "&alg=es256" : "&secret=" + encode(secret));
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(timeout)
+                .header("Authorization", authorizations.get(random.nextInt(authorizations.size())))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest scanRequest(Code code) {
+        String uri = baseUrl + "/api/qr/scan?qrCodeData=" + encode(code.qrCodeData())
+                + (secret == null ? "" : "&secret=" + encode(secret));
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(timeout)
+                .header("Authorization", code.authorization())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"id\":\"" + UUID.randomUUID()
+                        + "\",\"lieu\":\"Gare centrale\",\"ville\":\"Yaoundé\",\"pays\":\"Cameroun\"}"))
+                .build();
+    }
+
+    private void addPending(Code code) {
+        pending.add(code);
+        if (pendingSize.incrementAndGet() > MAX_PENDING && pending.poll() != null) {
+            pendingSize.decrementAndGet();
+        }
+    }
+
+    // Format raw : largeur en modules (4 octets) puis les rangées, un bit par module ; pas de marge
+    private static String decode(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        int width = buffer.getInt();
+        int rowBytes = (width + 7) / 8;
+        BitMatrix matrix = new BitMatrix(width);
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((raw[4 + y * rowBytes + x / 8] & (0x80 >>> (x % 8))) != 0) {
+                    matrix.set(x, y);
+                }
+            }
+        }
+        try {
+            return new Decoder().decode(matrix).getText();
+        } catch (Exception e) {
+            throw new IllegalStateException("Matrice renvoyée par /generate illisible", e);
+        }
+    }
+
+    private void report(Duration duration) throws IOException {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.println();
+        System.out.printf("%-9s %9s %8s | %-35s | %-35s | %s%n", "endpoint", "requêtes", "req/s",
+                "latence p50 / p99 / p99.9 / max (ms)", "service p50 / p99 / p99.9 / max (ms)", "statuts");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats endpointStats = entry.getValue();
+            long count = endpointStats.latency.getTotalCount();
+            System.out.printf("%-9s %9d %8.1f | %-35s | %-35s | %s%n", entry.getKey().name().toLowerCase(), count, count / seconds,
+                    percentiles(endpointStats.latency), percentiles(endpointStats.service), endpointStats.statuses());
+        }
+        String hgrm = options.get("hgrm");
+        if (hgrm != null) {
+            Path directory = Files.createDirectories(Path.of(hgrm));
+            for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+                Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                    // Valeurs en microsecondes, distribution en millisecondes
+                    entry.getValue().latency.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            System.out.println("Distributions écrites dans " + directory.toAbsolutePath());
+        }
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "-";
+        }
+        return String.format("%.2f / %.2f / %.2f / %.2f", histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(options.getOrDefault(name, defaultValue));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /** Mesures d'un endpoint ; statut -1 pour une requête sans réponse (timeout, connexion refusée). */
+    private static final class Stats {
+        final Histogram latency = new ConcurrentHistogram(3);
+        final Histogram service = new ConcurrentHistogram(3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(long latencyNanos, long serviceNanos, int status) {
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            service.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+            statuses.computeIfAbsent(status, ignored -> new LongAdder()).increment();
+        }
+
+        Map<Integer, Long> statuses() {
+            Map<Integer, Long> sorted = new TreeMap<>();
+            statuses.forEach((status, count) -> sorted.put(status, count.sum()));
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.service.QRDataHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash d'un QRData : ancien chemin de {@code QRCodeService.hashData(qrData.toString())}, conservé ici seulement
+ * (JSON intermédiaire, {@code MessageDigest.getInstance} et {@code String.format} par octet), contre {@link QRDataHasher}.
+ * A lancer avec {@code -prof gc} pour comparer l'allocation par opération.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRHashBenchmark {
+
+    private QRData qrData;
+    private QRDataHasher hasher;
+
+    @Setup
+    public void setup() throws Exception {
+        qrData = new QRData();
+        qrData.setId(UUID.randomUUID());
+        qrData.setClientId(123456L);
+        qrData.setChauffeurId(654321L);
+        qrData.setCourseId(987654L);
+        qrData.setLieu("Gare Centrale");
+        qrData.setFournisseur("NomDuFournisseur");
+        qrData.setHeure("14:30");
+        qrData.setDate("2025-02-07");
+        qrData.setVille("Yaoundé");
+        qrData.setPays("Cameroun");
+        hasher = new QRDataHasher(new SimpleMeterRegistry());
+        if (!hasher.hash(qrData).equals(legacyHash())) {
+            throw new IllegalStateException("Les deux chemins doivent produire le même hash");
+        }
+    }
+
+    @Benchmark
+    public String legacyHash() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] encodedHash = digest.digest(qrData.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : encodedHash) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public String qrDataHasher() {
+        return hasher.hash(qrData);
+    }
+}
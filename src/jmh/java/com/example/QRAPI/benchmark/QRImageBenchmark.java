@@ -0,0 +1,68 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.security.JwtKeyRegistry;
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.security.SigningKeyProperties;
+import com.example.QRAPI.service.QRCodeService;
+import com.example.QRAPI.service.QRImageRenderer;
+import com.example.QRAPI.service.render.QRFormat;
+import com.example.QRAPI.service.render.RenderOptions;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QRCodeService#generateQRCodeImageFromData} selon la taille de l'image, la longueur du contenu
+ * (token compact ~80 caractères, JWT ~180, contenu long) et le format. Le cache de rendu est réduit
+ * à rien et les contenus tournent : chaque appel encode réellement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRImageBenchmark {
+
+    private static final int PAYLOADS = 256;
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    @Param({"200", "350", "1000"})
+    public int size;
+
+    @Param({"80", "180", "600"})
+    public int payloadLength;
+
+    @Param({"PNG", "SVG"})
+    public QRFormat format;
+
+    private QRCodeService qrCodeService;
+    private RenderOptions options;
+    private String[] payloads;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        qrCodeService = new QRCodeService(new JwtKeyRegistry(16), new QRSigningKeys(new SigningKeyProperties()),
+                new QRImageRenderer(meterRegistry, 1, Duration.ofMinutes(1)), meterRegistry);
+        options = new RenderOptions(format, size, 1, ErrorCorrectionLevel.L);
+        payloads = new String[PAYLOADS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < PAYLOADS; i++) {
+            char[] chars = new char[payloadLength];
+            for (int j = 0; j < payloadLength; j++) {
+                chars[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            payloads[i] = new String(chars);
+        }
+    }
+
+    @Benchmark
+    public byte[] generate() throws Exception {
+        return qrCodeService.generateQRCodeImageFromData(payloads[ThreadLocalRandom.current().nextInt(PAYLOADS)], options);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.security.JwtKeyRegistry;
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.security.SigningKeyProperties;
+import com.example.QRAPI.service.QRCodeService;
+import com.example.QRAPI.service.QRImageRenderer;
+import com.example.QRAPI.service.render.PngEncoder;
+import com.example.QRAPI.service.render.QRMatrix;
+import com.example.QRAPI.service.render.RenderOptions;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token JWT contre token compact (Base45), du point de vue du QR Code : rendu PNG par défaut
+ * (350x350, marge 1, correction L, hors cache de rendu) et scan de l'image obtenue (ImageIO,
+ * HybridBinarizer, QRCodeReader comme {@code /api/qr/scan/image}, puis vérification de la signature).
+ * La version du QR Code et la taille du PNG sont affichées au setup de chaque combinaison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRPayloadBenchmark {
+
+    private static final String QR_SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final Map<DecodeHintType, Object> HINTS = new EnumMap<>(DecodeHintType.class);
+
+    static {
+        HINTS.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+        HINTS.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+
+    @Param({"jwt", "compact"})
+    public String format;
+
+    @Param({"hs256", "es256"})
+    public String alg;
+
+    private QRCodeService qrCodeService;
+    // null : ES256 avec la clé du registre
+    private String secret;
+    private String token;
+    private byte[] png;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        qrCodeService = new QRCodeService(new JwtKeyRegistry(16), new QRSigningKeys(new SigningKeyProperties()),
+                new QRImageRenderer(meterRegistry, 1, Duration.ofMinutes(1)), meterRegistry);
+        secret = "es256".equals(alg) ? null : QR_SECRET;
+        token = qrCodeService.sign(HASH, secret, TimeUnit.HOURS.toMillis(1), "compact".equals(format));
+        png = qrCodeService.generateQRCodeImageFromData(token, RenderOptions.DEFAULT);
+        int version = (QRMatrix.encode(token, RenderOptions.DEFAULT).getModuleCount() - 17) / 4;
+        System.out.printf("%s/%s : %d caractères, version %d, PNG %d octets%n",
+                format, alg, token.length(), version, png.length);
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return PngEncoder.encode(QRMatrix.encode(token, RenderOptions.DEFAULT));
+    }
+
+    @Benchmark
+    public Claims scan() throws Exception {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(
+                new BufferedImageLuminanceSource(ImageIO.read(new ByteArrayInputStream(png)))));
+        return qrCodeService.verifyClaims(new QRCodeReader().decode(bitmap, HINTS).getText(), secret);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.service.render.PngEncoder;
+import com.example.QRAPI.service.render.QRMatrix;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu PNG d'un token signé : ancien chemin ZXing + {@code MatrixToImageWriter} (ImageIO)
+ * contre l'encodeur PNG 1 bit direct. A lancer avec {@code -prof gc} pour l'allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRRenderBenchmark {
+
+    // Longueur typique d'un token HS256 portant un hash hexadécimal
+    private String token;
+
+    @Setup
+    public void setup() {
+        token = "eyJhbGciOiJIUzI1NiJ9." + "x".repeat(130) + "." + "s".repeat(43);
+    }
+
+    @Benchmark
+    public byte[] matrixToImageWriter() throws Exception {
+        QRCodeWriter qrCodeWriter = new QRCodeWriter();
+        Map<EncodeHintType, Object> hintMap = new HashMap<>();
+        hintMap.put(EncodeHintType.MARGIN, 1);
+        BitMatrix bitMatrix = qrCodeWriter.encode(token, BarcodeFormat.QR_CODE, 350, 350, hintMap);
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public byte[] pngEncoder() throws Exception {
+        return PngEncoder.encode(QRMatrix.encode(token, 350, 1, ErrorCorrectionLevel.L));
+    }
+}
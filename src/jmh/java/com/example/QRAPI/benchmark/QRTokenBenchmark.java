@@ -0,0 +1,60 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.security.JwtKeyRegistry;
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.security.SigningKeyProperties;
+import com.example.QRAPI.service.QRCodeService;
+import com.example.QRAPI.service.QRImageRenderer;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signature et vérification du contenu d'un QR Code, token JWT ou compact (Base45), HS256 ou ES256.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRTokenBenchmark {
+
+    private static final String QR_SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Param({"jwt", "compact"})
+    public String format;
+
+    @Param({"hs256", "es256"})
+    public String alg;
+
+    private QRCodeService qrCodeService;
+    private boolean compact;
+    // null : ES256 avec la clé du registre
+    private String secret;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        qrCodeService = new QRCodeService(new JwtKeyRegistry(16), new QRSigningKeys(new SigningKeyProperties()),
+                new QRImageRenderer(meterRegistry, 1 << 20, Duration.ofMinutes(1)), meterRegistry);
+        compact = "compact".equals(format);
+        secret = "es256".equals(alg) ? null : QR_SECRET;
+        token = qrCodeService.sign(HASH, secret, TimeUnit.HOURS.toMillis(1), compact);
+    }
+
+    @Benchmark
+    public String sign() {
+        return qrCodeService.sign(HASH, secret, TimeUnit.HOURS.toMillis(1), compact);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return qrCodeService.verifyClaims(token, secret);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.service.ScanAggregator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de {@link ScanAggregator#record} sur le chemin du scan, avec 8 threads qui comptent les mêmes
+ * valeurs (cas le plus contendu). A lancer avec {@code -prof gc} : aucune allocation attendue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ScanAggregatorBenchmark {
+
+    private ScanAggregator scanAggregator;
+
+    @Setup
+    public void setup() {
+        // record() n'accède pas à Cassandra ; aucun flush pendant la mesure
+        scanAggregator = new ScanAggregator(null, new SimpleMeterRegistry(), 10000, Duration.ofSeconds(5));
+    }
+
+    @Benchmark
+    public void record() {
+        scanAggregator.record("NomDuFournisseur", "Yaoundé", "Cameroun");
+    }
+}
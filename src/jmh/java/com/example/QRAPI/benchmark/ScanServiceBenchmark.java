@@ -0,0 +1,99 @@
+package com.example.QRAPI.benchmark;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.memory.InMemoryAsyncQRRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRDataRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRHashRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRLookupRepository;
+import com.example.QRAPI.service.ScanCache;
+import com.example.QRAPI.service.ScanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScanService#processScan} contre les repositories en mémoire du profil {@code memory} :
+ * mesure le traitement autour de la lecture (cache, repli, minuterie) sans le réseau. Le temps
+ * Cassandra s'ajoute en production ({@code cassandra.query}) ; sa stabilité quand la table grossit
+ * se mesure sur le cluster (générateur de charge, {@code --url}), pas ici.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanServiceBenchmark {
+
+    /** Lignes qr_lookup : la durée d'une lecture ne doit pas dépendre du nombre de codes. */
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private ScanService scanService;
+    private String[] hashes;
+    private String[] unknownHashes;
+    private Date expiration;
+
+    @Setup
+    public void setup() {
+        InMemoryQRLookupRepository lookups = new InMemoryQRLookupRepository();
+        hashes = new String[rows];
+        unknownHashes = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            QRData data = new QRData();
+            data.setId(UUID.randomUUID());
+            data.setClientId((long) i);
+            data.setFournisseur("NomDuFournisseur");
+            QRHash hash = new QRHash();
+            hash.setId(UUID.randomUUID());
+            hash.setHash(randomHash());
+            hash.setQrDataId(data.getId());
+            lookups.save(QRLookup.of(hash, data));
+            hashes[i] = hash.getHash();
+            unknownHashes[i] = randomHash();
+        }
+        InMemoryQRHashRepository qrHashes = new InMemoryQRHashRepository();
+        InMemoryQRDataRepository qrData = new InMemoryQRDataRepository();
+        scanService = new ScanService(lookups, qrHashes, qrData,
+                new InMemoryAsyncQRRepository(qrData, qrHashes, lookups, new InMemoryHistoryRepository()),
+                new ScanCache(new SimpleMeterRegistry(), rows * 2L, Duration.ofMinutes(5)),
+                new SimpleMeterRegistry(), true);
+        expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        for (String hash : hashes) {
+            scanService.processScan(hash, expiration);
+        }
+    }
+
+    /** Lecture qr_lookup trouvée, sans cache. */
+    @Benchmark
+    public QRLookup lookup() {
+        return scanService.processScan(hashes[ThreadLocalRandom.current().nextInt(rows)]);
+    }
+
+    /** Scan répété d'un code déjà validé : servi par le cache de scans. */
+    @Benchmark
+    public QRLookup cached() {
+        return scanService.processScan(hashes[ThreadLocalRandom.current().nextInt(rows)], expiration);
+    }
+
+    /** Hash inconnu : qr_lookup puis repli sur qr_hash, tous deux vides. */
+    @Benchmark
+    public QRLookup unknown() {
+        return scanService.processScan(unknownHashes[ThreadLocalRandom.current().nextInt(rows)]);
+    }
+
+    private static String randomHash() {
+        byte[] bytes = new byte[32];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.QRAPI;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Réservoir borné d'objets coûteux à créer (digests, Mac, Signature, Deflater), partagé par tous les
+ * threads. Remplace les {@code ThreadLocal} : avec les threads virtuels, chaque requête a son propre
+ * thread et un {@code ThreadLocal} créerait un objet par requête sans jamais le réutiliser.
+ * Un objet pris ({@link #acquire}) doit être rendu ({@link #release}) ; au-delà de {@code capacity}
+ * objets au repos, ceux rendus en plus sont libérés par {@code discard}.
+ */
+public final class BoundedPool<T> {
+
+    /** Un objet au repos par cœur, plus une marge pour les threads préemptés pendant leur utilisation. */
+    public static final int DEFAULT_CAPACITY = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int capacity;
+    private final Supplier<T> factory;
+    private final Consumer<T> discard;
+
+    public BoundedPool(Supplier<T> factory) {
+        this(DEFAULT_CAPACITY, factory, object -> {
+        });
+    }
+
+    public BoundedPool(Supplier<T> factory, Consumer<T> discard) {
+        this(DEFAULT_CAPACITY, factory, discard);
+    }
+
+    public BoundedPool(int capacity, Supplier<T> factory, Consumer<T> discard) {
+        this.capacity = capacity;
+        this.factory = factory;
+        this.discard = discard;
+    }
+
+    /** Objet au repos, ou nouvel objet si aucun n'est disponible. */
+    public T acquire() {
+        T object = idle.poll();
+        if (object == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return object;
+    }
+
+    public void release(T object) {
+        if (idleCount.incrementAndGet() <= capacity) {
+            idle.offer(object);
+        } else {
+            idleCount.decrementAndGet();
+            discard.accept(object);
+        }
+    }
+}
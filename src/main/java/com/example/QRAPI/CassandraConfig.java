@@ -1,19 +1,115 @@
 package com.example.QRAPI;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.CqlSessionBuilder;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.cassandra.CassandraProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
 import java.net.InetSocketAddress;
+import java.util.List;
 
+/**
+ * Session CQL partagée. Points de contact, datacenter local et keyspace viennent de
+ * {@code spring.data.cassandra.*} ; le reste de {@code qrapi.cassandra.*} ({@link CassandraDriverProperties}).
+ * La politique de répartition par défaut du driver est sensible aux tokens (requête envoyée à un
+ * réplica de la partition, dès que la clé de partition est liée dans une requête préparée) et au
+ * datacenter (seuls les nœuds du datacenter local sont utilisés, sauf repli explicite).
+ * Absente avec le profil {@code memory} (stockage en mémoire).
+ */
 @Configuration
+@Profile("!memory")
 public class CassandraConfig {
 
+    /** Lectures du scan : idempotentes, avec exécution spéculative. */
+    public static final String SCAN_PROFILE = "scan";
+    /** Lectures de l'export : délai long. */
+    public static final String EXPORT_PROFILE = "export";
+    /** Écritures hors chemin de réponse (historique, compteurs). */
+    public static final String BACKGROUND_PROFILE = "background";
+
+    private static final List<String> SESSION_METRICS = List.of(
+            "bytes-sent", "bytes-received", "connected-nodes", "cql-requests", "cql-client-timeouts",
+            "cql-prepared-cache-size", "throttling.delay", "throttling.queue-size", "throttling.errors");
+    private static final List<String> NODE_METRICS = List.of(
+            "pool.open-connections", "pool.available-streams", "pool.in-flight", "pool.orphaned-streams",
+            "cql-messages", "retries.total", "speculative-executions", "errors.request.unsent",
+            "errors.request.aborted", "errors.request.read-timeouts", "errors.request.write-timeouts",
+            "errors.request.unavailables", "errors.connection.init");
+
+    @Bean
+    public CqlSession cassandraSession(CassandraProperties cassandraProperties, CassandraDriverProperties driverProperties,
+                                       MeterRegistry meterRegistry) {
+        CqlSessionBuilder builder = CqlSession.builder()
+                .withConfigLoader(configLoader(driverProperties))
+                .withLocalDatacenter(cassandraProperties.getLocalDatacenter())
+                .withKeyspace(cassandraProperties.getKeyspaceName())
+                // Métriques du driver (pools, requêtes en vol, latences) dans le registre Micrometer
+                .withMetricRegistry(meterRegistry);
+        for (String contactPoint : cassandraProperties.getContactPoints()) {
+            builder.addContactPoint(address(contactPoint, cassandraProperties.getPort()));
+        }
+        if (cassandraProperties.getUsername() != null) {
+            builder.withAuthCredentials(cassandraProperties.getUsername(), cassandraProperties.getPassword());
+        }
+        return builder.build();
+    }
+
+    static DriverConfigLoader configLoader(CassandraDriverProperties properties) {
+        ProgrammaticDriverConfigLoaderBuilder config = DriverConfigLoader.programmaticBuilder()
+                .withString(DefaultDriverOption.REQUEST_CONSISTENCY, properties.getConsistency().name())
+                .withString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY, properties.getSerialConsistency().name())
+                .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, properties.getRequestTimeout())
+                .withString(DefaultDriverOption.REQUEST_THROTTLER_CLASS, "ConcurrencyLimitingRequestThrottler")
+                .withInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_CONCURRENT_REQUESTS, properties.getThrottler().getMaxConcurrentRequests())
+                .withInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_QUEUE_SIZE, properties.getThrottler().getMaxQueueSize())
+                .withInt(DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE, properties.getPool().getLocalSize())
+                .withInt(DefaultDriverOption.CONNECTION_POOL_REMOTE_SIZE, properties.getPool().getRemoteSize())
+                .withInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS, properties.getPool().getMaxRequestsPerConnection())
+                .withInt(DefaultDriverOption.LOAD_BALANCING_DC_FAILOVER_MAX_NODES_PER_REMOTE_DC, properties.getRemoteDcFailoverNodes())
+                .withString(DefaultDriverOption.METRICS_FACTORY_CLASS, "MicrometerMetricsFactory")
+                .withStringList(DefaultDriverOption.METRICS_SESSION_ENABLED, SESSION_METRICS)
+                .withStringList(DefaultDriverOption.METRICS_NODE_ENABLED, NODE_METRICS);
+        profile(config, SCAN_PROFILE, properties.getScan());
+        profile(config, EXPORT_PROFILE, properties.getExport());
+        profile(config, BACKGROUND_PROFILE, properties.getBackground());
+        return config.build();
+    }
+
+    private static void profile(ProgrammaticDriverConfigLoaderBuilder config, String name, CassandraDriverProperties.Profile profile) {
+        config.startProfile(name);
+        if (profile.getConsistency() != null) {
+            config.withString(DefaultDriverOption.REQUEST_CONSISTENCY, profile.getConsistency().name());
+        }
+        if (profile.getRequestTimeout() != null) {
+            config.withDuration(DefaultDriverOption.REQUEST_TIMEOUT, profile.getRequestTimeout());
+        }
+        if (profile.getSpeculativeMaxExecutions() > 1) {
+            config.withString(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, "ConstantSpeculativeExecutionPolicy")
+                    .withInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX, profile.getSpeculativeMaxExecutions())
+                    .withDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY, profile.getSpeculativeDelay());
+        }
+        config.endProfile();
+    }
+
+    // "hôte:port" ou "hôte" (port de spring.data.cassandra.port)
+    private static InetSocketAddress address(String contactPoint, int defaultPort) {
+        int colon = contactPoint.lastIndexOf(':');
+        if (colon > 0 && contactPoint.indexOf(':') == colon) {
+            return new InetSocketAddress(contactPoint.substring(0, colon).trim(), Integer.parseInt(contactPoint.substring(colon + 1).trim()));
+        }
+        return new InetSocketAddress(contactPoint.trim(), defaultPort);
+    }
+
+    // Écritures non bloquantes (executeAsync) avec le même mapping que les repositories
     @Bean
-    public CqlSession cassandraSession() {
-        return CqlSession.builder()
-                .addContactPoint(new InetSocketAddress("127.0.0.1", 9042))
-                .withLocalDatacenter("datacenter1")
-                .withKeyspace("transportapp")
-                .build();
+    public AsyncCassandraTemplate asyncCassandraTemplate(CqlSession cassandraSession, CassandraConverter cassandraConverter) {
+        return new AsyncCassandraTemplate(cassandraSession, cassandraConverter);
     }
 }
@@ -0,0 +1,112 @@
+package com.example.QRAPI;
+
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Réglages du driver Cassandra ({@code qrapi.cassandra.*}) en plus de {@code spring.data.cassandra.*}
+ * (points de contact, datacenter local, keyspace, identifiants).
+ * Les profils d'exécution surchargent le profil par défaut pour une famille de requêtes :
+ * {@code scan} (lectures du scan, idempotentes, exécution spéculative), {@code export} (lectures
+ * de l'export, longues), {@code background} (historique et compteurs, hors chemin de réponse).
+ */
+@Component
+@ConfigurationProperties("qrapi.cassandra")
+public class CassandraDriverProperties {
+
+    private DefaultConsistencyLevel consistency = DefaultConsistencyLevel.LOCAL_QUORUM;
+    private DefaultConsistencyLevel serialConsistency = DefaultConsistencyLevel.LOCAL_SERIAL;
+    private Duration requestTimeout = Duration.ofSeconds(2);
+    // Nœuds d'un autre datacenter utilisables si le datacenter local est indisponible (0 = aucun)
+    private int remoteDcFailoverNodes = 0;
+    private final Throttler throttler = new Throttler();
+    private final Pool pool = new Pool();
+    private final Profile scan = new Profile(null, null, Duration.ofMillis(20), 2);
+    private final Profile export = new Profile(DefaultConsistencyLevel.LOCAL_ONE, Duration.ofSeconds(30), null, 0);
+    private final Profile background = new Profile(DefaultConsistencyLevel.LOCAL_ONE, Duration.ofSeconds(5), null, 0);
+
+    public DefaultConsistencyLevel getConsistency() { return consistency; }
+    public void setConsistency(DefaultConsistencyLevel consistency) { this.consistency = consistency; }
+
+    public DefaultConsistencyLevel getSerialConsistency() { return serialConsistency; }
+    public void setSerialConsistency(DefaultConsistencyLevel serialConsistency) { this.serialConsistency = serialConsistency; }
+
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+
+    public int getRemoteDcFailoverNodes() { return remoteDcFailoverNodes; }
+    public void setRemoteDcFailoverNodes(int remoteDcFailoverNodes) { this.remoteDcFailoverNodes = remoteDcFailoverNodes; }
+
+    public Throttler getThrottler() { return throttler; }
+    public Pool getPool() { return pool; }
+    public Profile getScan() { return scan; }
+    public Profile getExport() { return export; }
+    public Profile getBackground() { return background; }
+
+    /**
+     * Le throttler met en file d'attente (sans bloquer de thread) les requêtes au-delà de
+     * max-concurrent-requests : avec les threads virtuels, le nombre de requêtes simultanées
+     * n'est plus borné par le pool Tomcat et saturerait sinon les connexions CQL.
+     */
+    public static class Throttler {
+        private int maxConcurrentRequests = 1024;
+        private int maxQueueSize = 10000;
+
+        public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) { this.maxConcurrentRequests = maxConcurrentRequests; }
+
+        public int getMaxQueueSize() { return maxQueueSize; }
+        public void setMaxQueueSize(int maxQueueSize) { this.maxQueueSize = maxQueueSize; }
+    }
+
+    /** Connexions par nœud (datacenter local / distant) et requêtes en vol par connexion. */
+    public static class Pool {
+        private int localSize = 2;
+        private int remoteSize = 1;
+        private int maxRequestsPerConnection = 1024;
+
+        public int getLocalSize() { return localSize; }
+        public void setLocalSize(int localSize) { this.localSize = localSize; }
+
+        public int getRemoteSize() { return remoteSize; }
+        public void setRemoteSize(int remoteSize) { this.remoteSize = remoteSize; }
+
+        public int getMaxRequestsPerConnection() { return maxRequestsPerConnection; }
+        public void setMaxRequestsPerConnection(int maxRequestsPerConnection) { this.maxRequestsPerConnection = maxRequestsPerConnection; }
+    }
+
+    /**
+     * Profil d'exécution ; un champ null reprend la valeur du profil par défaut.
+     * {@code speculativeMaxExecutions} compte l'exécution initiale : 2 = au plus une relance sur un
+     * autre réplica si la réponse n'est pas arrivée après {@code speculativeDelay}. Ne concerne que
+     * les requêtes marquées idempotentes.
+     */
+    public static class Profile {
+        private DefaultConsistencyLevel consistency;
+        private Duration requestTimeout;
+        private Duration speculativeDelay;
+        private int speculativeMaxExecutions;
+
+        public Profile(DefaultConsistencyLevel consistency, Duration requestTimeout, Duration speculativeDelay, int speculativeMaxExecutions) {
+            this.consistency = consistency;
+            this.requestTimeout = requestTimeout;
+            this.speculativeDelay = speculativeDelay;
+            this.speculativeMaxExecutions = speculativeMaxExecutions;
+        }
+
+        public DefaultConsistencyLevel getConsistency() { return consistency; }
+        public void setConsistency(DefaultConsistencyLevel consistency) { this.consistency = consistency; }
+
+        public Duration getRequestTimeout() { return requestTimeout; }
+        public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+
+        public Duration getSpeculativeDelay() { return speculativeDelay; }
+        public void setSpeculativeDelay(Duration speculativeDelay) { this.speculativeDelay = speculativeDelay; }
+
+        public int getSpeculativeMaxExecutions() { return speculativeMaxExecutions; }
+        public void setSpeculativeMaxExecutions(int speculativeMaxExecutions) { this.speculativeMaxExecutions = speculativeMaxExecutions; }
+    }
+}
@@ -1,27 +1,56 @@
 package com.example.QRAPI.controller;
 
 import com.example.QRAPI.security.JwtUtil;
+import com.example.QRAPI.security.ProviderTokenCache;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
+
 @RestController
 @RequestMapping("/api")
 public class AuthController {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final JwtUtil jwtUtil;
+    private final ProviderTokenCache providerTokenCache;
 
-    public AuthController(JwtUtil jwtUtil) {
+    public AuthController(JwtUtil jwtUtil, ProviderTokenCache providerTokenCache) {
         this.jwtUtil = jwtUtil;
+        this.providerTokenCache = providerTokenCache;
     }
 
     @PostMapping("/reserve")
     public ResponseEntity<String> reserveToken(@RequestParam String fournisseur) {
         String token = jwtUtil.generateTokenForProvider(fournisseur);
-	System.out.println("Token généré : " + token + "\n");
+        // Le token lui-même n'est jamais journalisé
+        log.info("Token généré pour le fournisseur {}", fournisseur);
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(org.springframework.http.MediaType.TEXT_PLAIN);
         return new ResponseEntity<>(token, headers, HttpStatus.OK);
     }
+
+    /**
+     * Révoque un token fournisseur compromis : la révocation est enregistrée, le token est refusé
+     * aussitôt par ce nœud et par les autres après leur relecture des révocations. Un fournisseur ne
+     * peut révoquer que ses propres tokens.
+     */
+    @PostMapping("/token/revoke")
+    public ResponseEntity<?> revokeToken(@RequestParam String token, Principal fournisseur) {
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Token invalide");
+        }
+        if (!fournisseur.getName().equals(JwtUtil.extractFournisseur(claims))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Token d'un autre fournisseur");
+        }
+        providerTokenCache.revoke(token);
+        return ResponseEntity.noContent().build();
+    }
 }
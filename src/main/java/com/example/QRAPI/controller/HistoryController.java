@@ -0,0 +1,142 @@
+package com.example.QRAPI.controller;
+
+import com.example.QRAPI.model.HistoryEntry;
+import com.example.QRAPI.repository.HistoryByProviderRepository;
+import com.example.QRAPI.service.HistoryExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    private final HistoryByProviderRepository historyByProviderRepository;
+    private final HistoryExportService historyExportService;
+
+    @Value("${qrapi.history.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${qrapi.history.query.max-days:31}")
+    private int maxDays;
+
+    @Value("${qrapi.export.max-days:366}")
+    private int exportMaxDays;
+
+    public HistoryController(HistoryByProviderRepository historyByProviderRepository, HistoryExportService historyExportService) {
+        this.historyByProviderRepository = historyByProviderRepository;
+        this.historyExportService = historyExportService;
+    }
+
+    /**
+     * Scans du fournisseur connecté entre {@code from} et {@code to}, du plus récent au plus ancien.
+     * La page suivante s'obtient en renvoyant la même requête avec {@code cursor} = {@code next}.
+     * Chaque page lit au plus {@code pageSize} lignes, quelle que soit la taille de l'intervalle.
+     */
+    @GetMapping
+    public ResponseEntity<?> findHistory(@RequestParam(required = false) String fournisseur, @RequestParam Instant from,
+                                         @RequestParam Instant to, @RequestParam(defaultValue = "100") int pageSize,
+                                         @RequestParam(required = false) String cursor, Principal principal) {
+        String provider = principal.getName();
+        if (fournisseur != null && !fournisseur.equals(provider)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Historique d'un autre fournisseur");
+        }
+        if (from.isAfter(to) || pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().body("Intervalle ou taille de page invalide (pageSize de 1 à " + maxPageSize + ")");
+        }
+        LocalDate firstDay = LocalDate.ofInstant(from, ZoneOffset.UTC);
+        LocalDate lastDay = LocalDate.ofInstant(to, ZoneOffset.UTC);
+        if (ChronoUnit.DAYS.between(firstDay, lastDay) >= maxDays) {
+            return ResponseEntity.badRequest().body("Intervalle limité à " + maxDays + " jours");
+        }
+
+        try {
+            LocalDate day = lastDay;
+            String pagingState = null;
+            if (cursor != null) {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.", 2);
+                day = LocalDate.parse(position[0]);
+                pagingState = position.length > 1 ? position[1] : null;
+                if (day.isBefore(firstDay) || day.isAfter(lastDay)) {
+                    return ResponseEntity.badRequest().body("Curseur invalide");
+                }
+            }
+
+            // Une partition par jour, parcourues du jour le plus récent au plus ancien
+            List<HistoryEntry> items = new ArrayList<>(pageSize);
+            while (items.size() < pageSize && !day.isBefore(firstDay)) {
+                HistoryByProviderRepository.Page page = historyByProviderRepository.findPage(
+                        provider, day, from, to, pageSize - items.size(), pagingState);
+                items.addAll(page.items());
+                pagingState = page.pagingState();
+                if (pagingState == null) {
+                    day = day.minusDays(1);
+                }
+            }
+
+            String next = null;
+            if (!day.isBefore(firstDay)) {
+                String position = pagingState != null ? day + "." + pagingState : day.toString();
+                next = Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+            }
+            return ResponseEntity.ok(new HistoryPage(items, next));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Curseur invalide");
+        }
+    }
+
+    /**
+     * Export des scans du fournisseur connecté du jour {@code from} au jour {@code to} inclus (UTC), en NDJSON
+     * (défaut) ou CSV, écrit au fil de la lecture. Sans {@code to} : aujourd'hui ; sans {@code from} : les
+     * {@code qrapi.export.max-days} jours jusqu'à {@code to}.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(@RequestParam(defaultValue = "ndjson") String format,
+                                           @RequestParam(required = false) LocalDate from,
+                                           @RequestParam(required = false) LocalDate to, Principal principal) {
+        HistoryExportService.Format exportFormat;
+        try {
+            exportFormat = HistoryExportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return badRequest("Format inconnu : ndjson ou csv");
+        }
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(exportMaxDays - 1L);
+        if (firstDay.isAfter(lastDay) || ChronoUnit.DAYS.between(firstDay, lastDay) >= exportMaxDays) {
+            return badRequest("Période invalide (au plus " + exportMaxDays + " jours)");
+        }
+        String provider = principal.getName();
+        StreamingResponseBody body = out -> historyExportService.export(provider, firstDay, lastDay, exportFormat, out);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(exportFormat.getMediaType());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("history." + exportFormat.name().toLowerCase()).build());
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Le corps doit rester un StreamingResponseBody : Spring ne reconnaît le flux que sur ResponseEntity<StreamingResponseBody>
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public record HistoryPage(List<HistoryEntry> items, String next) {
+    }
+}
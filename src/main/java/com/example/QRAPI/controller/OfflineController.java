@@ -0,0 +1,115 @@
+package com.example.QRAPI.controller;
+
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.service.OfflineScanService;
+import com.example.QRAPI.service.RevocationSnapshot;
+import com.example.QRAPI.service.RevocationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecteurs hors ligne : clés publiques de vérification, liste de révocation et envoi différé des scans.
+ */
+@RestController
+@RequestMapping("/api/qr")
+public class OfflineController {
+
+    private final QRSigningKeys signingKeys;
+    private final RevocationService revocationService;
+    private final OfflineScanService offlineScanService;
+
+    @Value("${qrapi.offline.max-scans:1000}")
+    private int maxScans;
+
+    public OfflineController(QRSigningKeys signingKeys, RevocationService revocationService, OfflineScanService offlineScanService) {
+        this.signingKeys = signingKeys;
+        this.revocationService = revocationService;
+        this.offlineScanService = offlineScanService;
+    }
+
+    /**
+     * Clés publiques ES256 au format JWKS (RFC 7517), clé active comprise.
+     */
+    @GetMapping("/keys")
+    public ResponseEntity<Map<String, Object>> publicKeys() {
+        List<Map<String, String>> keys = new ArrayList<>();
+        signingKeys.publicKeys().forEach((kid, key) -> keys.add(jwk(kid, key)));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .body(Map.of("keys", keys));
+    }
+
+    /**
+     * Liste de révocation, complète ou depuis le curseur {@code since} d'une synchronisation précédente.
+     * Curseur suivant dans l'en-tête {@code X-Revocation-Cursor} ; 304 si l'ETag n'a pas changé.
+     */
+    @GetMapping("/revocations")
+    public ResponseEntity<byte[]> revocations(@RequestParam(defaultValue = "0") long since,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        RevocationSnapshot snapshot = revocationService.snapshot();
+        if (snapshot == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        String etag = snapshot.etag(since);
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(RevocationSnapshot.MEDIA_TYPE))
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Revocation-Cursor", Long.toString(snapshot.cursor()))
+                .body(snapshot.encode(since));
+    }
+
+    /**
+     * Scans faits hors ligne, envoyés par lot. {@code secret} : pour les codes HS256 du lot.
+     */
+    @PostMapping("/scan/offline")
+    public ResponseEntity<?> uploadOfflineScans(@RequestBody List<OfflineScanService.OfflineScan> scans,
+                                                @RequestParam(required = false) String secret) {
+        if (scans.isEmpty() || scans.size() > maxScans) {
+            return ResponseEntity.badRequest().body("Le lot doit contenir entre 1 et " + maxScans + " scans");
+        }
+        for (int i = 0; i < scans.size(); i++) {
+            if (scans.get(i) == null || !scans.get(i).isComplete()) {
+                return ResponseEntity.badRequest().body("Scan " + i + " : scannedAt et history.id sont obligatoires");
+            }
+        }
+        return ResponseEntity.ok(offlineScanService.upload(scans, secret));
+    }
+
+    private static Map<String, String> jwk(String kid, ECPublicKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    // Coordonnée sur 32 octets non signés, en Base64url sans remplissage
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
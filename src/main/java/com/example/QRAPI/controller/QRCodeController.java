@@ -1,104 +1,218 @@
 package com.example.QRAPI.controller;
 
+import com.example.QRAPI.service.BatchQRService;
+import com.example.QRAPI.service.HistoryWriteBehind;
+import com.example.QRAPI.service.QRCodeService;
+import com.example.QRAPI.service.QRGenerationService;
+import com.example.QRAPI.service.QRImageScanService;
+import com.example.QRAPI.service.RevocationService;
+import com.example.QRAPI.service.RevocationSnapshot;
+import com.example.QRAPI.service.ScanAggregator;
+import com.example.QRAPI.service.ScanMetrics;
 import com.example.QRAPI.service.ScanService;
+import com.example.QRAPI.service.ScanUsageService;
+import com.example.QRAPI.service.render.QRFormat;
+import com.example.QRAPI.service.render.RenderOptions;
 import com.example.QRAPI.model.QRData;
-import com.example.QRAPI.model.QRHash;
 import com.example.QRAPI.model.History;
-import com.example.QRAPI.repository.QRDataRepository;
-import com.example.QRAPI.repository.QRHashRepository;
-import com.example.QRAPI.repository.HistoryRepository;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.example.QRAPI.model.QRLookup;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.security.Principal;
-import java.io.ByteArrayOutputStream;
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/qr")
 public class QRCodeController {
 
-    private final QRDataRepository qrDataRepository;
-    private final QRHashRepository qrHashRepository;
-    private final HistoryRepository historyRepository;
+    private static final Logger log = LoggerFactory.getLogger(QRCodeController.class);
+
+    // Réponse de /generate servie depuis une génération précédente de la même clé d'idempotence
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final ScanService scanService;
+    private final QRCodeService qrCodeService;
+    private final QRGenerationService qrGenerationService;
+    private final BatchQRService batchQRService;
+    private final HistoryWriteBehind historyWriteBehind;
+    private final QRImageScanService qrImageScanService;
+    private final ScanUsageService scanUsageService;
+    private final ScanAggregator scanAggregator;
+    private final ScanMetrics scanMetrics;
+    private final RevocationService revocationService;
+
+    @Value("${qrapi.batch.max-size:5000}")
+    private int maxBatchSize;
 
-    public QRCodeController(QRDataRepository qrDataRepository, QRHashRepository qrHashRepository, HistoryRepository historyRepository, ScanService scanService) {
-        this.qrDataRepository = qrDataRepository;
-        this.qrHashRepository = qrHashRepository;
-        this.historyRepository = historyRepository;
+    @Value("${qrapi.image-scan.max-images:50}")
+    private int maxScanImages;
+
+    public QRCodeController(ScanService scanService, QRCodeService qrCodeService,
+                            QRGenerationService qrGenerationService, BatchQRService batchQRService, HistoryWriteBehind historyWriteBehind,
+                            QRImageScanService qrImageScanService, ScanUsageService scanUsageService,
+                            ScanAggregator scanAggregator, ScanMetrics scanMetrics, RevocationService revocationService) {
         this.scanService = scanService;
+        this.qrCodeService = qrCodeService;
+        this.qrGenerationService = qrGenerationService;
+        this.batchQRService = batchQRService;
+        this.historyWriteBehind = historyWriteBehind;
+        this.qrImageScanService = qrImageScanService;
+        this.scanUsageService = scanUsageService;
+        this.scanAggregator = scanAggregator;
+        this.scanMetrics = scanMetrics;
+        this.revocationService = revocationService;
     }
 
     @PostMapping("/generate")
-    public ResponseEntity<byte[]> generateQRCode(@RequestBody QRData qrData, @RequestParam String secret, @RequestParam long expirationMillis, Principal fournisseur) {
-  System.out.println("Utilisateur connecté : " + (fournisseur != null ? fournisseur.getName() : "NULL"));
-try {
-            qrData.setId(UUID.randomUUID());
-            qrData.setFournisseur(fournisseur.getName());
-            qrDataRepository.save(qrData);
-
-            String rawData = qrData.toString();
-            String hashedData = hashData(rawData);
-
-            QRHash qrHash = new QRHash();
-	    qrHash.setId(UUID.randomUUID());
-	    qrHash.setHash(hashedData);
-	    qrHash.setQrDataId(qrData.getId());
-            qrHashRepository.save(qrHash);
-
-            String signedData = signData(hashedData, secret, expirationMillis);
+    public ResponseEntity<byte[]> generateQRCode(@RequestBody QRData qrData, @RequestParam(required = false) String secret, @RequestParam long expirationMillis, Principal fournisseur,
+                                                 @RequestParam(required = false) String format, @RequestParam(defaultValue = "350") int size,
+                                                 @RequestParam(defaultValue = "1") int margin, @RequestParam(defaultValue = "L") String ecc,
+                                                 @RequestParam(defaultValue = "jwt") String tokenFormat, @RequestParam(required = false) Integer maxUses,
+                                                 @RequestParam(defaultValue = "hs256") String alg, @RequestHeader HttpHeaders requestHeaders,
+                                                 @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyHeader) {
+        RenderOptions options;
+        String signingSecret;
+        String idempotencyKey;
+        try {
+            options = renderOptions(format, size, margin, ecc, requestHeaders);
+            signingSecret = signingSecret(alg, secret);
+            idempotencyKey = qrGenerationService.key(fournisseur.getName(), idempotencyHeader, qrData);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (maxUses != null && maxUses < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            QRGenerationService.Generated generated = qrGenerationService.generate(idempotencyKey, qrData, fournisseur.getName(),
+                    signingSecret, expirationMillis, isCompact(tokenFormat), maxUses);
 
-            byte[] qrCodeImage = generateQRCodeImageFromData(signedData);
-System.out.println("Succès de génération \n");
+            // Un rejeu retrouve l'image dans le cache de rendu
+            byte[] qrCodeImage = qrCodeService.generateQRCodeImageFromData(generated.token(), options);
+            generated.writes().join();
+            if (generated.replayed()) {
+                log.debug("QR Code rejoué pour le fournisseur {} (clé d'idempotence)", fournisseur.getName());
+            } else {
+                log.debug("QR Code {} généré pour le fournisseur {}", qrData.getId(), qrData.getFournisseur());
+            }
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.IMAGE_PNG);
+            headers.setContentType(options.format().getMediaType());
+            if (generated.replayed()) {
+                headers.set(IDEMPOTENT_REPLAYED, "true");
+            }
 
             return new ResponseEntity<>(qrCodeImage, headers, HttpStatus.OK);
+        } catch (QRGenerationService.IdempotencyKeyReusedException e) {
+            log.debug("Clé d'idempotence réutilisée par le fournisseur {}", fournisseur.getName());
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
         } catch (Exception e) {
-System.out.println("Echec de génération \n" + e.getMessage());
+            log.warn("Echec de génération pour le fournisseur {}", fournisseur.getName(), e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Retéléchargement de l'image d'un QR Code déjà généré, servie depuis le cache de rendu.
+     */
+    @GetMapping("/image")
+    public ResponseEntity<byte[]> downloadQRCode(@RequestParam String qrCodeData, @RequestParam(required = false) String secret,
+                                                 @RequestParam(required = false) String format, @RequestParam(defaultValue = "350") int size,
+                                                 @RequestParam(defaultValue = "1") int margin, @RequestParam(defaultValue = "L") String ecc,
+                                                 @RequestHeader HttpHeaders requestHeaders) {
+        if (qrCodeService.verifyClaims(qrCodeData, secret) == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        RenderOptions options;
+        try {
+            options = renderOptions(format, size, margin, ecc, requestHeaders);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(options.format().getMediaType());
+            return new ResponseEntity<>(qrCodeService.generateQRCodeImageFromData(qrCodeData, options), headers, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/generate/batch")
+    public ResponseEntity<?> generateQRCodeBatch(@RequestBody List<QRData> qrDataList, @RequestParam(required = false) String secret, @RequestParam long expirationMillis, Principal fournisseur,
+                                                 @RequestParam(defaultValue = "jwt") String tokenFormat, @RequestParam(required = false) Integer maxUses,
+                                                 @RequestParam(defaultValue = "hs256") String alg) {
+        if (qrDataList.isEmpty() || qrDataList.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("Le lot doit contenir entre 1 et " + maxBatchSize + " éléments");
+        }
+        if (maxUses != null && maxUses < 1) {
+            return ResponseEntity.badRequest().body("maxUses doit être supérieur ou égal à 1");
+        }
+        String signingSecret;
+        try {
+            signingSecret = signingSecret(alg, secret);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        String provider = fournisseur.getName();
+        boolean compact = isCompact(tokenFormat);
+        StreamingResponseBody body = out -> batchQRService.generateBatch(qrDataList, provider, signingSecret, expirationMillis, compact, maxUses, out);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("qrcodes.zip").build());
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     @PostMapping("/scan")
-    public ResponseEntity<?> scanQRCode(@RequestParam String qrCodeData, @RequestParam String secret, @RequestBody History history, Principal fournisseur) {
-String decodedData = verifySignature(qrCodeData, secret);
-if (decodedData == null) {
-System.out.println("Invalide \n");
+    public ResponseEntity<?> scanQRCode(@RequestParam String qrCodeData, @RequestParam(required = false) String secret, @RequestBody History history, Principal fournisseur) {
+QRCodeService.Verification verification = qrCodeService.verify(qrCodeData, secret);
+if (verification.status() != QRCodeService.TokenStatus.VALID) {
+    scanMetrics.record(ScanMetrics.Source.TEXT, verification.status() == QRCodeService.TokenStatus.EXPIRED
+            ? ScanMetrics.Outcome.EXPIRED : ScanMetrics.Outcome.INVALID_SIGNATURE);
+    log.debug("Le fournisseur {} a présenté un QR Code {}", fournisseur.getName(), verification.status());
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("QR Code invalide !");
-}        
+}
+Claims claims = verification.claims();
 
 	try {
-QRHash result = scanService.processScan(decodedData);
+QRLookup result = scanService.processScan(claims.getSubject(), claims.getExpiration());
         QRData data = null;
 	    if(result != null){
-            data = qrDataRepository.findById(result.getQrDataId()).get();
+            ScanUsageService.Outcome usage = scanUsageService.consume(result, claims.getExpiration());
+            if (usage == ScanUsageService.Outcome.EXHAUSTED) {
+                scanMetrics.record(ScanMetrics.Source.TEXT, ScanMetrics.Outcome.USED);
+                log.debug("Le fournisseur {} a présenté un QR Code déjà utilisé", fournisseur.getName());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("QR Code déjà utilisé");
+            }
+            if (usage == ScanUsageService.Outcome.CONTENDED) {
+                scanMetrics.record(ScanMetrics.Source.TEXT, ScanMetrics.Outcome.CONTENDED);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Scans simultanés de ce QR Code, réessayez");
+            }
+            data = result.toQRData();
             history.setClientId(data.getClientId());
             history.setChauffeurId(data.getChauffeurId());
             history.setCourseId(data.getCourseId());
             history.setFournisseur(data.getFournisseur());
-            historyRepository.save(history);
-            System.out.println("Le fournisseur " + fournisseur.getName() + " a effectué le scan des données : " + history + "\n");
+            historyWriteBehind.submit(history);
+            scanAggregator.record(history.getFournisseur(), history.getVille(), history.getPays());
+            scanMetrics.record(ScanMetrics.Source.TEXT, ScanMetrics.Outcome.VALID);
+            log.debug("Le fournisseur {} a effectué le scan des données : {}", fournisseur.getName(), history);
 	    }else{
-	    System.out.println("Le fournisseur " + fournisseur.getName() + " a échoué un scan \n"); 
+            scanMetrics.record(ScanMetrics.Source.TEXT, ScanMetrics.Outcome.UNKNOWN_HASH);
+            log.debug("Le fournisseur {} a présenté un QR Code inconnu", fournisseur.getName());
         }
 return ResponseEntity.ok(data);
 } catch (Exception e) {
@@ -106,53 +220,63 @@ return ResponseEntity.ok(data);
         }
     }
 
-    private String hashData(String data) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] encodedHash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : encodedHash) {
-            hexString.append(String.format("%02x", b));
+    /**
+     * Scan à partir d'une ou plusieurs photos de QR Codes (multipart : parties {@code images} et {@code history}).
+     * Renvoie un résultat par image, dans l'ordre d'envoi.
+     */
+    @PostMapping(value = "/scan/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> scanQRCodeImages(@RequestPart("images") List<MultipartFile> images, @RequestParam(required = false) String secret,
+                                              @RequestPart("history") History history, Principal fournisseur) {
+        if (images.isEmpty() || images.size() > maxScanImages) {
+            return ResponseEntity.badRequest().body("Le scan doit contenir entre 1 et " + maxScanImages + " images");
         }
-        return hexString.toString();
+        List<QRImageScanService.ImageScanResult> results = qrImageScanService.scan(images, secret, history);
+        log.debug("Le fournisseur {} a envoyé {} image(s) à scanner", fournisseur.getName(), images.size());
+        return ResponseEntity.ok(results);
     }
 
-    private String signData(String data, String secret, long expirationMillis) {
-        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        Date now = new Date();
-        Date expiration = new Date(now.getTime() + expirationMillis);
-        
-        return Jwts.builder()
-                .setSubject(data)
-                .setIssuedAt(now)
-                .setExpiration(expiration)
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revokeQRCode(@RequestParam String qrCodeData, @RequestParam(required = false) String secret, Principal fournisseur) {
+        Claims claims = qrCodeService.verifyClaims(qrCodeData, secret);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("QR Code invalide !");
+        }
+        QRLookup lookup = scanService.processScan(claims.getSubject());
+        if (lookup == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("QR Code inconnu");
+        }
+        if (!fournisseur.getName().equals(lookup.getFournisseur())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("QR Code d'un autre fournisseur");
+        }
+        // Clé libérée avant la suppression des lignes : une relance ne peut plus les réécrire
+        qrGenerationService.release(lookup.getHash());
+        scanService.revoke(lookup);
+        revocationService.record(lookup.getHash(), RevocationSnapshot.Reason.REVOKED, claims.getExpiration());
+        return ResponseEntity.noContent().build();
     }
 
-    private String verifySignature(String token, String secret) {
-    try {
-        Claims claims = Jwts.parserBuilder()
-            .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
-        return claims.getSubject();
-    } catch (JwtException e) {
-        return null;
+    // Contenu du QR Code : JWT HS256 (défaut) ou token compact Base45
+    private static boolean isCompact(String tokenFormat) {
+        return "compact".equalsIgnoreCase(tokenFormat);
     }
-}
-
-
-    private byte[] generateQRCodeImageFromData(String qrData) throws WriterException, IOException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        Map<EncodeHintType, Object> hintMap = new HashMap<>();
-        hintMap.put(EncodeHintType.MARGIN, 1);
-
-        BitMatrix bitMatrix = qrCodeWriter.encode(qrData, BarcodeFormat.QR_CODE, 350, 350, hintMap);
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            return outputStream.toByteArray();
+    // Secret HS256, ou null pour ES256 (clé active du registre, secret ignoré)
+    private static String signingSecret(String alg, String secret) {
+        if ("es256".equalsIgnoreCase(alg)) {
+            return null;
         }
+        if (!"hs256".equalsIgnoreCase(alg)) {
+            throw new IllegalArgumentException("alg doit valoir hs256 ou es256");
+        }
+        if (secret == null) {
+            throw new IllegalArgumentException("secret obligatoire en hs256");
+        }
+        return secret;
+    }
+
+    // Format (paramètre format ou header Accept), taille, marge et niveau de correction
+    private static RenderOptions renderOptions(String format, int size, int margin, String ecc, HttpHeaders requestHeaders) {
+        QRFormat qrFormat = QRFormat.negotiate(format, requestHeaders.getAccept());
+        return new RenderOptions(qrFormat, size, margin, ErrorCorrectionLevel.valueOf(ecc.trim().toUpperCase()));
     }
 }
@@ -0,0 +1,48 @@
+package com.example.QRAPI.controller;
+
+import com.example.QRAPI.service.ScanAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final ScanAggregator scanAggregator;
+
+    @Value("${qrapi.aggregation.query.max-days:7}")
+    private int maxDays;
+
+    public StatsController(ScanAggregator scanAggregator) {
+        this.scanAggregator = scanAggregator;
+    }
+
+    /**
+     * Scans par minute du fournisseur connecté pour une valeur de {@code dimension} (fournisseur, ville ou pays).
+     * Par fournisseur, seul le fournisseur connecté est consultable ; par ville ou pays, seuls ses propres scans
+     * sont comptés.
+     */
+    @GetMapping("/scans")
+    public ResponseEntity<?> scansPerMinute(@RequestParam String dimension, @RequestParam String value,
+                                            @RequestParam Instant from, @RequestParam Instant to, Principal fournisseur) {
+        ScanAggregator.Dimension scanDimension;
+        try {
+            scanDimension = ScanAggregator.Dimension.valueOf(dimension.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Dimension inconnue : fournisseur, ville ou pays");
+        }
+        if (scanDimension == ScanAggregator.Dimension.FOURNISSEUR && !value.equals(fournisseur.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Statistiques d'un autre fournisseur");
+        }
+        if (from.isAfter(to) || Duration.between(from, to).toDays() >= maxDays) {
+            return ResponseEntity.badRequest().body("Intervalle invalide (au plus " + maxDays + " jours)");
+        }
+        return ResponseEntity.ok(scanAggregator.series(fournisseur.getName(), scanDimension, value, from, to));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.QRAPI.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.cassandra.core.mapping.PrimaryKey;
 import org.springframework.data.cassandra.core.mapping.Table;
 import java.util.UUID;
@@ -19,6 +21,11 @@ public class History {
     private String city;      // anciennement ville
     private String country;   // anciennement pays
 
+    // Instant du scan (timeuuid), clé de clustering de history_by_provider ; absent de la table history
+    @Transient
+    @JsonIgnore
+    private UUID scanned_at;
+
     // Getters et setters (noms des méthodes inchangés)
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
@@ -50,6 +57,11 @@ public class History {
     public String getPays() { return country; }
     public void setPays(String country) { this.country = country; }
 
+    @JsonIgnore
+    public UUID getScannedAt() { return scanned_at; }
+    @JsonIgnore
+    public void setScannedAt(UUID scanned_at) { this.scanned_at = scanned_at; }
+
     @Override
     public String toString() {
         return "{"
@@ -0,0 +1,9 @@
+package com.example.QRAPI.model;
+
+import java.time.Instant;
+
+/**
+ * Scan lu dans history_by_provider : l'historique et l'instant du scan.
+ */
+public record HistoryEntry(Instant scannedAt, History history) {
+}
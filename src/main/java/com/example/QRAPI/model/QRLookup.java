@@ -0,0 +1,81 @@
+package com.example.QRAPI.model;
+
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+import java.util.UUID;
+
+/**
+ * Table de recherche indexée par le hash SHA-256 : un scan ne lit qu'une seule partition
+ * et obtient directement les données de la course (dénormalisées depuis qr_data).
+ */
+@Table("qr_lookup")
+public class QRLookup {
+    @PrimaryKey
+    private String hash;
+
+    private UUID qr_hash_id;
+    private UUID qr_data_id;
+    private Long client_id;
+    private Long driver_id;
+    private Long trip_id;
+    private String location;
+    private String supplier;
+    private String hour;
+    private String date;
+    private String city;
+    private String country;
+    private Integer max_uses; // null = nombre de scans illimité
+
+    public static QRLookup of(QRHash qrHash, QRData qrData) {
+        return of(qrHash, qrData, null);
+    }
+
+    public static QRLookup of(QRHash qrHash, QRData qrData, Integer maxUses) {
+        QRLookup lookup = new QRLookup();
+        lookup.hash = qrHash.getHash();
+        lookup.qr_hash_id = qrHash.getId();
+        lookup.qr_data_id = qrData.getId();
+        lookup.client_id = qrData.getClientId();
+        lookup.driver_id = qrData.getChauffeurId();
+        lookup.trip_id = qrData.getCourseId();
+        lookup.location = qrData.getLieu();
+        lookup.supplier = qrData.getFournisseur();
+        lookup.hour = qrData.getHeure();
+        lookup.date = qrData.getDate();
+        lookup.city = qrData.getVille();
+        lookup.country = qrData.getPays();
+        lookup.max_uses = maxUses;
+        return lookup;
+    }
+
+    public QRData toQRData() {
+        QRData qrData = new QRData();
+        qrData.setId(qr_data_id);
+        qrData.setClientId(client_id);
+        qrData.setChauffeurId(driver_id);
+        qrData.setCourseId(trip_id);
+        qrData.setLieu(location);
+        qrData.setFournisseur(supplier);
+        qrData.setHeure(hour);
+        qrData.setDate(date);
+        qrData.setVille(city);
+        qrData.setPays(country);
+        return qrData;
+    }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public UUID getQrHashId() { return qr_hash_id; }
+    public void setQrHashId(UUID qr_hash_id) { this.qr_hash_id = qr_hash_id; }
+
+    public UUID getQrDataId() { return qr_data_id; }
+    public void setQrDataId(UUID qr_data_id) { this.qr_data_id = qr_data_id; }
+
+    public Long getClientId() { return client_id; }
+    public Long getChauffeurId() { return driver_id; }
+    public Long getCourseId() { return trip_id; }
+    public String getFournisseur() { return supplier; }
+
+    public Integer getMaxUses() { return max_uses; }
+}
@@ -0,0 +1,74 @@
+package com.example.QRAPI.repository;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Accès non bloquant aux tables qr_data, qr_hash, qr_lookup et history. Permet de recouvrir les
+ * écritures avec la signature, l'encodage de l'image ou la construction de la réponse.
+ * Implémentations : {@link CassandraAsyncQRRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface AsyncQRRepository {
+
+    /** Timer {@code cassandra.query} d'une opération (table.requête). */
+    static Timer queryTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("cassandra.query")
+                .tag("operation", operation)
+                .description("Durée des requêtes Cassandra, réponse comprise")
+                .register(meterRegistry);
+    }
+
+    CompletableFuture<QRData> saveData(QRData qrData);
+
+    CompletableFuture<QRHash> saveHash(QRHash qrHash);
+
+    CompletableFuture<QRLookup> saveLookup(QRLookup lookup);
+
+    /**
+     * Écrit la ligne qr_lookup seulement si le hash n'y est pas encore (INSERT ... IF NOT EXISTS) :
+     * une ligne existante, avec son {@code max_uses}, n'est jamais écrasée par une recopie.
+     * @param ttl Durée de vie de la ligne, null pour une ligne sans expiration.
+     * @return true si la ligne a été écrite.
+     */
+    CompletableFuture<Boolean> saveLookupIfAbsent(QRLookup lookup, Duration ttl);
+
+    /** Historique : écrit hors du chemin de réponse (écriture différée). */
+    CompletableFuture<History> saveHistory(History history);
+
+    CompletableFuture<QRLookup> findLookup(String hash);
+
+    /**
+     * Écrit les trois lignes d'un QR Code généré (qr_data, qr_hash, qr_lookup).
+     */
+    default CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash) {
+        return saveGenerated(qrData, qrHash, null);
+    }
+
+    /**
+     * @param maxUses Nombre de scans autorisés, null pour illimité.
+     */
+    default CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses) {
+        return saveGenerated(qrData, qrHash, maxUses, null);
+    }
+
+    /**
+     * @param ttl Durée de vie des trois lignes, null pour des lignes sans expiration.
+     */
+    default CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses, Duration ttl) {
+        return saveGenerated(qrData, qrHash, maxUses, ttl, null);
+    }
+
+    /**
+     * @param writtenAt Horodatage des écritures, null pour l'instant présent. Une suppression postérieure
+     *                  (révocation) l'emporte sur des lignes réécrites plus tard avec cet horodatage.
+     */
+    CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses, Duration ttl, Instant writtenAt);
+}
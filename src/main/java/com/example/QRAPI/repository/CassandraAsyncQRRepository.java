@@ -0,0 +1,115 @@
+package com.example.QRAPI.repository;
+
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.QRAPI.repository.AsyncQRRepository.queryTimer;
+
+/**
+ * {@link AsyncQRRepository} sur Cassandra (CqlSession.executeAsync via AsyncCassandraTemplate).
+ * Chaque requête est chronométrée jusqu'à sa réponse ({@code cassandra.query}, tag {@code operation}).
+ */
+@Repository
+@Profile("!memory")
+public class CassandraAsyncQRRepository implements AsyncQRRepository {
+
+    // Historique : écrit hors du chemin de réponse (écriture différée)
+    private static final InsertOptions BACKGROUND_INSERT = InsertOptions.builder()
+            .executionProfile(CassandraConfig.BACKGROUND_PROFILE)
+            .build();
+
+    private final AsyncCassandraTemplate asyncCassandraTemplate;
+    private final Timer insertDataTimer;
+    private final Timer insertHashTimer;
+    private final Timer insertLookupTimer;
+    private final Timer insertHistoryTimer;
+    private final Timer selectLookupTimer;
+
+    public CassandraAsyncQRRepository(AsyncCassandraTemplate asyncCassandraTemplate, MeterRegistry meterRegistry) {
+        this.asyncCassandraTemplate = asyncCassandraTemplate;
+        this.insertDataTimer = queryTimer(meterRegistry, "qr_data.insert");
+        this.insertHashTimer = queryTimer(meterRegistry, "qr_hash.insert");
+        this.insertLookupTimer = queryTimer(meterRegistry, "qr_lookup.insert");
+        this.insertHistoryTimer = queryTimer(meterRegistry, "history.insert");
+        this.selectLookupTimer = queryTimer(meterRegistry, "qr_lookup.select");
+    }
+
+    @Override
+    public CompletableFuture<QRData> saveData(QRData qrData) {
+        return timed(insertDataTimer, asyncCassandraTemplate.insert(qrData));
+    }
+
+    private <T> CompletableFuture<T> insert(Timer timer, T entity, InsertOptions options) {
+        return timed(timer, asyncCassandraTemplate.insert(entity, options).thenApply(result -> result.getEntity()));
+    }
+
+    @Override
+    public CompletableFuture<QRHash> saveHash(QRHash qrHash) {
+        return timed(insertHashTimer, asyncCassandraTemplate.insert(qrHash));
+    }
+
+    @Override
+    public CompletableFuture<QRLookup> saveLookup(QRLookup lookup) {
+        return timed(insertLookupTimer, asyncCassandraTemplate.insert(lookup));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveLookupIfAbsent(QRLookup lookup, Duration ttl) {
+        // Recopie dans qr_lookup : ne remplace jamais une ligne déjà écrite
+        InsertOptions.InsertOptionsBuilder builder = InsertOptions.builder().withIfNotExists();
+        if (ttl != null) {
+            builder.ttl(ttl);
+        }
+        return timed(insertLookupTimer, asyncCassandraTemplate.insert(lookup, builder.build()).thenApply(result -> result.wasApplied()));
+    }
+
+    @Override
+    public CompletableFuture<History> saveHistory(History history) {
+        return timed(insertHistoryTimer, asyncCassandraTemplate.insert(history, BACKGROUND_INSERT).thenApply(result -> result.getEntity()));
+    }
+
+    @Override
+    public CompletableFuture<QRLookup> findLookup(String hash) {
+        return timed(selectLookupTimer, asyncCassandraTemplate.selectOneById(hash, QRLookup.class));
+    }
+
+    private static <T> CompletableFuture<T> timed(Timer timer, CompletableFuture<T> query) {
+        long start = System.nanoTime();
+        return query.whenComplete((result, error) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Écrit en parallèle les trois lignes (INSERT ... USING TTL si {@code ttl} est renseigné).
+     * Elles sont dans des partitions différentes : des requêtes concurrentes coûtent moins
+     * qu'un batch loggé.
+     */
+    @Override
+    public CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses, Duration ttl, Instant writtenAt) {
+        InsertOptions.InsertOptionsBuilder builder = InsertOptions.builder();
+        if (ttl != null) {
+            builder.ttl(ttl);
+        }
+        if (writtenAt != null) {
+            builder.timestamp(writtenAt);
+        }
+        InsertOptions options = builder.build();
+        return CompletableFuture.allOf(
+                insert(insertDataTimer, qrData, options),
+                insert(insertHashTimer, qrHash, options),
+                insert(insertLookupTimer, QRLookup.of(qrHash, qrData, maxUses), options));
+    }
+}
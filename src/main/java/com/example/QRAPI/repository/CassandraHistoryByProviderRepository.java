@@ -0,0 +1,110 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchType;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PagingState;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.HistoryEntry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link HistoryByProviderRepository} sur Cassandra. Les lectures sont paginées par le driver ; l'état
+ * de pagination renvoyé au client est celui du driver.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraHistoryByProviderRepository implements HistoryByProviderRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insert;
+    private final PreparedStatement selectRange;
+
+    public CassandraHistoryByProviderRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS history_by_provider ("
+                + "supplier text, day date, scanned_at timeuuid, id uuid, client_id bigint, driver_id bigint, "
+                + "trip_id bigint, location text, hour text, date text, city text, country text, "
+                + "PRIMARY KEY ((supplier, day), scanned_at)) WITH CLUSTERING ORDER BY (scanned_at DESC)");
+        this.insert = session.prepare("INSERT INTO history_by_provider (supplier, day, scanned_at, id, client_id, "
+                + "driver_id, trip_id, location, hour, date, city, country) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        this.selectRange = session.prepare("SELECT * FROM history_by_provider WHERE supplier = ? AND day = ? "
+                + "AND scanned_at >= minTimeuuid(?) AND scanned_at <= maxTimeuuid(?)");
+    }
+
+    /**
+     * Écrit des scans d'une même partition (même fournisseur, même jour) : un batch non loggé
+     * sur une seule partition est appliqué en une seule mutation par le coordinateur.
+     */
+    @Override
+    public CompletableFuture<Void> savePartition(List<History> rows) {
+        if (rows.size() == 1) {
+            return session.executeAsync(bind(rows.get(0)).setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE))
+                    .toCompletableFuture().thenApply(rs -> null);
+        }
+        List<BatchableStatement<?>> inserts = new ArrayList<>(rows.size());
+        for (History history : rows) {
+            inserts.add(bind(history));
+        }
+        return session.executeAsync(BatchStatement.newInstance(BatchType.UNLOGGED, inserts)
+                        .setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE))
+                .toCompletableFuture().thenApply(rs -> null);
+    }
+
+    private BoundStatement bind(History history) {
+        UUID scannedAt = history.getScannedAt();
+        return insert.bind(history.getFournisseur(), HistoryByProviderRepository.day(scannedAt), scannedAt, history.getId(),
+                history.getClientId(), history.getChauffeurId(), history.getCourseId(), history.getLieu(),
+                history.getHeure(), history.getDate(), history.getVille(), history.getPays());
+    }
+
+    @Override
+    public Page findPage(String supplier, LocalDate day, Instant from, Instant to, int pageSize, String pagingState) {
+        BoundStatement statement = selectRange.bind(supplier, day, from, to).setPageSize(pageSize).setIdempotent(true);
+        if (pagingState != null) {
+            statement = statement.setPagingState(PagingState.fromString(pagingState), session);
+        }
+        ResultSet resultSet = session.execute(statement);
+
+        // Uniquement la page reçue : itérer au-delà déclencherait la lecture de la page suivante
+        int available = resultSet.getAvailableWithoutFetching();
+        List<HistoryEntry> items = new ArrayList<>(available);
+        for (int i = 0; i < available; i++) {
+            items.add(entry(resultSet.one()));
+        }
+        PagingState next = resultSet.getExecutionInfo().getSafePagingState();
+        return new Page(items, next != null ? next.toString() : null);
+    }
+
+    private static HistoryEntry entry(Row row) {
+        UUID scannedAt = row.getUuid("scanned_at");
+        History history = new History();
+        history.setId(row.getUuid("id"));
+        history.setScannedAt(scannedAt);
+        history.setClientId(row.get("client_id", Long.class));
+        history.setChauffeurId(row.get("driver_id", Long.class));
+        history.setCourseId(row.get("trip_id", Long.class));
+        history.setLieu(row.getString("location"));
+        history.setFournisseur(row.getString("supplier"));
+        history.setHeure(row.getString("hour"));
+        history.setDate(row.getString("date"));
+        history.setVille(row.getString("city"));
+        history.setPays(row.getString("country"));
+        return new HistoryEntry(Instant.ofEpochMilli(Uuids.unixTimestamp(scannedAt)), history);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.model.History;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HistoryExportRepository} sur Cassandra : lecture d'une partition de history_by_provider par
+ * jour, profil export. Seules les lignes du fournisseur sont lues.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraHistoryExportRepository implements HistoryExportRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement selectDay;
+
+    // Table créée par CassandraHistoryByProviderRepository
+    public CassandraHistoryExportRepository(CqlSession session, HistoryByProviderRepository historyByProviderRepository) {
+        this.session = session;
+        this.selectDay = session.prepare("SELECT scanned_at, id, client_id, driver_id, trip_id, location, supplier, hour, "
+                + "date, city, country FROM history_by_provider WHERE supplier = ? AND day = ?");
+    }
+
+    @Override
+    public void scan(String supplier, LocalDate day, int pageSize, PageConsumer consumer) throws InterruptedException {
+        ResultSet resultSet = session.execute(selectDay.bind(supplier, day).setPageSize(pageSize)
+                .setExecutionProfileName(CassandraConfig.EXPORT_PROFILE)
+                .setIdempotent(true));
+        // L'itération ne lit la page suivante (de façon synchrone) qu'une fois la page courante consommée
+        List<History> page = new ArrayList<>(pageSize);
+        for (Row row : resultSet) {
+            page.add(history(row));
+            if (resultSet.getAvailableWithoutFetching() == 0) {
+                if (!consumer.accept(page)) {
+                    return;
+                }
+                page = new ArrayList<>(pageSize);
+            }
+        }
+        if (!page.isEmpty()) {
+            consumer.accept(page);
+        }
+    }
+
+    private static History history(Row row) {
+        History history = new History();
+        history.setId(row.getUuid("id"));
+        history.setScannedAt(row.getUuid("scanned_at"));
+        history.setClientId(row.get("client_id", Long.class));
+        history.setChauffeurId(row.get("driver_id", Long.class));
+        history.setCourseId(row.get("trip_id", Long.class));
+        history.setLieu(row.getString("location"));
+        history.setFournisseur(row.getString("supplier"));
+        history.setHeure(row.getString("hour"));
+        history.setDate(row.getString("date"));
+        history.setVille(row.getString("city"));
+        history.setPays(row.getString("country"));
+        return history;
+    }
+}
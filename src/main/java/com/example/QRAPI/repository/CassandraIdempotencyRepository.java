@@ -0,0 +1,67 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link IdempotencyRepository} sur Cassandra : réservation par LWT ({@code INSERT ... IF NOT EXISTS}),
+ * la génération déjà enregistrée est relue dans la réponse du LWT. Chaque ligne porte un TTL.
+ * qr_idempotency_by_hash retrouve la clé d'un code à révoquer ; elle est écrite avant le LWT, une ligne
+ * d'une réservation perdue est sans effet (la libération vérifie le hash enregistré sous la clé).
+ */
+@Repository
+@Profile("!memory")
+public class CassandraIdempotencyRepository implements IdempotencyRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insertIfAbsent;
+    private final PreparedStatement insertByHash;
+    private final PreparedStatement selectByHash;
+    private final PreparedStatement deleteIfHash;
+    private final PreparedStatement deleteByHash;
+
+    public CassandraIdempotencyRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS qr_idempotency (key text PRIMARY KEY, token text, hash text, "
+                + "qr_data_id uuid, qr_hash_id uuid, fingerprint text, created_at timestamp)");
+        session.execute("CREATE TABLE IF NOT EXISTS qr_idempotency_by_hash (hash text PRIMARY KEY, key text)");
+        this.insertIfAbsent = session.prepare("INSERT INTO qr_idempotency (key, token, hash, qr_data_id, qr_hash_id, "
+                + "fingerprint, created_at) VALUES (?, ?, ?, ?, ?, ?, ?) IF NOT EXISTS USING TTL ?");
+        this.insertByHash = session.prepare("INSERT INTO qr_idempotency_by_hash (hash, key) VALUES (?, ?) USING TTL ?");
+        this.selectByHash = session.prepare("SELECT key FROM qr_idempotency_by_hash WHERE hash = ?");
+        this.deleteIfHash = session.prepare("DELETE FROM qr_idempotency WHERE key = ? IF hash = ?");
+        this.deleteByHash = session.prepare("DELETE FROM qr_idempotency_by_hash WHERE hash = ?");
+    }
+
+    @Override
+    public ClaimResult claim(String key, Generation generation, int ttlSeconds) {
+        session.execute(insertByHash.bind(generation.hash(), key, ttlSeconds));
+        ResultSet resultSet = session.execute(insertIfAbsent.bind(key, generation.token(), generation.hash(),
+                generation.qrDataId(), generation.qrHashId(), generation.fingerprint(), generation.createdAt(), ttlSeconds));
+        if (resultSet.wasApplied()) {
+            return new ClaimResult(true, generation);
+        }
+        Row row = resultSet.one();
+        return new ClaimResult(false, new Generation(row.getString("token"), row.getString("hash"),
+                row.getUuid("qr_data_id"), row.getUuid("qr_hash_id"), row.getString("fingerprint"), row.getInstant("created_at")));
+    }
+
+    @Override
+    public void release(String key, String hash) {
+        // Conditionnelle : une clé déjà réservée à nouveau par une autre génération reste en place
+        session.execute(deleteIfHash.bind(key, hash));
+        session.execute(deleteByHash.bind(hash));
+    }
+
+    @Override
+    public void releaseByHash(String hash) {
+        Row row = session.execute(selectByHash.bind(hash)).one();
+        if (row != null) {
+            release(row.getString("key"), hash);
+        }
+    }
+}
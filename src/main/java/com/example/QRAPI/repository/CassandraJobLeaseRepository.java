@@ -0,0 +1,32 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link JobLeaseRepository} sur Cassandra : {@code INSERT ... IF NOT EXISTS USING TTL}, une ligne par
+ * tâche. Le LWT garantit qu'un seul nœud obtient le bail, même s'ils le demandent au même instant.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraJobLeaseRepository implements JobLeaseRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insert;
+
+    public CassandraJobLeaseRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS job_leases (job text PRIMARY KEY, owner text, acquired_at timestamp)");
+        this.insert = session.prepare("INSERT INTO job_leases (job, owner, acquired_at) VALUES (?, ?, ?) IF NOT EXISTS USING TTL ?");
+    }
+
+    @Override
+    public boolean tryAcquire(String job, String owner, Duration ttl) {
+        return session.execute(insert.bind(job, owner, Instant.now(), (int) Math.max(1, ttl.toSeconds()))).wasApplied();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * {@link OfflineScanRepository} sur Cassandra : réservation par LWT ({@code INSERT ... IF NOT EXISTS}),
+ * ligne avec TTL.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraOfflineScanRepository implements OfflineScanRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insertIfAbsent;
+    private final PreparedStatement delete;
+
+    public CassandraOfflineScanRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS offline_scans (id uuid PRIMARY KEY, received_at timestamp)");
+        this.insertIfAbsent = session.prepare("INSERT INTO offline_scans (id, received_at) VALUES (?, toTimestamp(now())) "
+                + "IF NOT EXISTS USING TTL ?");
+        this.delete = session.prepare("DELETE FROM offline_scans WHERE id = ?");
+    }
+
+    @Override
+    public boolean claim(UUID historyId, int ttlSeconds) {
+        return session.execute(insertIfAbsent.bind(historyId, ttlSeconds)).wasApplied();
+    }
+
+    @Override
+    public void release(UUID historyId) {
+        session.execute(delete.bind(historyId));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ProviderTokenRevocationRepository} sur Cassandra : une ligne par token révoqué, sans TTL.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraProviderTokenRevocationRepository implements ProviderTokenRevocationRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insert;
+    private final PreparedStatement selectAll;
+
+    public CassandraProviderTokenRevocationRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS provider_token_revocations (digest text PRIMARY KEY, revoked_at timestamp)");
+        this.insert = session.prepare("INSERT INTO provider_token_revocations (digest, revoked_at) VALUES (?, ?)");
+        this.selectAll = session.prepare("SELECT digest FROM provider_token_revocations");
+    }
+
+    @Override
+    public void save(String digest) {
+        session.execute(insert.bind(digest, Instant.now()).setIdempotent(true));
+    }
+
+    @Override
+    public Set<String> findAll() {
+        Set<String> digests = new HashSet<>();
+        for (Row row : session.execute(selectAll.bind().setIdempotent(true))) {
+            digests.add(row.getString("digest"));
+        }
+        return digests;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link QRUsageRepository} sur Cassandra, par transactions légères (LWT).
+ * La ligne est créée au premier scan ({@code INSERT ... IF NOT EXISTS}), puis incrémentée par
+ * compare-and-set ({@code UPDATE ... IF uses = ?}). Les deux écritures portent le TTL de la ligne.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraQRUsageRepository implements QRUsageRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement insertFirstUse;
+    private final PreparedStatement compareAndSetUses;
+
+    public CassandraQRUsageRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS qr_usage (hash text PRIMARY KEY, uses int)");
+        this.insertFirstUse = session.prepare("INSERT INTO qr_usage (hash, uses) VALUES (?, 1) IF NOT EXISTS USING TTL ?");
+        this.compareAndSetUses = session.prepare("UPDATE qr_usage USING TTL ? SET uses = ? WHERE hash = ? IF uses = ?");
+    }
+
+    @Override
+    public CasResult recordFirstUse(String hash, int ttlSeconds) {
+        return casResult(session.execute(insertFirstUse.bind(hash, ttlSeconds)));
+    }
+
+    @Override
+    public CasResult recordUse(String hash, int expected, int ttlSeconds) {
+        return casResult(session.execute(compareAndSetUses.bind(ttlSeconds, expected + 1, hash, expected)));
+    }
+
+    private static CasResult casResult(ResultSet resultSet) {
+        if (resultSet.wasApplied()) {
+            return new CasResult(true, 0);
+        }
+        Row row = resultSet.one();
+        return new CasResult(false, row != null ? row.getInt("uses") : 0);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * {@link RevocationRepository} sur Cassandra. Partition = (heure UTC, bucket) : les entrées récentes se
+ * relisent en quelques tranches, et les codes à usage unique épuisés en continu ne chargent pas une
+ * seule partition. Chaque ligne porte un TTL jusqu'à l'expiration du token.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraRevocationRepository implements RevocationRepository {
+
+    public static final int BUCKETS = 4;
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    private final CqlSession session;
+    private final PreparedStatement insert;
+    private final PreparedStatement selectSince;
+    private final PreparedStatement selectRange;
+    private final PreparedStatement selectTail;
+    private final PreparedStatement selectAll;
+
+    public CassandraRevocationRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS qr_revocations (hour timestamp, bucket tinyint, at timeuuid, "
+                + "hash text, reason text, expires_at timestamp, PRIMARY KEY ((hour, bucket), at))");
+        this.insert = session.prepare("INSERT INTO qr_revocations (hour, bucket, at, hash, reason, expires_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?) USING TTL ?");
+        String columns = "SELECT at, hash, reason, expires_at FROM qr_revocations";
+        this.selectSince = session.prepare(columns + " WHERE hour = ? AND bucket = ? AND at > ?");
+        this.selectRange = session.prepare(columns + " WHERE token(hour, bucket) > ? AND token(hour, bucket) <= ?");
+        this.selectTail = session.prepare(columns + " WHERE token(hour, bucket) > ?");
+        this.selectAll = session.prepare(columns);
+    }
+
+    @Override
+    public CompletableFuture<Void> save(String hash, String reason, Instant expiresAt) {
+        UUID at = Uuids.timeBased();
+        long nowMillis = Uuids.unixTimestamp(at);
+        int ttl = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (expiresAt.toEpochMilli() - nowMillis + 999) / 1000));
+        BoundStatement statement = insert.bind(hour(nowMillis), bucket(hash), at, hash, reason, expiresAt, ttl)
+                .setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE)
+                .setIdempotent(true);
+        return session.executeAsync(statement).toCompletableFuture().thenApply(rs -> null);
+    }
+
+    /** Par heure puis par bucket. */
+    @Override
+    public List<Revocation> findSince(long sinceMillis) {
+        List<Revocation> revocations = new ArrayList<>();
+        UUID since = Uuids.endOf(sinceMillis);
+        long now = System.currentTimeMillis();
+        for (long hour = sinceMillis - Math.floorMod(sinceMillis, HOUR_MILLIS); hour <= now; hour += HOUR_MILLIS) {
+            for (byte bucket = 0; bucket < BUCKETS; bucket++) {
+                for (Row row : session.execute(selectSince.bind(Instant.ofEpochMilli(hour), bucket, since).setIdempotent(true))) {
+                    revocations.add(revocation(row));
+                }
+            }
+        }
+        return revocations;
+    }
+
+    /** Voir {@link TokenRing#split}. */
+    @Override
+    public List<ScanRange> splitRing(int splits) {
+        return TokenRing.split(session, splits);
+    }
+
+    /** Parcours de la plage de tokens, profil export. */
+    @Override
+    public void scan(ScanRange range, Consumer<Revocation> consumer) {
+        BoundStatement statement;
+        if (range.start() == null) {
+            statement = selectAll.bind();
+        } else if (range.end() == null) {
+            statement = selectTail.bind().setToken(0, range.start());
+        } else {
+            statement = selectRange.bind().setToken(0, range.start()).setToken(1, range.end());
+        }
+        for (Row row : session.execute(statement.setExecutionProfileName(CassandraConfig.EXPORT_PROFILE).setIdempotent(true))) {
+            consumer.accept(revocation(row));
+        }
+    }
+
+    private static Revocation revocation(Row row) {
+        return new Revocation(row.getUuid("at"), row.getString("hash"), row.getString("reason"), row.getInstant("expires_at"));
+    }
+
+    private static Instant hour(long millis) {
+        return Instant.ofEpochMilli(millis - Math.floorMod(millis, HOUR_MILLIS));
+    }
+
+    private static byte bucket(String hash) {
+        return (byte) Math.floorMod(hash.hashCode(), BUCKETS);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.example.QRAPI.CassandraConfig;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ScanCountRepository} sur Cassandra (colonnes counter).
+ * Partition = (fournisseur, dimension, valeur, jour UTC), une ligne par minute : la série d'une journée se lit
+ * en une seule tranche. Les incréments de plusieurs nœuds s'additionnent côté Cassandra.
+ */
+@Repository
+@Profile("!memory")
+public class CassandraScanCountRepository implements ScanCountRepository {
+
+    private final CqlSession session;
+    private final PreparedStatement increment;
+    private final PreparedStatement selectRange;
+
+    public CassandraScanCountRepository(CqlSession session) {
+        this.session = session;
+        session.execute("CREATE TABLE IF NOT EXISTS scan_counts (supplier text, dimension text, value text, day date, "
+                + "minute timestamp, scans counter, PRIMARY KEY ((supplier, dimension, value, day), minute))");
+        this.increment = session.prepare("UPDATE scan_counts SET scans = scans + ? "
+                + "WHERE supplier = ? AND dimension = ? AND value = ? AND day = ? AND minute = ?");
+        this.selectRange = session.prepare("SELECT minute, scans FROM scan_counts "
+                + "WHERE supplier = ? AND dimension = ? AND value = ? AND day = ? AND minute >= ? AND minute <= ?");
+    }
+
+    @Override
+    public CompletableFuture<Void> increment(String supplier, String dimension, String value, Instant minute, long delta) {
+        LocalDate day = LocalDate.ofInstant(minute, ZoneOffset.UTC);
+        return session.executeAsync(increment.bind(delta, supplier, dimension, value, day, minute)
+                        .setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE))
+                .toCompletableFuture().thenApply(rs -> null);
+    }
+
+    @Override
+    public List<MinuteCount> find(String supplier, String dimension, String value, LocalDate day, Instant from, Instant to) {
+        List<MinuteCount> counts = new ArrayList<>();
+        for (Row row : session.execute(selectRange.bind(supplier, dimension, value, day, from, to).setIdempotent(true))) {
+            counts.add(new MinuteCount(row.getInstant("minute"), row.getLong("scans")));
+        }
+        return counts;
+    }
+}
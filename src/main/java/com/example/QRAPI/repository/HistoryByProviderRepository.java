@@ -0,0 +1,42 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.HistoryEntry;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Historique des scans par fournisseur et par jour (table history_by_provider).
+ * Partition = (fournisseur, jour UTC), lignes triées par instant de scan (timeuuid) décroissant :
+ * « les scans du fournisseur X entre deux instants » se lit partition par partition, sans parcours
+ * de table. Les lectures sont paginées ; l'état de pagination est renvoyé au client.
+ * Implémentations : {@link CassandraHistoryByProviderRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface HistoryByProviderRepository {
+
+    /** Jour (UTC) de la partition d'un scan. */
+    static LocalDate day(UUID scannedAt) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(Uuids.unixTimestamp(scannedAt)), ZoneOffset.UTC);
+    }
+
+    /** Écrit des scans d'une même partition (même fournisseur, même jour). */
+    CompletableFuture<Void> savePartition(List<History> rows);
+
+    /**
+     * Lit au plus {@code pageSize} scans d'une partition entre {@code from} et {@code to}, du plus récent
+     * au plus ancien.
+     * @param pagingState État renvoyé par la page précédente de la même requête, ou null.
+     * @return La page et l'état permettant de lire la suite (null si la partition est épuisée).
+     * @throws IllegalArgumentException si {@code pagingState} a été obtenu pour une autre requête.
+     */
+    Page findPage(String supplier, LocalDate day, Instant from, Instant to, int pageSize, String pagingState);
+
+    record Page(List<HistoryEntry> items, String pagingState) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.QRAPI.repository;
+
+import com.example.QRAPI.model.History;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lecture de l'historique d'un fournisseur pour l'export, dans history_by_provider : une partition
+ * (fournisseur, jour) par jour exporté. Chaque partition se lit indépendamment, page par page, et les
+ * jours peuvent donc être parcourus en parallèle ; aucune lecture ne sort des partitions du fournisseur.
+ * Implémentations : {@link CassandraHistoryExportRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface HistoryExportRepository {
+
+    /** Reçoit chaque page lue ; renvoie false pour arrêter le parcours. */
+    @FunctionalInterface
+    interface PageConsumer {
+        boolean accept(List<History> page) throws InterruptedException;
+    }
+
+    /**
+     * Lit les scans du fournisseur pour le jour {@code day} (UTC), {@code pageSize} par {@code pageSize}.
+     * La page suivante n'est demandée qu'après le retour de {@code consumer} : un consommateur lent
+     * ralentit la lecture.
+     */
+    void scan(String supplier, LocalDate day, int pageSize, PageConsumer consumer) throws InterruptedException;
+}
@@ -0,0 +1,38 @@
+package com.example.QRAPI.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Clés d'idempotence de la génération (table qr_idempotency) : la première requête d'une clé la
+ * réserve avec le token qu'elle a signé et les identifiants des lignes qu'elle va écrire ; les
+ * suivantes, sur n'importe quel nœud, reçoivent ce résultat.
+ * Chaque clé expire après {@code ttlSeconds} : au-delà, la même clé produit un nouveau QR Code. La
+ * révocation d'un code libère sa clé ({@link #releaseByHash}) : la relance suivante en génère un nouveau.
+ * Implémentations : {@link CassandraIdempotencyRepository} (LWT), et en mémoire avec le profil {@code memory}.
+ */
+public interface IdempotencyRepository {
+
+    /**
+     * Résultat d'une génération : token signé, hash et identifiants des lignes qr_data / qr_hash.
+     * @param fingerprint Empreinte de la requête qui a réservé la clé, null pour une clé réservée avant son ajout.
+     * @param createdAt   Instant de la réservation, null pour une clé réservée avant son ajout.
+     */
+    record Generation(String token, String hash, UUID qrDataId, UUID qrHashId, String fingerprint, Instant createdAt) {
+    }
+
+    record ClaimResult(boolean applied, Generation stored) {
+    }
+
+    /**
+     * Réserve la clé pour {@code generation}.
+     * @return Le résultat ; s'il n'est pas appliqué, {@code stored} est la génération déjà enregistrée.
+     */
+    ClaimResult claim(String key, Generation generation, int ttlSeconds);
+
+    /** Libère la clé si elle est toujours réservée pour {@code hash}. */
+    void release(String key, String hash);
+
+    /** Libère la clé réservée pour le code {@code hash}, s'il y en a une. */
+    void releaseByHash(String hash);
+}
@@ -0,0 +1,15 @@
+package com.example.QRAPI.repository;
+
+import java.time.Duration;
+
+/**
+ * Baux des tâches planifiées à exécuter sur un seul nœud (table job_leases). Tous les nœuds déclenchent
+ * la tâche ; seul celui qui obtient le bail l'exécute, les autres passent leur tour. Le bail expire de
+ * lui-même après {@code ttl} : un nœud arrêté pendant la tâche ne la bloque pas au-delà.
+ * Implémentations : {@link CassandraJobLeaseRepository} (LWT), et en mémoire avec le profil {@code memory}.
+ */
+public interface JobLeaseRepository {
+
+    /** Prend le bail {@code job} pour {@code owner} s'il est libre ; false s'il est déjà tenu. */
+    boolean tryAcquire(String job, String owner, Duration ttl);
+}
@@ -0,0 +1,22 @@
+package com.example.QRAPI.repository;
+
+import java.util.UUID;
+
+/**
+ * Scans hors ligne déjà reçus (table offline_scans), par identifiant d'historique fourni par le lecteur :
+ * un lot renvoyé après une coupure ne consomme pas une deuxième fois les codes et n'est pas recompté.
+ * La réservation est un compare-and-set : deux nœuds qui reçoivent le même lot n'acceptent chaque scan
+ * qu'une fois. Chaque ligne expire après {@code ttlSeconds} (0 : sans expiration).
+ * Implémentations : {@link CassandraOfflineScanRepository} (LWT), et en mémoire avec le profil {@code memory}.
+ */
+public interface OfflineScanRepository {
+
+    /**
+     * Réserve l'identifiant du scan.
+     * @return true à la première réception, false si le scan a déjà été reçu.
+     */
+    boolean claim(UUID historyId, int ttlSeconds);
+
+    /** Libère la réservation d'un scan qui n'a pas pu être traité : le lecteur pourra le renvoyer. */
+    void release(UUID historyId);
+}
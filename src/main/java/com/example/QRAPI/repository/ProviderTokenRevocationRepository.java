@@ -0,0 +1,18 @@
+package com.example.QRAPI.repository;
+
+import java.util.Set;
+
+/**
+ * Tokens fournisseurs révoqués (table provider_token_revocations), identifiés par le SHA-256 du token.
+ * Les tokens de /api/reserve n'expirent pas : les lignes sont permanentes. La table ne contient que les
+ * tokens compromis et reste assez petite pour être relue en entier.
+ * Implémentations : {@link CassandraProviderTokenRevocationRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface ProviderTokenRevocationRepository {
+
+    /** Enregistre la révocation ; rend la main une fois l'écriture acquittée. */
+    void save(String digest);
+
+    /** Empreintes de tous les tokens révoqués. */
+    Set<String> findAll();
+}
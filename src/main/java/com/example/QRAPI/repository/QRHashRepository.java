@@ -1,10 +1,21 @@
 package com.example.QRAPI.repository;
 
+import org.springframework.data.cassandra.core.cql.QueryOptions;
 import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
 import java.util.UUID;
 import com.example.QRAPI.model.*;
 import java.util.Optional;
 
 public interface QRHashRepository extends CassandraRepository<QRHash, UUID> {
 Optional<QRHash> findByHash(String hash);
+
+Optional<QRHash> findByHash(String hash, QueryOptions options);
+
+/**
+ * Durée de vie restante de la ligne en secondes (toutes ses colonnes sont écrites par le même INSERT),
+ * null si elle n'expire pas ou n'existe plus.
+ */
+@Query("SELECT TTL(qr_data_id) FROM qr_hash WHERE id = ?0")
+Integer findRemainingTtl(UUID id);
 }
@@ -0,0 +1,13 @@
+package com.example.QRAPI.repository;
+
+import org.springframework.data.cassandra.core.cql.QueryOptions;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import com.example.QRAPI.model.*;
+
+import java.util.Optional;
+
+public interface QRLookupRepository extends CassandraRepository<QRLookup, String> {
+
+    /** Comme findById, avec options par requête (profil d'exécution, idempotence). */
+    Optional<QRLookup> findByHash(String hash, QueryOptions options);
+}
@@ -0,0 +1,26 @@
+package com.example.QRAPI.repository;
+
+/**
+ * Compteur d'utilisations des QR Codes à usage limité (table qr_usage), mis à jour uniquement par
+ * compare-and-set : deux nœuds qui scannent le même code en même temps ne peuvent pas enregistrer
+ * la même utilisation. Chaque écriture fixe la durée de vie de la ligne ({@code ttlSeconds}, 0 : sans
+ * expiration) : le compteur disparaît avec le code qu'il décompte.
+ * Implémentations : {@link CassandraQRUsageRepository} (LWT), et en mémoire avec le profil {@code memory}.
+ */
+public interface QRUsageRepository {
+
+    /**
+     * Enregistre la première utilisation du code.
+     * @return Le résultat ; s'il n'est pas appliqué, {@code uses} est la valeur déjà enregistrée.
+     */
+    CasResult recordFirstUse(String hash, int ttlSeconds);
+
+    /**
+     * Passe le compteur de {@code expected} à {@code expected + 1}, si personne ne l'a modifié entre-temps.
+     * @return Le résultat ; s'il n'est pas appliqué, {@code uses} est la valeur courante.
+     */
+    CasResult recordUse(String hash, int expected, int ttlSeconds);
+
+    record CasResult(boolean applied, int uses) {
+    }
+}
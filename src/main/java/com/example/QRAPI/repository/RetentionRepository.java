@@ -0,0 +1,161 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Rétention des tables d'un QR Code généré (qr_data, qr_hash, qr_lookup) : options de compaction
+ * et parcours de la durée de vie restante des lignes.
+ * Toutes les colonnes d'une ligne sont écrites par le même INSERT : le TTL et le WRITETIME d'une
+ * colonne toujours renseignée ({@code probe}) valent pour toute la ligne.
+ * Les compteurs de scan_counts n'acceptent pas de TTL : leurs partitions journalières sont parcourues
+ * ({@link #scanCounterPartitions}) et supprimées au-delà de la durée de conservation.
+ */
+@Repository
+@Profile("!memory")
+public class RetentionRepository {
+
+    public record RetainedTable(String name, String key, String probe) {
+    }
+
+    /** Partition de scan_counts : compteurs d'une valeur pour un fournisseur et un jour. */
+    public record CounterPartition(String supplier, String dimension, String value, LocalDate day) {
+    }
+
+    public static final String COUNTER_TABLE = "scan_counts";
+    private static final String COUNTER_KEY = "supplier, dimension, value, day";
+
+    public static final List<RetainedTable> TABLES = List.of(
+            new RetainedTable("qr_data", "id", "supplier"),
+            new RetainedTable("qr_hash", "id", "qr_data_id"),
+            new RetainedTable("qr_lookup", "hash", "qr_data_id"));
+
+    private static final String TWCS = "TimeWindowCompactionStrategy";
+    private static final CqlIdentifier COMPACTION = CqlIdentifier.fromCql("compaction");
+    private static final CqlIdentifier GC_GRACE = CqlIdentifier.fromCql("gc_grace_seconds");
+
+    private final CqlSession session;
+    // Préparées au premier parcours (les tables sont créées par Spring Data au démarrage)
+    private final Map<String, PreparedStatement> statements = new ConcurrentHashMap<>();
+
+    public RetentionRepository(CqlSession session) {
+        this.session = session;
+    }
+
+    /** Reçoit chaque ligne lue : clé, TTL restant en secondes (null : pas de TTL), date d'écriture en µs. */
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(Object key, Integer ttlSeconds, Long writeTimeMicros);
+    }
+
+    /**
+     * Applique TimeWindowCompactionStrategy à la table, avec des fenêtres de {@code windowSize}
+     * {@code windowUnit} (MINUTES, HOURS ou DAYS). Sans effet si la table a déjà ces options.
+     *
+     * @return true si la table a été modifiée.
+     */
+    public boolean applyTimeWindowCompaction(String table, String windowUnit, int windowSize, int gcGraceSeconds) {
+        Optional<TableMetadata> metadata = session.getKeyspace()
+                .flatMap(keyspace -> session.getMetadata().getKeyspace(keyspace))
+                .flatMap(keyspace -> keyspace.getTable(table));
+        if (metadata.isEmpty()) {
+            throw new IllegalStateException("Table " + table + " introuvable");
+        }
+        Map<CqlIdentifier, Object> options = metadata.get().getOptions();
+        if (options.get(COMPACTION) instanceof Map<?, ?> compaction
+                && String.valueOf(compaction.get("class")).endsWith(TWCS)
+                && windowUnit.equalsIgnoreCase(String.valueOf(compaction.get("compaction_window_unit")))
+                && String.valueOf(windowSize).equals(String.valueOf(compaction.get("compaction_window_size")))
+                && Integer.valueOf(gcGraceSeconds).equals(options.get(GC_GRACE))) {
+            return false;
+        }
+        session.execute("ALTER TABLE " + table + " WITH compaction = {'class': '" + TWCS + "', "
+                + "'compaction_window_unit': '" + windowUnit.toUpperCase() + "', "
+                + "'compaction_window_size': " + windowSize + "} "
+                + "AND gc_grace_seconds = " + gcGraceSeconds);
+        return true;
+    }
+
+    /**
+     * Lit la clé, le TTL et la date d'écriture de chaque ligne de la plage, {@code pageSize} lignes
+     * par requête (profil export).
+     */
+    public void scan(RetainedTable table, ScanRange range, int pageSize, RowConsumer consumer) {
+        String select = "SELECT " + table.key() + ", TTL(" + table.probe() + "), WRITETIME(" + table.probe() + ") FROM " + table.name();
+        String token = "token(" + table.key() + ")";
+        BoundStatement statement;
+        if (range.start() == null) {
+            statement = prepare(select).bind();
+        } else if (range.end() == null) {
+            statement = prepare(select + " WHERE " + token + " > ?").bind().setToken(0, range.start());
+        } else {
+            statement = prepare(select + " WHERE " + token + " > ? AND " + token + " <= ?").bind()
+                    .setToken(0, range.start()).setToken(1, range.end());
+        }
+        for (Row row : session.execute(statement.setPageSize(pageSize)
+                .setExecutionProfileName(CassandraConfig.EXPORT_PROFILE)
+                .setIdempotent(true))) {
+            consumer.accept(row.getObject(0),
+                    row.isNull(1) ? null : row.getInt(1),
+                    row.isNull(2) ? null : row.getLong(2));
+        }
+    }
+
+    /** Lit les clés de partition de scan_counts dans la plage, {@code pageSize} par requête (profil export). */
+    public void scanCounterPartitions(ScanRange range, int pageSize, Consumer<CounterPartition> consumer) {
+        String select = "SELECT DISTINCT " + COUNTER_KEY + " FROM " + COUNTER_TABLE;
+        String token = "token(" + COUNTER_KEY + ")";
+        BoundStatement statement;
+        if (range.start() == null) {
+            statement = prepare(select).bind();
+        } else if (range.end() == null) {
+            statement = prepare(select + " WHERE " + token + " > ?").bind().setToken(0, range.start());
+        } else {
+            statement = prepare(select + " WHERE " + token + " > ? AND " + token + " <= ?").bind()
+                    .setToken(0, range.start()).setToken(1, range.end());
+        }
+        for (Row row : session.execute(statement.setPageSize(pageSize)
+                .setExecutionProfileName(CassandraConfig.EXPORT_PROFILE)
+                .setIdempotent(true))) {
+            consumer.accept(new CounterPartition(row.getString("supplier"), row.getString("dimension"),
+                    row.getString("value"), row.getLocalDate("day")));
+        }
+    }
+
+    public CompletableFuture<Void> deleteCounterPartition(CounterPartition partition) {
+        PreparedStatement delete = prepare("DELETE FROM " + COUNTER_TABLE
+                + " WHERE supplier = ? AND dimension = ? AND value = ? AND day = ?");
+        return session.executeAsync(delete.bind(partition.supplier(), partition.dimension(), partition.value(), partition.day())
+                        .setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE)
+                        .setIdempotent(true))
+                .toCompletableFuture().thenApply(rs -> null);
+    }
+
+    public CompletableFuture<Void> delete(RetainedTable table, Object key) {
+        PreparedStatement delete = prepare("DELETE FROM " + table.name() + " WHERE " + table.key() + " = ?");
+        return session.executeAsync(delete.bind(key)
+                        .setExecutionProfileName(CassandraConfig.BACKGROUND_PROFILE)
+                        .setIdempotent(true))
+                .toCompletableFuture().thenApply(rs -> null);
+    }
+
+    private PreparedStatement prepare(String cql) {
+        return statements.computeIfAbsent(cql, session::prepare);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.QRAPI.repository;
+
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Journal des QR Codes à refuser hors ligne (table qr_revocations) : codes révoqués et codes à usage
+ * limité épuisés. Chaque entrée est conservée jusqu'à l'expiration du token : au-delà, le lecteur
+ * refuse le code de lui-même, l'entrée n'a plus d'utilité.
+ * Implémentations : {@link CassandraRevocationRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface RevocationRepository {
+
+    record Revocation(UUID at, String hash, String reason, Instant expiresAt) {
+    }
+
+    /** Enregistre l'entrée, horodatée maintenant (timeuuid), jusqu'à {@code expiresAt}. */
+    CompletableFuture<Void> save(String hash, String reason, Instant expiresAt);
+
+    /** Entrées horodatées après {@code sinceMillis}. */
+    List<Revocation> findSince(long sinceMillis);
+
+    /** Plages disjointes couvrant toute la table, pour le chargement complet ({@link #scan}). */
+    List<ScanRange> splitRing(int splits);
+
+    /** Parcours d'une plage de {@link #splitRing}. */
+    void scan(ScanRange range, Consumer<Revocation> consumer);
+}
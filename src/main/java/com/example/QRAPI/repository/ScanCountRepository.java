@@ -0,0 +1,23 @@
+package com.example.QRAPI.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compteurs de scans par minute (table de compteurs scan_counts), par fournisseur, dimension (fournisseur,
+ * ville, pays) et valeur : les volumes par ville ou pays d'un fournisseur sont séparés de ceux des autres.
+ * Les incréments de plusieurs nœuds s'additionnent.
+ * Implémentations : {@link CassandraScanCountRepository}, et en mémoire avec le profil {@code memory}.
+ */
+public interface ScanCountRepository {
+
+    CompletableFuture<Void> increment(String supplier, String dimension, String value, Instant minute, long delta);
+
+    /** Minutes d'une journée entre {@code from} et {@code to} inclus, dans l'ordre chronologique. */
+    List<MinuteCount> find(String supplier, String dimension, String value, LocalDate day, Instant from, Instant to);
+
+    record MinuteCount(Instant minute, long scans) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Découpage de l'anneau de tokens en plages disjointes, pour les parcours complets de table
+ * (rapport de rétention). Chaque plage se lit indépendamment.
+ */
+public final class TokenRing {
+
+    private TokenRing() {
+    }
+
+    /**
+     * Plage de tokens à parcourir. {@code end} null : jusqu'à la fin de l'anneau ; {@code start} null :
+     * table entière.
+     */
+    public record ScanRange(Token start, Token end) {
+    }
+
+    /**
+     * Découpe l'anneau en au moins {@code splits} plages (chaque plage d'un nœud est divisée en parts
+     * égales), sans plage qui fasse le tour de l'anneau.
+     */
+    public static List<ScanRange> split(CqlSession session, int splits) {
+        Optional<TokenMap> tokenMap = session.getMetadata().getTokenMap();
+        if (tokenMap.isEmpty() || tokenMap.get().getTokenRanges().isEmpty()) {
+            return List.of(new ScanRange(null, null));
+        }
+        var ranges = tokenMap.get().getTokenRanges();
+        if (ranges.size() == 1) {
+            // Nœud unique avec un seul token : la plage (t, t] fait tout l'anneau et ne se découpe pas
+            return List.of(new ScanRange(null, null));
+        }
+        int splitsPerRange = Math.max(1, (splits + ranges.size() - 1) / ranges.size());
+
+        List<TokenRange> unwrapped = new ArrayList<>();
+        for (TokenRange range : ranges) {
+            for (TokenRange split : range.splitEvenly(splitsPerRange)) {
+                unwrapped.addAll(split.unwrap());
+            }
+        }
+        // Le plus petit token de l'anneau : une plage qui s'y termine va en fait jusqu'à la fin de l'anneau
+        Token minToken = null;
+        for (TokenRange range : unwrapped) {
+            minToken = min(min(minToken, range.getStart()), range.getEnd());
+        }
+        List<ScanRange> scanRanges = new ArrayList<>(unwrapped.size());
+        for (TokenRange range : unwrapped) {
+            scanRanges.add(new ScanRange(range.getStart(), range.getEnd().equals(minToken) ? null : range.getEnd()));
+        }
+        return scanRanges;
+    }
+
+    private static Token min(Token a, Token b) {
+        return a == null || b.compareTo(a) < 0 ? b : a;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import com.example.QRAPI.repository.HistoryRepository;
+import com.example.QRAPI.repository.QRDataRepository;
+import com.example.QRAPI.repository.QRHashRepository;
+import com.example.QRAPI.repository.QRLookupRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncQRRepository} sur les repositories en mémoire : chaque écriture est faite dans l'appel,
+ * le futur rendu est déjà terminé (en échec si l'écriture est refusée, comme une requête Cassandra).
+ * Le TTL et l'horodatage sont ignorés : les lignes vivent autant que le processus.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryAsyncQRRepository implements AsyncQRRepository {
+
+    private final QRDataRepository qrDataRepository;
+    private final QRHashRepository qrHashRepository;
+    private final QRLookupRepository qrLookupRepository;
+    private final HistoryRepository historyRepository;
+
+    public InMemoryAsyncQRRepository(QRDataRepository qrDataRepository, QRHashRepository qrHashRepository,
+                                     QRLookupRepository qrLookupRepository, HistoryRepository historyRepository) {
+        this.qrDataRepository = qrDataRepository;
+        this.qrHashRepository = qrHashRepository;
+        this.qrLookupRepository = qrLookupRepository;
+        this.historyRepository = historyRepository;
+    }
+
+    @Override
+    public CompletableFuture<QRData> saveData(QRData qrData) {
+        return completed(() -> qrDataRepository.save(qrData));
+    }
+
+    @Override
+    public CompletableFuture<QRHash> saveHash(QRHash qrHash) {
+        return completed(() -> qrHashRepository.save(qrHash));
+    }
+
+    @Override
+    public CompletableFuture<QRLookup> saveLookup(QRLookup lookup) {
+        return completed(() -> qrLookupRepository.save(lookup));
+    }
+
+    // Vérification et écriture atomiques entre recopies concurrentes, comme la LWT côté Cassandra
+    @Override
+    public synchronized CompletableFuture<Boolean> saveLookupIfAbsent(QRLookup lookup, Duration ttl) {
+        return completed(() -> {
+            if (qrLookupRepository.existsById(lookup.getHash())) {
+                return false;
+            }
+            qrLookupRepository.save(lookup);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<History> saveHistory(History history) {
+        return completed(() -> historyRepository.save(history));
+    }
+
+    @Override
+    public CompletableFuture<QRLookup> findLookup(String hash) {
+        return completed(() -> qrLookupRepository.findById(hash).orElse(null));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses, Duration ttl, Instant writtenAt) {
+        return completed(() -> {
+            qrDataRepository.save(qrData);
+            qrHashRepository.save(qrHash);
+            qrLookupRepository.save(QRLookup.of(qrHash, qrData, maxUses));
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
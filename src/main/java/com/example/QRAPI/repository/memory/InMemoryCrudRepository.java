@@ -0,0 +1,129 @@
+package com.example.QRAPI.repository.memory;
+
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Base des repositories Spring Data en mémoire (profil {@code memory}) : une table = une
+ * {@link ConcurrentHashMap} indexée par la clé primaire. Les écritures sont des upserts, comme dans
+ * Cassandra ; les options de requête (profil d'exécution, TTL) sont ignorées.
+ */
+abstract class InMemoryCrudRepository<T, ID> implements CassandraRepository<T, ID> {
+
+    protected final ConcurrentHashMap<ID, T> rows = new ConcurrentHashMap<>();
+    private final Function<T, ID> id;
+
+    protected InMemoryCrudRepository(Function<T, ID> id) {
+        this.id = id;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        ID key = id.apply(entity);
+        if (key == null) {
+            throw new IllegalArgumentException("Clé primaire manquante : " + entity.getClass().getSimpleName());
+        }
+        rows.put(key, entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public Optional<T> findById(ID key) {
+        return Optional.ofNullable(rows.get(key));
+    }
+
+    @Override
+    public boolean existsById(ID key) {
+        return rows.containsKey(key);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ID> keys) {
+        List<T> found = new ArrayList<>();
+        for (ID key : keys) {
+            T row = rows.get(key);
+            if (row != null) {
+                found.add(row);
+            }
+        }
+        return found;
+    }
+
+    /** Pagination par décalage sur une copie de la table (ordre quelconque, stable tant qu'elle ne change pas). */
+    @Override
+    public Slice<T> findAll(Pageable pageable) {
+        List<T> all = findAll();
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(all, pageable, false);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new SliceImpl<>(new ArrayList<>(all.subList(from, to)), pageable, to < all.size());
+    }
+
+    @Override
+    public long count() {
+        return rows.size();
+    }
+
+    @Override
+    public void deleteById(ID key) {
+        rows.remove(key);
+    }
+
+    @Override
+    public void delete(T entity) {
+        rows.remove(id.apply(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends ID> keys) {
+        for (ID key : keys) {
+            rows.remove(key);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        rows.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.QRAPI.repository.memory;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.HistoryEntry;
+import com.example.QRAPI.repository.HistoryByProviderRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * {@link HistoryByProviderRepository} en mémoire : une {@link ConcurrentSkipListMap} par partition
+ * (fournisseur, jour), triée par instant de scan décroissant. L'état de pagination est le timeuuid de
+ * la dernière ligne rendue.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryHistoryByProviderRepository implements HistoryByProviderRepository {
+
+    // Ordre de clustering : instant décroissant, puis timeuuid pour départager les scans d'une même milliseconde
+    private static final Comparator<UUID> SCANNED_AT_DESC = Comparator.comparingLong(Uuids::unixTimestamp)
+            .thenComparing(Comparator.naturalOrder())
+            .reversed();
+
+    private final ConcurrentHashMap<Partition, ConcurrentSkipListMap<UUID, History>> partitions = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<Void> savePartition(List<History> rows) {
+        for (History history : rows) {
+            Partition partition = new Partition(history.getFournisseur(), HistoryByProviderRepository.day(history.getScannedAt()));
+            partitions.computeIfAbsent(partition, p -> new ConcurrentSkipListMap<>(SCANNED_AT_DESC))
+                    .put(history.getScannedAt(), history);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Page findPage(String supplier, LocalDate day, Instant from, Instant to, int pageSize, String pagingState) {
+        // État illisible refusé même sur une partition vide, comme le paging state du driver
+        UUID after = pagingState != null ? UUID.fromString(pagingState) : null;
+        NavigableMap<UUID, History> rows = partitions.get(new Partition(supplier, day));
+        if (rows == null) {
+            return new Page(List.of(), null);
+        }
+        if (after != null) {
+            rows = rows.tailMap(after, false);
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<HistoryEntry> items = new ArrayList<>(pageSize);
+        UUID last = null;
+        for (History history : rows.values()) {
+            long scannedAt = Uuids.unixTimestamp(history.getScannedAt());
+            if (scannedAt > toMillis) {
+                continue;
+            }
+            if (scannedAt < fromMillis) {
+                return new Page(items, null);
+            }
+            if (items.size() == pageSize) {
+                // Au moins une ligne de plus dans l'intervalle : la suite reprend après la dernière rendue
+                return new Page(items, last.toString());
+            }
+            items.add(new HistoryEntry(Instant.ofEpochMilli(scannedAt), history));
+            last = history.getScannedAt();
+        }
+        return new Page(items, null);
+    }
+
+    private record Partition(String supplier, LocalDate day) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.HistoryEntry;
+import com.example.QRAPI.repository.HistoryByProviderRepository;
+import com.example.QRAPI.repository.HistoryExportRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HistoryExportRepository} sur history_by_provider en mémoire : la partition du jour est lue par
+ * pages de {@link HistoryByProviderRepository#findPage}.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryHistoryExportRepository implements HistoryExportRepository {
+
+    private final HistoryByProviderRepository historyByProviderRepository;
+
+    public InMemoryHistoryExportRepository(HistoryByProviderRepository historyByProviderRepository) {
+        this.historyByProviderRepository = historyByProviderRepository;
+    }
+
+    @Override
+    public void scan(String supplier, LocalDate day, int pageSize, PageConsumer consumer) throws InterruptedException {
+        Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusMillis(1);
+        String pagingState = null;
+        do {
+            HistoryByProviderRepository.Page page = historyByProviderRepository.findPage(supplier, day, from, to, pageSize, pagingState);
+            if (page.items().isEmpty()) {
+                return;
+            }
+            List<History> rows = new ArrayList<>(page.items().size());
+            for (HistoryEntry entry : page.items()) {
+                rows.add(entry.history());
+            }
+            if (!consumer.accept(rows)) {
+                return;
+            }
+            pagingState = page.pagingState();
+        } while (pagingState != null);
+    }
+}
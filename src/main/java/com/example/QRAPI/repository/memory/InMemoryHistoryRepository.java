@@ -0,0 +1,17 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.repository.HistoryRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+@Profile("memory")
+public class InMemoryHistoryRepository extends InMemoryCrudRepository<History, UUID> implements HistoryRepository {
+
+    public InMemoryHistoryRepository() {
+        super(History::getId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IdempotencyRepository} en mémoire : réservation atomique par {@code compute}, chaque clé
+ * expirant après son TTL (cache Caffeine sans limite de taille : une clé n'est jamais évincée avant).
+ * L'index hash → clé est purgé avec la clé.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryIdempotencyRepository implements IdempotencyRepository {
+
+    private final Map<String, String> keysByHash = new ConcurrentHashMap<>();
+    private final Cache<String, Claimed> claims = Caffeine.newBuilder()
+            .expireAfter(new ClaimExpiry())
+            .<String, Claimed>removalListener((key, claimed, cause) -> {
+                if (claimed != null) {
+                    keysByHash.remove(claimed.generation().hash(), key);
+                }
+            })
+            .build();
+
+    @Override
+    public ClaimResult claim(String key, Generation generation, int ttlSeconds) {
+        long now = System.currentTimeMillis();
+        Claimed mine = new Claimed(generation, now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        Claimed stored = claims.asMap().compute(key, (k, current) ->
+                current == null || current.expiresAtMillis() <= now ? mine : current);
+        if (stored != mine) {
+            return new ClaimResult(false, stored.generation());
+        }
+        keysByHash.put(generation.hash(), key);
+        return new ClaimResult(true, generation);
+    }
+
+    @Override
+    public void release(String key, String hash) {
+        claims.asMap().computeIfPresent(key, (k, current) -> hash.equals(current.generation().hash()) ? null : current);
+        keysByHash.remove(hash, key);
+    }
+
+    @Override
+    public void releaseByHash(String hash) {
+        String key = keysByHash.get(hash);
+        if (key != null) {
+            release(key, hash);
+        }
+    }
+
+    private record Claimed(Generation generation, long expiresAtMillis) {
+    }
+
+    private static class ClaimExpiry implements Expiry<String, Claimed> {
+        @Override
+        public long expireAfterCreate(String key, Claimed value, long currentTime) {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claimed value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claimed value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
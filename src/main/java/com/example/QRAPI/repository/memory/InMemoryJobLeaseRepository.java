@@ -0,0 +1,24 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.JobLeaseRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** {@link JobLeaseRepository} en mémoire : un seul nœud, le bail protège seulement des exécutions qui se chevauchent. */
+@Repository
+@Profile("memory")
+public class InMemoryJobLeaseRepository implements JobLeaseRepository {
+
+    // Tâche -> fin du bail, en millisecondes
+    private final ConcurrentHashMap<String, Long> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryAcquire(String job, String owner, Duration ttl) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttl.toMillis();
+        return leases.merge(job, expiresAt, (current, mine) -> current > now ? current : mine) == expiresAt;
+    }
+}
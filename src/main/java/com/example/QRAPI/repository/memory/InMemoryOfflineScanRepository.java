@@ -0,0 +1,30 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.OfflineScanRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link OfflineScanRepository} en mémoire : ajout atomique dans un ensemble concurrent. Le TTL est ignoré,
+ * les identifiants sont gardés jusqu'à l'arrêt.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryOfflineScanRepository implements OfflineScanRepository {
+
+    private final Set<UUID> received = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean claim(UUID historyId, int ttlSeconds) {
+        return received.add(historyId);
+    }
+
+    @Override
+    public void release(UUID historyId) {
+        received.remove(historyId);
+    }
+}
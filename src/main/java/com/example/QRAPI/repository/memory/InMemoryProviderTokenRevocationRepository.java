@@ -0,0 +1,25 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.ProviderTokenRevocationRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+@Profile("memory")
+public class InMemoryProviderTokenRevocationRepository implements ProviderTokenRevocationRepository {
+
+    private final Set<String> digests = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void save(String digest) {
+        digests.add(digest);
+    }
+
+    @Override
+    public Set<String> findAll() {
+        return Set.copyOf(digests);
+    }
+}
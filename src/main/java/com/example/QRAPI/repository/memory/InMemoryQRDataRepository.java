@@ -0,0 +1,17 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.repository.QRDataRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+@Profile("memory")
+public class InMemoryQRDataRepository extends InMemoryCrudRepository<QRData, UUID> implements QRDataRepository {
+
+    public InMemoryQRDataRepository() {
+        super(QRData::getId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.repository.QRHashRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.cql.QueryOptions;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * qr_hash en mémoire. {@code findByHash} parcourt la table (index secondaire côté Cassandra) : il ne sert
+ * qu'au repli sur les codes antérieurs à qr_lookup, désactivé avec ce profil.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryQRHashRepository extends InMemoryCrudRepository<QRHash, UUID> implements QRHashRepository {
+
+    public InMemoryQRHashRepository() {
+        super(QRHash::getId);
+    }
+
+    @Override
+    public Optional<QRHash> findByHash(String hash) {
+        return rows.values().stream().filter(row -> hash.equals(row.getHash())).findFirst();
+    }
+
+    @Override
+    public Optional<QRHash> findByHash(String hash, QueryOptions options) {
+        return findByHash(hash);
+    }
+
+    // TTL ignorés avec ce profil : les lignes n'expirent pas
+    @Override
+    public Integer findRemainingTtl(UUID id) {
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.QRLookupRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.cql.QueryOptions;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+@Profile("memory")
+public class InMemoryQRLookupRepository extends InMemoryCrudRepository<QRLookup, String> implements QRLookupRepository {
+
+    public InMemoryQRLookupRepository() {
+        super(QRLookup::getHash);
+    }
+
+    @Override
+    public Optional<QRLookup> findByHash(String hash, QueryOptions options) {
+        return findById(hash);
+    }
+}
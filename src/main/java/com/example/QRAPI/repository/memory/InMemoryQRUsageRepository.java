@@ -0,0 +1,32 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.QRUsageRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link QRUsageRepository} en mémoire : compare-and-set de la {@link ConcurrentHashMap}. Le TTL est
+ * ignoré, les compteurs vivent jusqu'à l'arrêt.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryQRUsageRepository implements QRUsageRepository {
+
+    private final ConcurrentHashMap<String, Integer> uses = new ConcurrentHashMap<>();
+
+    @Override
+    public CasResult recordFirstUse(String hash, int ttlSeconds) {
+        Integer current = uses.putIfAbsent(hash, 1);
+        return current == null ? new CasResult(true, 0) : new CasResult(false, current);
+    }
+
+    @Override
+    public CasResult recordUse(String hash, int expected, int ttlSeconds) {
+        if (uses.replace(hash, expected, expected + 1)) {
+            return new CasResult(true, 0);
+        }
+        return new CasResult(false, uses.getOrDefault(hash, 0));
+    }
+}
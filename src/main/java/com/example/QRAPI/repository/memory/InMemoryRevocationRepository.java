@@ -0,0 +1,60 @@
+package com.example.QRAPI.repository.memory;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.repository.RevocationRepository;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * {@link RevocationRepository} en mémoire : journal non trié (quelques entrées par code révoqué ou
+ * épuisé), filtré à la lecture. Les entrées expirées sont retirées au passage.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryRevocationRepository implements RevocationRepository {
+
+    private final ConcurrentLinkedQueue<Revocation> revocations = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public CompletableFuture<Void> save(String hash, String reason, Instant expiresAt) {
+        revocations.add(new Revocation(Uuids.timeBased(), hash, reason, expiresAt));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<Revocation> findSince(long sinceMillis) {
+        purge();
+        List<Revocation> found = new ArrayList<>();
+        for (Revocation revocation : revocations) {
+            if (Uuids.unixTimestamp(revocation.at()) > sinceMillis) {
+                found.add(revocation);
+            }
+        }
+        return found;
+    }
+
+    /** Une seule plage : toute la table. */
+    @Override
+    public List<ScanRange> splitRing(int splits) {
+        return List.of(new ScanRange(null, null));
+    }
+
+    @Override
+    public void scan(ScanRange range, Consumer<Revocation> consumer) {
+        purge();
+        revocations.forEach(consumer);
+    }
+
+    private void purge() {
+        Instant now = Instant.now();
+        revocations.removeIf(revocation -> !revocation.expiresAt().isAfter(now));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.QRAPI.repository.memory;
+
+import com.example.QRAPI.repository.ScanCountRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/** {@link ScanCountRepository} en mémoire : un compteur par minute, minutes triées par partition. */
+@Repository
+@Profile("memory")
+public class InMemoryScanCountRepository implements ScanCountRepository {
+
+    private final ConcurrentHashMap<Partition, ConcurrentSkipListMap<Instant, LongAdder>> partitions = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<Void> increment(String supplier, String dimension, String value, Instant minute, long delta) {
+        Partition partition = new Partition(supplier, dimension, value, LocalDate.ofInstant(minute, ZoneOffset.UTC));
+        partitions.computeIfAbsent(partition, p -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(minute, m -> new LongAdder())
+                .add(delta);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<MinuteCount> find(String supplier, String dimension, String value, LocalDate day, Instant from, Instant to) {
+        ConcurrentSkipListMap<Instant, LongAdder> minutes = partitions.get(new Partition(supplier, dimension, value, day));
+        List<MinuteCount> counts = new ArrayList<>();
+        if (minutes != null) {
+            for (Map.Entry<Instant, LongAdder> minute : minutes.subMap(from, true, to, true).entrySet()) {
+                counts.add(new MinuteCount(minute.getKey(), minute.getValue().sum()));
+            }
+        }
+        return counts;
+    }
+
+    private record Partition(String supplier, String dimension, String value, LocalDate day) {
+    }
+}
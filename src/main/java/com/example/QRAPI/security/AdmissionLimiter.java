@@ -0,0 +1,47 @@
+package com.example.QRAPI.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Nombre global de requêtes authentifiées traitées simultanément ({@code qrapi.admission.max-concurrent}).
+ * Au-delà, la requête est refusée tout de suite plutôt que mise en file : sous surcharge, la latence
+ * des requêtes acceptées reste stable. 0 = pas de limite.
+ */
+@Component
+public class AdmissionLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Counter rejections;
+
+    public AdmissionLimiter(MeterRegistry meterRegistry, @Value("${qrapi.admission.max-concurrent:256}") int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(Math.max(maxConcurrent, 0));
+        Gauge.builder("admission.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Requêtes authentifiées en cours de traitement")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("admission.rejected")
+                .description("Requêtes refusées faute de capacité")
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        if (maxConcurrent <= 0 || permits.tryAcquire()) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    public void release() {
+        if (maxConcurrent > 0) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.QRAPI.security;
+
+import java.util.Arrays;
+
+/**
+ * Encodage Base45 (RFC 9285). L'alphabet est exactement celui du mode alphanumérique des
+ * QR Codes : 2 octets tiennent en 3 caractères codés sur 5,5 bits chacun, contre 8 bits par
+ * caractère en mode octet pour du Base64.
+ */
+public final class Base45 {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".toCharArray();
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base45() {
+    }
+
+    public static String encode(byte[] data, int length) {
+        StringBuilder out = new StringBuilder((length / 2) * 3 + 2);
+        for (int i = 0; i + 1 < length; i += 2) {
+            int n = ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+            out.append(ALPHABET[n % 45]).append(ALPHABET[(n / 45) % 45]).append(ALPHABET[n / 2025]);
+        }
+        if (length % 2 == 1) {
+            int n = data[length - 1] & 0xFF;
+            out.append(ALPHABET[n % 45]).append(ALPHABET[n / 45]);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException si {@code text} n'est pas du Base45 valide.
+     */
+    public static byte[] decode(CharSequence text, int offset) {
+        int length = text.length() - offset;
+        if (length % 3 == 1) {
+            throw new IllegalArgumentException("Longueur Base45 invalide");
+        }
+        byte[] out = new byte[(length / 3) * 2 + (length % 3 == 2 ? 1 : 0)];
+        int o = 0;
+        for (int i = offset; i < text.length(); i += 3) {
+            int c = value(text.charAt(i));
+            int d = value(text.charAt(i + 1));
+            if (i + 2 < text.length()) {
+                int n = c + d * 45 + value(text.charAt(i + 2)) * 2025;
+                if (n > 0xFFFF) {
+                    throw new IllegalArgumentException("Triplet Base45 invalide");
+                }
+                out[o++] = (byte) (n >>> 8);
+                out[o++] = (byte) n;
+            } else {
+                int n = c + d * 45;
+                if (n > 0xFF) {
+                    throw new IllegalArgumentException("Doublet Base45 invalide");
+                }
+                out[o++] = (byte) n;
+            }
+        }
+        return out;
+    }
+
+    private static int value(char c) {
+        int v = c < 128 ? VALUES[c] : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException("Caractère Base45 invalide : " + c);
+        }
+        return v;
+    }
+}
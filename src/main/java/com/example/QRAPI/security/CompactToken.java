@@ -0,0 +1,130 @@
+package com.example.QRAPI.security;
+
+import com.example.QRAPI.BoundedPool;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Format de token compact pour le contenu des QR Codes, alternative au JWT HS256.
+ * <pre>
+ * QR1:base45( hash SHA-256 brut (32 octets) | exp en secondes (varint) | HMAC-SHA256 tronqué (16 octets) )
+ * </pre>
+ * 84 caractères, tous dans l'alphabet alphanumérique des QR Codes, contre ~210 caractères
+ * en mode octet pour un JWT : le QR Code descend de la version 9 à la version 4.
+ */
+public final class CompactToken {
+
+    public static final String PREFIX = "QR1:";
+
+    private static final int HASH_LENGTH = 32;
+    private static final int MAC_LENGTH = 16;
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    private static final BoundedPool<Mac> HMAC_SHA256 = new BoundedPool<>(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private CompactToken() {
+    }
+
+    public static boolean isCompact(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    /**
+     * @param hexHash hash SHA-256 en hexadécimal (sortie de {@code QRDataHasher}).
+     */
+    public static String sign(String hexHash, SecretKey key, Date expiration) {
+        byte[] payload = new byte[HASH_LENGTH + MAX_VARINT_LENGTH + MAC_LENGTH];
+        byte[] hash = HexFormat.of().parseHex(hexHash);
+        if (hash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Hash SHA-256 attendu");
+        }
+        System.arraycopy(hash, 0, payload, 0, HASH_LENGTH);
+        int length = writeVarint(payload, HASH_LENGTH, expiration.getTime() / 1000);
+        byte[] mac = mac(key, payload, length);
+        System.arraycopy(mac, 0, payload, length, MAC_LENGTH);
+        return PREFIX + Base45.encode(payload, length + MAC_LENGTH);
+    }
+
+    /**
+     * Vérifie le MAC et l'expiration ; renvoie des claims équivalents à ceux du JWT
+     * ({@code sub} = hash hexadécimal, {@code exp}) ou null si le token est invalide ou expiré.
+     */
+    public static Claims verify(String token, SecretKey key) {
+        Claims claims = verifySignature(token, key);
+        if (claims == null || claims.getExpiration().getTime() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * Vérifie le MAC seulement ; renvoie les claims même si le token est expiré, null si le MAC est invalide.
+     */
+    public static Claims verifySignature(String token, SecretKey key) {
+        byte[] payload;
+        try {
+            payload = Base45.decode(token, PREFIX.length());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int signedLength = payload.length - MAC_LENGTH;
+        if (signedLength <= HASH_LENGTH) {
+            return null;
+        }
+        byte[] expected = mac(key, payload, signedLength);
+        byte[] actual = new byte[MAC_LENGTH];
+        System.arraycopy(payload, signedLength, actual, 0, MAC_LENGTH);
+        if (!MessageDigest.isEqual(actual, Arrays.copyOf(expected, MAC_LENGTH))) {
+            return null;
+        }
+
+        long expSeconds = 0;
+        int shift = 0;
+        for (int i = HASH_LENGTH; i < signedLength; i++, shift += 7) {
+            if (shift > 63) {
+                return null;
+            }
+            expSeconds |= (long) (payload[i] & 0x7F) << shift;
+        }
+        Date expiration = new Date(expSeconds * 1000);
+        return Jwts.claims()
+                .setSubject(HexFormat.of().formatHex(payload, 0, HASH_LENGTH))
+                .setExpiration(expiration);
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static byte[] mac(SecretKey key, byte[] data, int length) {
+        Mac mac = HMAC_SHA256.acquire();
+        try {
+            mac.init(key);
+            mac.update(data, 0, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            HMAC_SHA256.release(mac);
+        }
+    }
+}
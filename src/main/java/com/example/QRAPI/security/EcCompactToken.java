@@ -0,0 +1,145 @@
+package com.example.QRAPI.security;
+
+import com.example.QRAPI.BoundedPool;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Variante ES256 de {@link CompactToken}, vérifiable hors ligne avec la clé publique.
+ * <pre>
+ * QR2:base45( hash SHA-256 brut (32 octets) | exp en secondes (varint) | longueur du kid (1 octet) | kid
+ *             | signature ECDSA P-256 r||s (64 octets) )
+ * </pre>
+ * Environ 165 caractères alphanumériques pour un kid court, contre ~300 octets pour un JWT ES256.
+ */
+public final class EcCompactToken {
+
+    public static final String PREFIX = "QR2:";
+
+    private static final int HASH_LENGTH = 32;
+    private static final int SIGNATURE_LENGTH = 64;
+    private static final int MAX_VARINT_LENGTH = 10;
+    private static final int MAX_KID_LENGTH = 255;
+
+    // Signature au format brut r||s (IEEE P1363) plutôt que DER : longueur fixe de 64 octets
+    private static final BoundedPool<Signature> ECDSA_P1363 = new BoundedPool<>(() -> {
+        try {
+            return Signature.getInstance("SHA256withECDSAinP1363Format");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private EcCompactToken() {
+    }
+
+    public static boolean isCompact(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    /**
+     * @param hexHash hash SHA-256 en hexadécimal (sortie de {@code QRDataHasher}).
+     */
+    public static String sign(String hexHash, String kid, PrivateKey key, Date expiration) {
+        byte[] hash = HexFormat.of().parseHex(hexHash);
+        if (hash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Hash SHA-256 attendu");
+        }
+        byte[] kidBytes = kid.getBytes(StandardCharsets.UTF_8);
+        if (kidBytes.length > MAX_KID_LENGTH) {
+            throw new IllegalArgumentException("Identifiant de clé trop long");
+        }
+        byte[] payload = new byte[HASH_LENGTH + MAX_VARINT_LENGTH + 1 + kidBytes.length + SIGNATURE_LENGTH];
+        System.arraycopy(hash, 0, payload, 0, HASH_LENGTH);
+        int length = writeVarint(payload, HASH_LENGTH, expiration.getTime() / 1000);
+        payload[length++] = (byte) kidBytes.length;
+        System.arraycopy(kidBytes, 0, payload, length, kidBytes.length);
+        length += kidBytes.length;
+        Signature signature = ECDSA_P1363.acquire();
+        try {
+            signature.initSign(key);
+            signature.update(payload, 0, length);
+            signature.sign(payload, length, SIGNATURE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            ECDSA_P1363.release(signature);
+        }
+        return PREFIX + Base45.encode(payload, length + SIGNATURE_LENGTH);
+    }
+
+    /**
+     * Vérifie la signature avec la clé publique désignée par le kid du token ; renvoie les claims
+     * ({@code sub} = hash hexadécimal, {@code exp}) même si le token est expiré, null si la signature est
+     * invalide ou la clé inconnue.
+     */
+    public static Claims verifySignature(String token, Function<String, ? extends PublicKey> keys) {
+        byte[] payload;
+        try {
+            payload = Base45.decode(token, PREFIX.length());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int signedLength = payload.length - SIGNATURE_LENGTH;
+        if (signedLength <= HASH_LENGTH) {
+            return null;
+        }
+
+        long expSeconds = 0;
+        int offset = HASH_LENGTH;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63 || offset >= signedLength) {
+                return null;
+            }
+            byte b = payload[offset++];
+            expSeconds |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (offset >= signedLength) {
+            return null;
+        }
+        int kidLength = payload[offset++] & 0xFF;
+        if (offset + kidLength != signedLength) {
+            return null;
+        }
+        PublicKey key = keys.apply(new String(payload, offset, kidLength, StandardCharsets.UTF_8));
+        if (key == null) {
+            return null;
+        }
+        Signature signature = ECDSA_P1363.acquire();
+        try {
+            signature.initVerify(key);
+            signature.update(payload, 0, signedLength);
+            if (!signature.verify(payload, signedLength, SIGNATURE_LENGTH)) {
+                return null;
+            }
+        } catch (GeneralSecurityException e) {
+            return null;
+        } finally {
+            ECDSA_P1363.release(signature);
+        }
+        return Jwts.claims()
+                .setSubject(HexFormat.of().formatHex(payload, 0, HASH_LENGTH))
+                .setExpiration(new Date(expSeconds * 1000));
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+}
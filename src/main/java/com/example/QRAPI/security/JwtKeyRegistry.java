@@ -0,0 +1,48 @@
+package com.example.QRAPI.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registre des clés HMAC et des {@link JwtParser} associés, construits une seule fois par secret.
+ * {@code Keys.hmacShaKeyFor} et {@code Jwts.parserBuilder().build()} ne sont donc plus exécutés à
+ * chaque requête. Le nombre de secrets retenus est borné : les secrets fournis par les appelants
+ * de /api/qr ne peuvent pas faire grossir le registre indéfiniment.
+ */
+@Component
+public class JwtKeyRegistry {
+
+    private final Cache<String, SigningKeys> keys;
+
+    public JwtKeyRegistry(@Value("${qrapi.jwt.key-registry.max-size:1000}") long maxSize) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public SecretKey signingKey(String secret) {
+        return forSecret(secret).key();
+    }
+
+    public JwtParser parser(String secret) {
+        return forSecret(secret).parser();
+    }
+
+    private SigningKeys forSecret(String secret) {
+        return keys.get(secret, s -> {
+            SecretKey key = Keys.hmacShaKeyFor(s.getBytes(StandardCharsets.UTF_8));
+            return new SigningKeys(key, Jwts.parserBuilder().setSigningKey(key).build());
+        });
+    }
+
+    private record SigningKeys(SecretKey key, JwtParser parser) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.QRAPI.security;
 
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -8,18 +11,32 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
+
+    /** Attribut de requête contenant les {@link Claims} du token fournisseur vérifié. */
+    public static final String CLAIMS_ATTRIBUTE = JwtRequestFilter.class.getName() + ".claims";
+
+    @Autowired
+    private ProviderTokenCache providerTokenCache;
+
     @Autowired
-    private JwtUtil jwtUtil;
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private AdmissionLimiter admissionLimiter;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -28,31 +45,113 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	final String authorizationHeader = request.getHeader("Authorization");
         final String requestURI = request.getRequestURI();
 
-        // Exclure les routes publiques
-        if (requestURI.contains("/reserve")) {
-System.out.println("Ok 1\n");
+        // Exclure les routes publiques (jeton fournisseur, sondes de santé et collecte Prometheus)
+        if (requestURI.contains("/reserve") || SecurityConfig.isPublicActuator(requestURI)) {
             filterChain.doFilter(request, response);
             return;
         }
 
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-System.out.println("Ok 2 \n");
+            log.debug("Requête {} sans token", requestURI);
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Authorization header is missing or malformed");
             return;
         }
 
         String token = extractToken(request);
 
-        if (jwtUtil.validateToken(token)) {
-System.out.println("Ok 3\n");
-            String fournisseur = jwtUtil.extractFournisseur(token);
+        // Vérification HMAC au plus une fois par token (cache), claims transmis à la chaîne
+        Claims claims = providerTokenCache.resolve(token);
+        String fournisseur = claims != null ? JwtUtil.extractFournisseur(claims) : null;
+        if (fournisseur != null) {
+            request.setAttribute(CLAIMS_ATTRIBUTE, claims);
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(fournisseur, null, null);
             SecurityContextHolder.getContext().setAuthentication(authentication);
+
+            // Refus avant tout accès Cassandra ou décodage d'image
+            long wait = rateLimiter.acquire(fournisseur, endpoint(request));
+            if (wait > 0) {
+                reject(response, 429, wait, "Limite de requêtes atteinte pour ce fournisseur");
+                return;
+            }
+            if (!admissionLimiter.tryAcquire()) {
+                reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1_000_000_000L, "Serveur saturé, réessayer plus tard");
+                return;
+            }
+            // Requête asynchrone (export en flux) : le corps est écrit après le retour de la chaîne, la place
+            // n'est rendue qu'à la fin de la réponse
+            boolean async = false;
+            try {
+                filterChain.doFilter(request, response);
+                async = request.isAsyncStarted();
+            } finally {
+                if (async) {
+                    request.getAsyncContext().addListener(new AdmissionRelease(admissionLimiter));
+                } else {
+                    admissionLimiter.release();
+                }
+            }
+            return;
         }
-System.out.println("Ok 4\n");
+        log.debug("Token refusé pour {}", requestURI);
         filterChain.doFilter(request, response);
-System.out.println("Ok 5\n");
+    }
+
+    // Chemin sous /api, « / » remplacés par « - » : /api/qr/generate/batch -> qr-generate-batch
+    private static String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/")) {
+            path = path.substring(5);
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.replace('/', '-');
+    }
+
+    // Pas de sendError : la page d'erreur repasserait par la chaîne de sécurité
+    private static void reject(HttpServletResponse response, int status, long waitNanos, String message) throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", Long.toString(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    // Rend la place d'admission une seule fois : onError et onTimeout sont suivis de onComplete
+    private static final class AdmissionRelease implements AsyncListener {
+        private final AdmissionLimiter admissionLimiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        AdmissionRelease(AdmissionLimiter admissionLimiter) {
+            this.admissionLimiter = admissionLimiter;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                admissionLimiter.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nouveau cycle asynchrone sur la même requête : l'écouteur doit s'y réinscrire
+            event.getAsyncContext().addListener(this);
+        }
     }
 
     private String extractToken(HttpServletRequest request) {
@@ -1,13 +1,13 @@
 package com.example.QRAPI.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,11 +15,13 @@ import java.util.function.Function;
 
 @Service
 public class JwtUtil {
-    @Value("464313da08dcfbc5e3bf6eb5367f87ec760ff7b9699505ef2ee806296da3e5a7565c74e3d89ffdca9ab55e5144f1fb9a92c2697ab67077b11ca134a510d8d77e")
-    private String secretKey;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("464313da08dcfbc5e3bf6eb5367f87ec760ff7b9699505ef2ee806296da3e5a7565c74e3d89ffdca9ab55e5144f1fb9a92c2697ab67077b11ca134a510d8d77e") String secretKey,
+                   JwtKeyRegistry keyRegistry) {
+        this.signingKey = keyRegistry.signingKey(secretKey);
+        this.parser = keyRegistry.parser(secretKey);
     }
 
     public String generateToken(String email, String role) {
@@ -39,7 +41,7 @@ public class JwtUtil {
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -57,18 +59,27 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Vérifie le token une seule fois et renvoie ses claims, ou null si la signature est invalide.
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
     public String extractFournisseur(String token) {
-    
-        return extractClaim(token, claims -> claims.get("provider", String.class));
-}
+        return extractClaim(token, JwtUtil::extractFournisseur);
+    }
 
+    public static String extractFournisseur(Claims claims) {
+        return claims.get("provider", String.class);
+    }
 
     public Boolean validateToken(String token) {
         final String extractedEmail = extractFournisseur(token);
@@ -0,0 +1,123 @@
+package com.example.QRAPI.security;
+
+import com.example.QRAPI.BoundedPool;
+import com.example.QRAPI.repository.ProviderTokenRevocationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache des tokens fournisseurs déjà vérifiés, indexé par le SHA-256 du token.
+ * Les tokens de /api/reserve n'expirent pas et sont renvoyés à l'identique : une requête répétée
+ * évite ainsi toute vérification HMAC. Un token révoqué est refusé même s'il est cryptographiquement
+ * valide : la révocation est enregistrée dans provider_token_revocations, immédiatement appliquée par le
+ * nœud qui la reçoit et par les autres à la relecture suivante de la table (toutes les
+ * {@code revocation-poll-interval}).
+ */
+@Component
+public class ProviderTokenCache {
+
+    private static final BoundedPool<MessageDigest> SHA_256 = new BoundedPool<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderTokenCache.class);
+
+    private final JwtUtil jwtUtil;
+    private final ProviderTokenRevocationRepository revocationRepository;
+    private final Cache<String, Claims> verified;
+    private final Set<String> revoked = ConcurrentHashMap.newKeySet();
+    private final Timer verifyTimer;
+
+    public ProviderTokenCache(JwtUtil jwtUtil, ProviderTokenRevocationRepository revocationRepository, MeterRegistry meterRegistry,
+                              @Value("${qrapi.provider-token-cache.max-size:10000}") long maxSize,
+                              @Value("${qrapi.provider-token-cache.ttl:10m}") Duration ttl) {
+        this.jwtUtil = jwtUtil;
+        this.revocationRepository = revocationRepository;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "providerTokenCache");
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .tag("token", "provider")
+                .description("Durée de vérification de signature d'un token")
+                .register(meterRegistry);
+        // Chargée avant la première requête : un token révoqué n'est jamais accepté au démarrage
+        this.revoked.addAll(revocationRepository.findAll());
+    }
+
+    /**
+     * Renvoie les claims du token, vérifiés au plus une fois par période de {@code ttl},
+     * ou null si le token est invalide ou révoqué.
+     */
+    public Claims resolve(String token) {
+        String digest = digest(token);
+        if (revoked.contains(digest)) {
+            return null;
+        }
+        Claims claims = verified.getIfPresent(digest);
+        if (claims == null) {
+            long start = System.nanoTime();
+            claims = jwtUtil.parseClaims(token);
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (claims != null) {
+                verified.put(digest, claims);
+            }
+        }
+        return claims;
+    }
+
+    /** Enregistre la révocation (échoue si l'écriture échoue), puis l'applique sur ce nœud. */
+    public void revoke(String token) {
+        String digest = digest(token);
+        revocationRepository.save(digest);
+        revoked.add(digest);
+        verified.invalidate(digest);
+    }
+
+    // @Scheduled n'accepte que des millisecondes ou l'ISO-8601 : durée au format des propriétés ("30s") convertie
+    @Scheduled(fixedDelayString = "#{T(org.springframework.boot.convert.DurationStyle).detectAndParse('${qrapi.provider-token-cache.revocation-poll-interval:30s}').toMillis()}")
+    public void reloadRevocations() {
+        try {
+            for (String digest : revocationRepository.findAll()) {
+                if (revoked.add(digest)) {
+                    verified.invalidate(digest);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Relecture de provider_token_revocations en échec : {}", e.getMessage());
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.acquire();
+        try {
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            SHA_256.release(digest);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.QRAPI.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registre des clés ES256 (ECDSA P-256) des QR Codes, chargé au démarrage depuis {@link SigningKeyProperties}.
+ * La clé privée active signe les nouveaux codes ; les clés publiques de toutes les clés configurées
+ * vérifient les codes et sont publiées pour les lecteurs hors ligne. Rotation : ajouter la nouvelle clé
+ * et déployer, puis la désigner par {@code active-kid} ; retirer l'ancienne une fois ses codes expirés.
+ * Sans clé configurée, une paire éphémère est générée : les codes ES256 ne sont alors vérifiables que
+ * par ce nœud et jusqu'à son redémarrage (développement uniquement).
+ */
+@Component
+public class QRSigningKeys {
+
+    private static final Logger log = LoggerFactory.getLogger(QRSigningKeys.class);
+
+    private static final String ALGORITHM = SignatureAlgorithm.ES256.getValue();
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String activeKid;
+    private final PrivateKey signingKey;
+    private final Map<String, ECPublicKey> publicKeys;
+    private final JwtParser parser;
+
+    public QRSigningKeys(SigningKeyProperties properties) throws IOException, GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        Map<String, ECPublicKey> loaded = new LinkedHashMap<>();
+        PrivateKey active = null;
+        String kid = properties.getActiveKid();
+        for (Map.Entry<String, SigningKeyProperties.KeyPair> entry : properties.getKeys().entrySet()) {
+            SigningKeyProperties.KeyPair pair = entry.getValue();
+            if (pair.getPublicKey() == null) {
+                throw new IllegalStateException("Clé publique manquante pour qrapi.signing.keys." + entry.getKey());
+            }
+            ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(pem(pair.getPublicKey())));
+            if (publicKey.getParams().getCurve().getField().getFieldSize() != 256) {
+                throw new IllegalStateException("Courbe P-256 attendue pour la clé " + entry.getKey());
+            }
+            loaded.put(entry.getKey(), publicKey);
+            if (entry.getKey().equals(kid)) {
+                if (pair.getPrivateKey() == null) {
+                    throw new IllegalStateException("Clé privée manquante pour la clé active " + kid);
+                }
+                active = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(pem(pair.getPrivateKey())));
+            }
+        }
+        if (loaded.isEmpty()) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            java.security.KeyPair pair = generator.generateKeyPair();
+            kid = "ephemeral-" + UUID.randomUUID().toString().substring(0, 8);
+            active = pair.getPrivate();
+            loaded.put(kid, (ECPublicKey) pair.getPublic());
+            log.warn("Aucune clé qrapi.signing.keys configurée : clé ES256 éphémère {} (codes invalides après redémarrage)", kid);
+        } else if (active == null) {
+            throw new IllegalStateException("qrapi.signing.active-kid ne désigne aucune clé configurée : " + kid);
+        }
+        this.activeKid = kid;
+        this.signingKey = active;
+        this.publicKeys = Collections.unmodifiableMap(loaded);
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new KidResolver()).build();
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public PrivateKey signingKey() {
+        return signingKey;
+    }
+
+    /** Clé publique d'un identifiant, null si inconnu (clé retirée ou jamais configurée). */
+    public ECPublicKey publicKey(String kid) {
+        return kid == null ? null : publicKeys.get(kid);
+    }
+
+    /** Toutes les clés publiques vérifiables, par identifiant. */
+    public Map<String, ECPublicKey> publicKeys() {
+        return publicKeys;
+    }
+
+    /** Parser des JWT ES256, clé choisie d'après l'en-tête {@code kid}. */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Vrai si l'en-tête du JWT annonce ES256. Aiguillage seulement : la signature est vérifiée par {@link #parser()}.
+     * L'en-tête est lu comme du JSON (membre {@code alg} de premier niveau) : espaces, ordre des membres ou
+     * {@code "alg"} à l'intérieur d'une autre valeur ne trompent pas l'aiguillage.
+     */
+    public static boolean isAsymmetricJwt(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        try (JsonParser header = JSON.createParser(Base64.getUrlDecoder().decode(token.substring(0, dot)))) {
+            if (header.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (header.nextToken() == JsonToken.FIELD_NAME) {
+                String field = header.currentName();
+                JsonToken value = header.nextToken();
+                if ("alg".equals(field)) {
+                    return value == JsonToken.VALUE_STRING && ALGORITHM.equals(header.getText());
+                }
+                header.skipChildren();
+            }
+            return false;
+        } catch (IllegalArgumentException | IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] pem(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            return Base64.getMimeDecoder().decode(text.replaceAll("-----[A-Z ]+-----", ""));
+        }
+    }
+
+    // ES256 uniquement : un en-tête HS256 avec un kid connu ne doit pas faire vérifier la clé publique comme secret HMAC
+    private class KidResolver extends SigningKeyResolverAdapter {
+        // JwsHeader est générique (JwsHeader<T extends JwsHeader<T>>) ; la signature de l'adaptateur JJWT est brute
+        @SuppressWarnings("rawtypes")
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (!ALGORITHM.equals(header.getAlgorithm())) {
+                throw new UnsupportedJwtException("Algorithme non accepté : " + header.getAlgorithm());
+            }
+            ECPublicKey key = publicKey(header.getKeyId());
+            if (key == null) {
+                throw new SignatureException("Clé inconnue : " + header.getKeyId());
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.QRAPI.security;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limites de débit par fournisseur ({@code qrapi.rate-limit.*}).
+ * Un endpoint est désigné par son chemin sous /api, « / » remplacés par « - » ({@code qr-generate},
+ * {@code qr-scan-image}, {@code history-export}...). Limite appliquée, de la plus précise à la plus générale :
+ * {@code providers.<fournisseur>.<endpoint>}, {@code providers.<fournisseur>.default},
+ * {@code endpoints.<endpoint>}, {@code default}. Une limite partielle (seulement {@code rate} ou seulement
+ * {@code burst}) prend la valeur manquante dans la limite plus générale suivante qui la définit. Valeurs
+ * vérifiées au démarrage : {@code rate} > 0, {@code burst} >= 1.
+ */
+@Component
+@Validated
+@ConfigurationProperties("qrapi.rate-limit")
+public class RateLimitProperties {
+
+    private static final double DEFAULT_RATE = 50;
+    private static final int DEFAULT_BURST = 100;
+
+    private boolean enabled = true;
+    @Valid
+    private Limit defaultLimit = new Limit(DEFAULT_RATE, DEFAULT_BURST);
+    private Map<String, @Valid Limit> endpoints = new HashMap<>();
+    private Map<String, Map<String, @Valid Limit>> providers = new HashMap<>();
+    // Compteurs des couples (fournisseur, endpoint) gardés en mémoire, oubliés après idle-timeout sans requête
+    private long maxBuckets = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /** Limite effective du couple (fournisseur, endpoint), champ par champ de la plus précise à la plus générale. */
+    public Limit resolve(String provider, String endpoint) {
+        Map<String, Limit> providerLimits = providers.getOrDefault(provider, Map.of());
+        Limit[] candidates = {providerLimits.get(endpoint), providerLimits.get("default"), endpoints.get(endpoint), defaultLimit};
+        Double rate = null;
+        Integer burst = null;
+        for (Limit candidate : candidates) {
+            if (candidate != null) {
+                rate = rate != null ? rate : candidate.getRate();
+                burst = burst != null ? burst : candidate.getBurst();
+            }
+        }
+        return new Limit(rate != null ? rate : DEFAULT_RATE, burst != null ? burst : DEFAULT_BURST);
+    }
+
+    /** Vrai si l'endpoint a sa propre limite, pour au moins un fournisseur. */
+    public boolean isConfigured(String endpoint) {
+        if (endpoints.containsKey(endpoint)) {
+            return true;
+        }
+        for (Map<String, Limit> providerLimits : providers.values()) {
+            if (providerLimits.containsKey(endpoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Limit getDefault() { return defaultLimit; }
+    public void setDefault(Limit defaultLimit) { this.defaultLimit = defaultLimit; }
+
+    public Map<String, Limit> getEndpoints() { return endpoints; }
+    public void setEndpoints(Map<String, Limit> endpoints) { this.endpoints = endpoints; }
+
+    public Map<String, Map<String, Limit>> getProviders() { return providers; }
+    public void setProviders(Map<String, Map<String, Limit>> providers) { this.providers = providers; }
+
+    public long getMaxBuckets() { return maxBuckets; }
+    public void setMaxBuckets(long maxBuckets) { this.maxBuckets = maxBuckets; }
+
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    /**
+     * {@code rate} requêtes par seconde en régime établi, jusqu'à {@code burst} requêtes d'affilée.
+     * Un champ null est hérité de la limite plus générale.
+     */
+    public static class Limit {
+        @Positive
+        private Double rate;
+        @Min(1)
+        private Integer burst;
+
+        public Limit() {
+        }
+
+        public Limit(Double rate, Integer burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        public Double getRate() { return rate; }
+        public void setRate(Double rate) { this.rate = rate; }
+
+        public Integer getBurst() { return burst; }
+        public void setBurst(Integer burst) { this.burst = burst; }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.QRAPI.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitation de débit par fournisseur et par endpoint (GCRA, équivalent d'un seau à jetons).
+ * L'état d'un seau tient dans un seul {@link AtomicLong} (instant théorique de la prochaine requête),
+ * mis à jour par compare-and-set : ni verrou ni allocation par requête. Les seaux sont gardés dans une
+ * map Caffeine bornée, oubliés après {@code idle-timeout} sans requête (un seau oublié est plein).
+ * Un endpoint sans limite propre partage le seau {@code default} du fournisseur : varier les chemins
+ * ne multiplie pas le débit autorisé.
+ */
+@Component
+public class RateLimiter {
+
+    private final RateLimitProperties properties;
+    private final Cache<String, Bucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Consomme une requête du seau (fournisseur, endpoint).
+     * @return 0 si la requête est acceptée, sinon le délai en nanosecondes avant la prochaine requête acceptée.
+     */
+    public long acquire(String provider, String endpoint) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        String bucketEndpoint = properties.isConfigured(endpoint) ? endpoint : "default";
+        Bucket bucket = buckets.get(provider + '|' + bucketEndpoint,
+                key -> new Bucket(properties.resolve(provider, bucketEndpoint)));
+        long wait = bucket.acquire(System.nanoTime());
+        if (wait > 0) {
+            rejections.computeIfAbsent(bucketEndpoint, e -> Counter.builder("ratelimit.rejected")
+                    .tag("endpoint", e)
+                    .description("Requêtes refusées par la limite de débit du fournisseur")
+                    .register(meterRegistry)).increment();
+        }
+        return wait;
+    }
+
+    static final class Bucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(RateLimitProperties.Limit limit) {
+            this.intervalNanos = (long) (1_000_000_000L / limit.getRate());
+            this.toleranceNanos = intervalNanos * limit.getBurst();
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        long acquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long wait = next - toleranceNanos - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.QRAPI.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,6 +20,18 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Sondes de santé et collecte Prometheus, sans token (à isoler par le réseau ou management.server.port)
+    private static final String[] PUBLIC_ACTUATOR = {"/actuator/health", "/actuator/prometheus"};
+
+    static boolean isPublicActuator(String requestURI) {
+        for (String path : PUBLIC_ACTUATOR) {
+            if (requestURI.equals(path) || requestURI.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
@@ -28,6 +41,8 @@ public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/reserve").permitAll()  // Accessible sans token
+                .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()  // Supervision
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()  // Fin des réponses streamées (déjà authentifiées)
                 .anyRequest().authenticated()  // Toutes les autres routes nécessitent un token
             )
             .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
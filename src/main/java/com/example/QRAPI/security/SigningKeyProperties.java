@@ -0,0 +1,41 @@
+package com.example.QRAPI.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Clés ECDSA P-256 de signature des QR Codes ES256 ({@code qrapi.signing.*}), désignées par leur
+ * identifiant ({@code kid}). La clé {@code active-kid} signe ; les autres ne servent plus qu'à vérifier
+ * les codes déjà émis et peuvent n'avoir que leur clé publique.
+ * Clés au format PEM : privée en PKCS#8 ({@code openssl genpkey -algorithm EC -pkeyopt ec_paramgen_curve:P-256}),
+ * publique en X.509 ({@code openssl pkey -pubout}).
+ */
+@Component
+@ConfigurationProperties("qrapi.signing")
+public class SigningKeyProperties {
+
+    private String activeKid;
+    private Map<String, KeyPair> keys = new LinkedHashMap<>();
+
+    public String getActiveKid() { return activeKid; }
+    public void setActiveKid(String activeKid) { this.activeKid = activeKid; }
+
+    public Map<String, KeyPair> getKeys() { return keys; }
+    public void setKeys(Map<String, KeyPair> keys) { this.keys = keys; }
+
+    /** Emplacements des fichiers PEM ({@code file:...}, {@code classpath:...}). */
+    public static class KeyPair {
+        private Resource privateKey;
+        private Resource publicKey;
+
+        public Resource getPrivateKey() { return privateKey; }
+        public void setPrivateKey(Resource privateKey) { this.privateKey = privateKey; }
+
+        public Resource getPublicKey() { return publicKey; }
+        public void setPublicKey(Resource publicKey) { this.publicKey = publicKey; }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Génération de QR Codes par lot.
+ * Le hachage, la signature et l'encodage ZXing tournent en parallèle sur un pool dimensionné
+ * au nombre de cœurs ; les lignes qr_data / qr_hash / qr_lookup sont écrites en asynchrone et
+ * chaque image est ajoutée à l'archive ZIP dès qu'elle est prête. Au plus {@code window} éléments sont en vol,
+ * le lot complet n'est donc jamais gardé en mémoire.
+ */
+@Service
+public class BatchQRService {
+
+    private final QRCodeService qrCodeService;
+    private final QRDataHasher qrDataHasher;
+    private final AsyncQRRepository asyncQRRepository;
+    private final RetentionPolicy retentionPolicy;
+    private final ExecutorService encodingPool;
+    private final int window;
+
+    public BatchQRService(QRCodeService qrCodeService, QRDataHasher qrDataHasher,
+                          AsyncQRRepository asyncQRRepository, RetentionPolicy retentionPolicy,
+                          @Value("${qrapi.batch.parallelism:0}") int parallelism) {
+        this.qrCodeService = qrCodeService;
+        this.qrDataHasher = qrDataHasher;
+        this.asyncQRRepository = asyncQRRepository;
+        this.retentionPolicy = retentionPolicy;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.encodingPool = Executors.newFixedThreadPool(threads);
+        this.window = threads * 2;
+    }
+
+    /**
+     * Génère un QR Code par élément de {@code batch} et écrit les images dans {@code out} au format ZIP,
+     * dans l'ordre de fin de traitement. Les entrées sont nommées d'après leur position dans le lot
+     * ({@code qr-00042.png}) ; un élément en échec produit une entrée {@code qr-00042.error.txt}.
+     */
+    public void generateBatch(List<QRData> batch, String fournisseur, String secret, long expirationMillis, boolean compact,
+                              Integer maxUses, OutputStream out) throws IOException {
+        BlockingQueue<Result> completed = new LinkedBlockingQueue<>();
+        Duration ttl = retentionPolicy.ttl(expirationMillis);
+        int submitted = 0;
+        int written = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            while (written < batch.size()) {
+                while (submitted < batch.size() && submitted - written < window) {
+                    int index = submitted++;
+                    generateOne(batch.get(index), fournisseur, secret, expirationMillis, ttl, compact, maxUses)
+                            .whenComplete((image, error) -> completed.add(new Result(index, image, error)));
+                }
+                Result result = take(completed);
+                writeEntry(zip, result);
+                written++;
+                zip.flush();
+            }
+        }
+    }
+
+    private CompletableFuture<byte[]> generateOne(QRData qrData, String fournisseur, String secret, long expirationMillis, Duration ttl,
+                                                  boolean compact, Integer maxUses) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                qrData.setId(UUID.randomUUID());
+                qrData.setFournisseur(fournisseur);
+                String hashedData = qrDataHasher.hash(qrData);
+
+                QRHash qrHash = new QRHash();
+                qrHash.setId(UUID.randomUUID());
+                qrHash.setHash(hashedData);
+                qrHash.setQrDataId(qrData.getId());
+
+                // Les écritures partent pendant la signature et l'encodage
+                CompletableFuture<Void> writes = asyncQRRepository.saveGenerated(qrData, qrHash, maxUses, ttl);
+
+                String signedData = qrCodeService.sign(hashedData, secret, expirationMillis, compact);
+                byte[] image = qrCodeService.generateQRCodeImageFromData(signedData);
+                return writes.thenApply(ignored -> image);
+            } catch (Exception e) {
+                return CompletableFuture.<byte[]>failedFuture(e);
+            }
+        }, encodingPool).thenCompose(future -> future);
+    }
+
+    private void writeEntry(ZipOutputStream zip, Result result) throws IOException {
+        if (result.error == null) {
+            zip.putNextEntry(new ZipEntry(String.format("qr-%05d.png", result.index)));
+            zip.write(result.image);
+        } else {
+            Throwable cause = result.error.getCause() != null ? result.error.getCause() : result.error;
+            zip.putNextEntry(new ZipEntry(String.format("qr-%05d.error.txt", result.index)));
+            zip.write(String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+        zip.closeEntry();
+    }
+
+    private static Result take(BlockingQueue<Result> completed) throws IOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Génération par lot interrompue", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        encodingPool.shutdown();
+    }
+
+    private record Result(int index, byte[] image, Throwable error) {
+    }
+}
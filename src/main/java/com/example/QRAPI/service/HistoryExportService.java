@@ -0,0 +1,205 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.repository.HistoryExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Export de l'historique d'un fournisseur sur une période, écrit dans la réponse au fil de la lecture.
+ * Chaque jour de la période est une partition de history_by_provider ; les jours sont répartis entre
+ * {@code parallelism} lecteurs ;
+ * les pages lues passent par une file de {@code max-in-flight-pages} pages vers le thread qui écrit
+ * la réponse. File pleine = les lecteurs attendent avant de demander la page suivante : quelle que soit
+ * la taille de l'export, la mémoire est bornée à quelques pages, et un client lent ralentit la lecture
+ * au lieu de la faire s'accumuler. Au plus {@code max-concurrent} exports tournent à la fois, les
+ * suivants attendent leur tour.
+ */
+@Service
+public class HistoryExportService {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+        CSV(MediaType.parseMediaType("text/csv"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,clientId,chauffeurId,courseId,lieu,fournisseur,heure,date,ville,pays\n";
+
+    private final HistoryExportRepository historyExportRepository;
+    private final ObjectWriter jsonWriter;
+    private final ExecutorService scanPool;
+    private final Semaphore exports;
+    private final int parallelism;
+    private final int pageSize;
+    private final int maxInFlightPages;
+
+    public HistoryExportService(HistoryExportRepository historyExportRepository, ObjectMapper objectMapper,
+                                @Value("${qrapi.export.parallelism:4}") int parallelism,
+                                @Value("${qrapi.export.page-size:1000}") int pageSize,
+                                @Value("${qrapi.export.max-in-flight-pages:8}") int maxInFlightPages,
+                                @Value("${qrapi.export.max-concurrent:2}") int maxConcurrent) {
+        this.historyExportRepository = historyExportRepository;
+        // Une ligne par objet, le flux de la réponse reste ouvert
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.scanPool = Executors.newFixedThreadPool(parallelism * maxConcurrent);
+        this.exports = new Semaphore(maxConcurrent);
+        this.parallelism = parallelism;
+        this.pageSize = pageSize;
+        this.maxInFlightPages = maxInFlightPages;
+    }
+
+    /**
+     * Écrit dans {@code out} les scans de {@code supplier} du jour {@code from} au jour {@code to} inclus
+     * (UTC), sans ordre particulier.
+     * @throws IOException si l'écriture échoue (client déconnecté) ou si une lecture Cassandra échoue ;
+     * les lecteurs sont alors arrêtés.
+     */
+    public void export(String supplier, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        try {
+            exports.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try {
+            Queue<LocalDate> pending = new ConcurrentLinkedQueue<>(from.datesUntil(to.plusDays(1)).toList());
+            BlockingQueue<Chunk> pages = new ArrayBlockingQueue<>(maxInFlightPages);
+            int readers = Math.min(parallelism, pending.size());
+            for (int i = 0; i < readers; i++) {
+                scanPool.execute(() -> read(supplier, pending, pages, cancelled));
+            }
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            int finished = 0;
+            while (finished < readers) {
+                Chunk chunk = pages.take();
+                if (chunk.error != null) {
+                    throw new IOException("Lecture de l'historique interrompue", chunk.error);
+                }
+                if (chunk.rows == null) {
+                    finished++;
+                    continue;
+                }
+                for (History history : chunk.rows) {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, history);
+                    } else {
+                        jsonWriter.writeValue(writer, history);
+                        writer.write('\n');
+                    }
+                }
+                writer.flush();
+            }
+            writer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        } finally {
+            cancelled.set(true);
+            exports.release();
+        }
+    }
+
+    // Lecteur : prend des jours tant qu'il en reste, puis signale sa fin (rows == null)
+    private void read(String supplier, Queue<LocalDate> pending, BlockingQueue<Chunk> pages, AtomicBoolean cancelled) {
+        try {
+            LocalDate day;
+            while (!cancelled.get() && (day = pending.poll()) != null) {
+                historyExportRepository.scan(supplier, day, pageSize, page -> put(pages, new Chunk(page, null), cancelled));
+            }
+            put(pages, new Chunk(null, null), cancelled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            try {
+                put(pages, new Chunk(null, e), cancelled);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Attend une place dans la file ; false si l'export a été abandonné entre-temps
+    private static boolean put(BlockingQueue<Chunk> pages, Chunk chunk, AtomicBoolean cancelled) throws InterruptedException {
+        while (!cancelled.get()) {
+            if (pages.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeCsv(Writer writer, History history) throws IOException {
+        writer.write(history.getId() != null ? history.getId().toString() : "");
+        writer.write(',');
+        writer.write(history.getClientId() != null ? history.getClientId().toString() : "");
+        writer.write(',');
+        writer.write(history.getChauffeurId() != null ? history.getChauffeurId().toString() : "");
+        writer.write(',');
+        writer.write(history.getCourseId() != null ? history.getCourseId().toString() : "");
+        for (String field : new String[]{history.getLieu(), history.getFournisseur(), history.getHeure(),
+                history.getDate(), history.getVille(), history.getPays()}) {
+            writer.write(',');
+            writeCsvField(writer, field);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdownNow();
+    }
+
+    private record Chunk(List<History> rows, RuntimeException error) {
+    }
+}
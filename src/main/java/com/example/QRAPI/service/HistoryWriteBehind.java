@@ -0,0 +1,179 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import com.example.QRAPI.repository.HistoryByProviderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture différée (write-behind) de l'historique des scans.
+ * Le scan dépose l'entrée dans une file bornée et répond aussitôt ; un thread d'écriture la vide
+ * par lots de {@code batch-size} entrées envoyées en requêtes asynchrones pipelinées (chaque ligne
+ * de history est sa propre partition, un batch multi-partitions ne ferait que charger le
+ * coordinateur). Dans history_by_provider, les entrées d'un lot sont regroupées par partition
+ * (fournisseur, jour) : un batch non loggé par partition. Si la file reste pleine plus de
+ * {@code offer-timeout}, l'appelant écrit lui-même de façon synchrone : la contre-pression ralentit
+ * le scan sans perdre d'historique.
+ * La file est vidée à l'arrêt, après celui du serveur web.
+ */
+@Service
+public class HistoryWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryWriteBehind.class);
+
+    private final AsyncQRRepository asyncQRRepository;
+    private final HistoryByProviderRepository historyByProviderRepository;
+    private final BlockingQueue<History> queue;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Timer flushTimer;
+    private final Counter overflowCounter;
+    private final Counter failureCounter;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public HistoryWriteBehind(AsyncQRRepository asyncQRRepository, HistoryByProviderRepository historyByProviderRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${qrapi.history.write-behind.capacity:10000}") int capacity,
+                              @Value("${qrapi.history.write-behind.batch-size:100}") int batchSize,
+                              @Value("${qrapi.history.write-behind.offer-timeout:50ms}") Duration offerTimeout) {
+        this.asyncQRRepository = asyncQRRepository;
+        this.historyByProviderRepository = historyByProviderRepository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        Gauge.builder("history.writebehind.queue.size", queue, BlockingQueue::size)
+                .description("Entrées d'historique en attente d'écriture")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("history.writebehind.flush")
+                .description("Durée d'écriture d'un lot d'historique")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("history.writebehind.overflow")
+                .description("Écritures synchrones faute de place dans la file")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("history.writebehind.failures")
+                .description("Entrées d'historique dont l'écriture a échoué")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Met l'entrée en file d'écriture. Bloque au plus {@code offer-timeout} si la file est pleine,
+     * puis l'écrit de façon synchrone. L'identifiant (s'il manque) et l'instant du scan sont fixés ici, pas à l'écriture.
+     */
+    public void submit(History history) {
+        // Clé primaire de history : une entrée sans id échouerait sur le thread d'écriture, après la réponse
+        if (history.getId() == null) {
+            history.setId(UUID.randomUUID());
+        }
+        if (history.getScannedAt() == null) {
+            history.setScannedAt(Uuids.timeBased());
+        }
+        try {
+            if (running && queue.offer(history, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        overflowCounter.increment();
+        flush(List.of(history));
+    }
+
+    private void drainLoop() {
+        List<History> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                History first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // stop() : on termine la vidange de la file
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<History> batch) {
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> writes = new ArrayList<>(batch.size() * 2);
+        Map<Partition, List<History>> partitions = new HashMap<>();
+        for (History history : batch) {
+            writes.add(asyncQRRepository.saveHistory(history));
+            if (history.getFournisseur() != null) {
+                Partition partition = new Partition(history.getFournisseur(), HistoryByProviderRepository.day(history.getScannedAt()));
+                partitions.computeIfAbsent(partition, p -> new ArrayList<>()).add(history);
+            }
+        }
+        for (List<History> rows : partitions.values()) {
+            writes.add(historyByProviderRepository.savePartition(rows));
+        }
+        for (CompletableFuture<?> write : writes) {
+            try {
+                write.join();
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                log.warn("Echec d'écriture de l'historique : {}", e.getMessage());
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private record Partition(String supplier, LocalDate day) {
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "history-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Arrêt après le serveur web (DEFAULT_PHASE - 2048) : plus aucun scan n'arrive pendant la vidange
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
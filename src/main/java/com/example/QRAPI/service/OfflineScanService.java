@@ -0,0 +1,142 @@
+package com.example.QRAPI.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.OfflineScanRepository;
+import io.jsonwebtoken.Claims;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Réception des scans faits hors ligne par les lecteurs (vérification locale avec la clé publique
+ * ES256 et la liste de révocation), envoyés par lots une fois la connexion retrouvée.
+ * Chaque scan suit le chemin de /api/qr/scan, l'expiration du token étant jugée à l'instant du scan et
+ * non à celui de l'envoi. Un code épuisé entre-temps ({@link Status#USED}) a déjà été accepté par le
+ * lecteur : l'historique est enregistré quand même, le statut signale le dépassement.
+ * Chaque scan porte l'identifiant de son historique, choisi par le lecteur, et son instant de lecture.
+ * L'identifiant est réservé dans offline_scans avant toute consommation : un lot renvoyé après une
+ * coupure ({@link Status#DUPLICATE}) ne consomme pas une deuxième utilisation, n'est pas recompté et
+ * n'écrit pas d'historique. La réservation est libérée si le scan n'a pas pu être traité
+ * ({@link Status#BUSY}) : le lecteur le renvoie.
+ */
+@Service
+public class OfflineScanService {
+
+    public enum Status { OK, INVALID, EXPIRED, UNKNOWN, USED, BUSY, DUPLICATE }
+
+    /**
+     * Scan hors ligne : contenu du QR Code, instant de lecture sur le lecteur, informations du scan
+     * (identifiant compris).
+     */
+    public record OfflineScan(String qrCodeData, Instant scannedAt, History history) {
+
+        /** Instant de lecture et identifiant d'historique renseignés : le scan peut être dédoublonné. */
+        public boolean isComplete() {
+            return scannedAt != null && history != null && history.getId() != null;
+        }
+    }
+
+    public record OfflineScanResult(int index, Status status) {
+    }
+
+    private final QRCodeService qrCodeService;
+    private final ScanService scanService;
+    private final ScanUsageService scanUsageService;
+    private final OfflineScanRepository offlineScanRepository;
+    private final RetentionPolicy retentionPolicy;
+    private final HistoryWriteBehind historyWriteBehind;
+    private final ScanAggregator scanAggregator;
+    private final ScanMetrics scanMetrics;
+
+    public OfflineScanService(QRCodeService qrCodeService, ScanService scanService, ScanUsageService scanUsageService,
+                              OfflineScanRepository offlineScanRepository, RetentionPolicy retentionPolicy,
+                              HistoryWriteBehind historyWriteBehind, ScanAggregator scanAggregator, ScanMetrics scanMetrics) {
+        this.qrCodeService = qrCodeService;
+        this.scanService = scanService;
+        this.scanUsageService = scanUsageService;
+        this.offlineScanRepository = offlineScanRepository;
+        this.retentionPolicy = retentionPolicy;
+        this.historyWriteBehind = historyWriteBehind;
+        this.scanAggregator = scanAggregator;
+        this.scanMetrics = scanMetrics;
+    }
+
+    /**
+     * @param scans Scans complets ({@link OfflineScan#isComplete()}, vérifié par le contrôleur).
+     * @param secret Secret des codes HS256 du lot, null si tous sont en ES256.
+     * @return Un résultat par scan, dans l'ordre du lot.
+     */
+    public List<OfflineScanResult> upload(List<OfflineScan> scans, String secret) {
+        List<OfflineScanResult> results = new ArrayList<>(scans.size());
+        for (int i = 0; i < scans.size(); i++) {
+            results.add(new OfflineScanResult(i, process(scans.get(i), secret)));
+        }
+        return results;
+    }
+
+    private Status process(OfflineScan scan, String secret) {
+        if (scan.qrCodeData() == null) {
+            return reject(Status.INVALID, ScanMetrics.Outcome.INVALID_SIGNATURE);
+        }
+        QRCodeService.Verification verification = qrCodeService.verify(scan.qrCodeData(), secret);
+        if (verification.claims() == null) {
+            return reject(Status.INVALID, ScanMetrics.Outcome.INVALID_SIGNATURE);
+        }
+        Claims claims = verification.claims();
+        // Horloge du lecteur bornée par celle du serveur : un scan ne peut pas être daté du futur
+        long scannedAt = Math.min(scan.scannedAt().toEpochMilli(), System.currentTimeMillis());
+        if (claims.getExpiration().getTime() <= scannedAt) {
+            return reject(Status.EXPIRED, ScanMetrics.Outcome.EXPIRED);
+        }
+        QRLookup lookup = scanService.processScan(claims.getSubject(), claims.getExpiration());
+        if (lookup == null) {
+            return reject(Status.UNKNOWN, ScanMetrics.Outcome.UNKNOWN_HASH);
+        }
+        // Réservé aussi longtemps que le code est reconnu : un renvoi plus tardif répondrait déjà UNKNOWN
+        History history = scan.history();
+        Duration ttl = retentionPolicy.ttlUntil(claims.getExpiration());
+        if (!offlineScanRepository.claim(history.getId(), ttl != null ? (int) ttl.toSeconds() : 0)) {
+            return Status.DUPLICATE;
+        }
+        Status status = Status.OK;
+        switch (scanUsageService.consume(lookup, claims.getExpiration())) {
+            case CONTENDED:
+                offlineScanRepository.release(history.getId());
+                return reject(Status.BUSY, ScanMetrics.Outcome.CONTENDED);
+            case EXHAUSTED:
+                status = Status.USED;
+                break;
+            default:
+                break;
+        }
+
+        QRData data = lookup.toQRData();
+        history.setScannedAt(scannedAt(scannedAt, history.getId()));
+        history.setClientId(data.getClientId());
+        history.setChauffeurId(data.getChauffeurId());
+        history.setCourseId(data.getCourseId());
+        history.setFournisseur(data.getFournisseur());
+        historyWriteBehind.submit(history);
+        scanAggregator.record(history.getFournisseur(), history.getVille(), history.getPays());
+        scanMetrics.record(ScanMetrics.Source.OFFLINE, status == Status.OK ? ScanMetrics.Outcome.VALID : ScanMetrics.Outcome.USED);
+        return status;
+    }
+
+    private Status reject(Status status, ScanMetrics.Outcome outcome) {
+        scanMetrics.record(ScanMetrics.Source.OFFLINE, outcome);
+        return status;
+    }
+
+    // timeuuid daté de l'instant du scan ; partie basse tirée de l'id de l'historique, donc stable d'un envoi à l'autre
+    private static UUID scannedAt(long millis, UUID id) {
+        long lsb = (id.getLeastSignificantBits() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(Uuids.startOf(millis).getMostSignificantBits(), lsb);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.security.CompactToken;
+import com.example.QRAPI.security.EcCompactToken;
+import com.example.QRAPI.security.JwtKeyRegistry;
+import com.example.QRAPI.security.QRSigningKeys;
+import com.example.QRAPI.service.render.RenderOptions;
+import com.google.zxing.WriterException;
+import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opérations élémentaires sur les QR Codes : hachage, signature, vérification et rendu.
+ * Partagées entre la génération unitaire et la génération par lot.
+ * Deux familles de signature : HS256 avec le {@code secret} de l'appelant, ou ES256 avec la clé
+ * active de {@link QRSigningKeys}, vérifiable hors ligne par les lecteurs avec la clé publique.
+ */
+@Service
+public class QRCodeService {
+
+    /** Résultat de la vérification d'un token de QR Code. */
+    public enum TokenStatus { VALID, EXPIRED, INVALID }
+
+    /**
+     * {@code claims} renseignés si la signature est valide : {@code status} VALID, ou EXPIRED (pour juger
+     * un scan hors ligne à son instant de lecture).
+     */
+    public record Verification(TokenStatus status, Claims claims) {
+        static final Verification INVALID = new Verification(TokenStatus.INVALID, null);
+    }
+
+    private final JwtKeyRegistry keyRegistry;
+    private final QRSigningKeys signingKeys;
+    private final QRImageRenderer qrImageRenderer;
+    private final Timer verifyTimer;
+    private final Timer signJwtTimer;
+    private final Timer signCompactTimer;
+    private final Timer signJwtEcTimer;
+    private final Timer signCompactEcTimer;
+
+    public QRCodeService(JwtKeyRegistry keyRegistry, QRSigningKeys signingKeys, QRImageRenderer qrImageRenderer, MeterRegistry meterRegistry) {
+        this.keyRegistry = keyRegistry;
+        this.signingKeys = signingKeys;
+        this.qrImageRenderer = qrImageRenderer;
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .tag("token", "qr")
+                .description("Durée de vérification de signature d'un token")
+                .register(meterRegistry);
+        this.signJwtTimer = signTimer(meterRegistry, "jwt", "hs256");
+        this.signCompactTimer = signTimer(meterRegistry, "compact", "hs256");
+        this.signJwtEcTimer = signTimer(meterRegistry, "jwt", "es256");
+        this.signCompactEcTimer = signTimer(meterRegistry, "compact", "es256");
+    }
+
+    private static Timer signTimer(MeterRegistry meterRegistry, String format, String alg) {
+        return Timer.builder("jwt.sign")
+                .tag("format", format)
+                .tag("alg", alg)
+                .description("Durée de signature d'un QR Code")
+                .register(meterRegistry);
+    }
+
+    public String signData(String data, String secret, long expirationMillis) {
+        Key key = keyRegistry.signingKey(secret);
+        Date now = new Date();
+        Date expiration = new Date(now.getTime() + expirationMillis);
+
+        return Jwts.builder()
+                .setSubject(data)
+                .setIssuedAt(now)
+                .setExpiration(expiration)
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Variante compacte de {@link #signData} ({@link CompactToken}) : QR Code plus petit, plus
+     * rapide à encoder et à lire par la caméra.
+     */
+    public String signCompact(String data, String secret, long expirationMillis) {
+        return CompactToken.sign(data, keyRegistry.signingKey(secret), new Date(System.currentTimeMillis() + expirationMillis));
+    }
+
+    /** JWT ES256 signé par la clé active du registre, {@code kid} dans l'en-tête. */
+    public String signDataEc(String data, long expirationMillis) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeys.activeKid())
+                .setSubject(data)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + expirationMillis))
+                .signWith(signingKeys.signingKey(), SignatureAlgorithm.ES256)
+                .compact();
+    }
+
+    /** Variante compacte de {@link #signDataEc} ({@link EcCompactToken}). */
+    public String signCompactEc(String data, long expirationMillis) {
+        return EcCompactToken.sign(data, signingKeys.activeKid(), signingKeys.signingKey(),
+                new Date(System.currentTimeMillis() + expirationMillis));
+    }
+
+    /**
+     * @param secret Secret HS256, ou null pour signer en ES256 avec la clé active du registre.
+     */
+    public String sign(String data, String secret, long expirationMillis, boolean compact) {
+        long start = System.nanoTime();
+        String token;
+        Timer timer;
+        if (secret == null) {
+            token = compact ? signCompactEc(data, expirationMillis) : signDataEc(data, expirationMillis);
+            timer = compact ? signCompactEcTimer : signJwtEcTimer;
+        } else {
+            token = compact ? signCompact(data, secret, expirationMillis) : signData(data, secret, expirationMillis);
+            timer = compact ? signCompactTimer : signJwtTimer;
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
+    }
+
+    public String verifySignature(String token, String secret) {
+        Claims claims = verifyClaims(token, secret);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du token, JWT ou compact ; renvoie ses claims (hash en
+     * {@code sub}, expiration en {@code exp}) ou null si le token est invalide ou expiré.
+     * Les tokens ES256 sont vérifiés avec la clé publique de leur {@code kid}, {@code secret} est alors ignoré.
+     */
+    public Claims verifyClaims(String token, String secret) {
+        Verification verification = verify(token, secret);
+        return verification.status() == TokenStatus.VALID ? verification.claims() : null;
+    }
+
+    /**
+     * Comme {@link #verifyClaims}, en distinguant un token expiré d'un token invalide (signature,
+     * format ou clé inconnue).
+     */
+    public Verification verify(String token, String secret) {
+        long start = System.nanoTime();
+        try {
+            return verifyToken(token, secret);
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Verification verifyToken(String token, String secret) {
+        try {
+            if (EcCompactToken.isCompact(token)) {
+                return compactVerification(EcCompactToken.verifySignature(token, signingKeys::publicKey));
+            }
+            if (CompactToken.isCompact(token)) {
+                return secret == null ? Verification.INVALID
+                        : compactVerification(CompactToken.verifySignature(token, keyRegistry.signingKey(secret)));
+            }
+            JwtParser parser;
+            if (QRSigningKeys.isAsymmetricJwt(token)) {
+                parser = signingKeys.parser();
+            } else if (secret != null) {
+                parser = keyRegistry.parser(secret);
+            } else {
+                return Verification.INVALID;
+            }
+            return new Verification(TokenStatus.VALID, parser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            return new Verification(TokenStatus.EXPIRED, e.getClaims());
+        } catch (JwtException e) {
+            return Verification.INVALID;
+        }
+    }
+
+    private static Verification compactVerification(Claims claims) {
+        if (claims == null) {
+            return Verification.INVALID;
+        }
+        if (claims.getExpiration().getTime() <= System.currentTimeMillis()) {
+            return new Verification(TokenStatus.EXPIRED, claims);
+        }
+        return new Verification(TokenStatus.VALID, claims);
+    }
+
+    public byte[] generateQRCodeImageFromData(String qrData) throws WriterException {
+        return qrImageRenderer.renderPng(qrData);
+    }
+
+    public byte[] generateQRCodeImageFromData(String qrData, RenderOptions options) throws WriterException {
+        return qrImageRenderer.render(qrData, options);
+    }
+}
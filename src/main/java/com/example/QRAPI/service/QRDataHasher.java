@@ -0,0 +1,218 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.BoundedPool;
+import com.example.QRAPI.model.QRData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash SHA-256 d'un {@link QRData} sans passer par {@code toString()}.
+ * Les champs sont écrits un par un dans un digest réutilisé ({@link BoundedPool}), avec exactement les octets
+ * du JSON de {@code QRData.toString()} : le hash est identique au SHA-256 de ce JSON (ancien chemin,
+ * conservé dans {@code QRHashBenchmark}), les QR Codes existants restent donc valides. L'encodage
+ * hexadécimal passe par une table et un tableau de caractères préalloué ; seule la chaîne
+ * résultat est allouée.
+ */
+@Component
+public class QRDataHasher {
+
+    private static final byte[] ID = ascii("{\"id\":\"");
+    private static final byte[] CLIENT_ID = ascii("\",\"clientId\":");
+    private static final byte[] CHAUFFEUR_ID = ascii(",\"chauffeurId\":");
+    private static final byte[] COURSE_ID = ascii(",\"courseId\":");
+    private static final byte[] LIEU = ascii(",\"lieu\":\"");
+    private static final byte[] FOURNISSEUR = ascii("\",\"fournisseur\":\"");
+    private static final byte[] HEURE = ascii("\",\"heure\":\"");
+    private static final byte[] DATE = ascii("\",\"date\":\"");
+    private static final byte[] VILLE = ascii("\",\"ville\":\"");
+    private static final byte[] PAYS = ascii("\",\"pays\":\"");
+    private static final byte[] END = ascii("\"}");
+    private static final byte[] NULL = ascii("null");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final BoundedPool<State> STATE = new BoundedPool<>(State::new);
+
+    private final Timer hashTimer;
+
+    public QRDataHasher(MeterRegistry meterRegistry) {
+        this.hashTimer = Timer.builder("qr.hash")
+                .description("Durée du hash SHA-256 des données d'un QR Code")
+                .register(meterRegistry);
+    }
+
+    public String hash(QRData qrData) {
+        long start = System.nanoTime();
+        String hash = digest(qrData);
+        hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return hash;
+    }
+
+    private static String digest(QRData qrData) {
+        State state = STATE.acquire();
+        try {
+            return digest(qrData, state);
+        } finally {
+            STATE.release(state);
+        }
+    }
+
+    private static String digest(QRData qrData, State state) {
+        MessageDigest digest = state.digest;
+        digest.reset();
+
+        digest.update(ID);
+        state.update(qrData.getId());
+        digest.update(CLIENT_ID);
+        state.update(qrData.getClientId());
+        digest.update(CHAUFFEUR_ID);
+        state.update(qrData.getChauffeurId());
+        digest.update(COURSE_ID);
+        state.update(qrData.getCourseId());
+        digest.update(LIEU);
+        state.update(qrData.getLieu());
+        digest.update(FOURNISSEUR);
+        state.update(qrData.getFournisseur());
+        digest.update(HEURE);
+        state.update(qrData.getHeure());
+        digest.update(DATE);
+        state.update(qrData.getDate());
+        digest.update(VILLE);
+        state.update(qrData.getVille());
+        digest.update(PAYS);
+        state.update(qrData.getPays());
+        digest.update(END);
+
+        return state.hex();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class State {
+        final MessageDigest digest;
+        final byte[] hash = new byte[32];
+        final char[] hex = new char[64];
+        byte[] scratch = new byte[64];
+
+        State() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String hex() {
+            try {
+                digest.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+                hex[i * 2 + 1] = HEX[hash[i] & 0x0F];
+            }
+            return new String(hex);
+        }
+
+        // Même rendu que UUID.toString()
+        void update(UUID id) {
+            if (id == null) {
+                digest.update(NULL);
+                return;
+            }
+            long msb = id.getMostSignificantBits();
+            long lsb = id.getLeastSignificantBits();
+            int p = 0;
+            p = hexDigits(msb >>> 32, 8, p);
+            scratch[p++] = '-';
+            p = hexDigits(msb >>> 16, 4, p);
+            scratch[p++] = '-';
+            p = hexDigits(msb, 4, p);
+            scratch[p++] = '-';
+            p = hexDigits(lsb >>> 48, 4, p);
+            scratch[p++] = '-';
+            p = hexDigits(lsb, 12, p);
+            digest.update(scratch, 0, p);
+        }
+
+        private int hexDigits(long value, int digits, int offset) {
+            for (int i = digits - 1; i >= 0; i--) {
+                scratch[offset + i] = (byte) HEX[(int) (value & 0x0F)];
+                value >>>= 4;
+            }
+            return offset + digits;
+        }
+
+        // Même rendu que String.valueOf(Long)
+        void update(Long value) {
+            if (value == null) {
+                digest.update(NULL);
+                return;
+            }
+            long v = value;
+            if (v == Long.MIN_VALUE) {
+                digest.update(ascii(Long.toString(v)));
+                return;
+            }
+            int p = scratch.length;
+            boolean negative = v < 0;
+            if (negative) {
+                v = -v;
+            }
+            do {
+                scratch[--p] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v != 0);
+            if (negative) {
+                scratch[--p] = '-';
+            }
+            digest.update(scratch, p, scratch.length - p);
+        }
+
+        // Même rendu que String.valueOf(s).getBytes(UTF_8), surrogates isolés remplacés par '?'
+        void update(String s) {
+            if (s == null) {
+                digest.update(NULL);
+                return;
+            }
+            int length = s.length();
+            if (scratch.length < length * 3) {
+                scratch = new byte[Math.max(length * 3, scratch.length * 2)];
+            }
+            int p = 0;
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    scratch[p++] = (byte) c;
+                } else if (c < 0x800) {
+                    scratch[p++] = (byte) (0xC0 | (c >> 6));
+                    scratch[p++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    scratch[p++] = (byte) (0xF0 | (cp >> 18));
+                    scratch[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    scratch[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    scratch[p++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    scratch[p++] = '?';
+                } else {
+                    scratch[p++] = (byte) (0xE0 | (c >> 12));
+                    scratch[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    scratch[p++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            digest.update(scratch, 0, p);
+        }
+    }
+}
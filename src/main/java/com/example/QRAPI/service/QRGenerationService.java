@@ -0,0 +1,301 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import com.example.QRAPI.repository.IdempotencyRepository;
+import com.example.QRAPI.repository.IdempotencyRepository.ClaimResult;
+import com.example.QRAPI.repository.IdempotencyRepository.Generation;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération d'un QR Code (lignes qr_data / qr_hash / qr_lookup et token signé), dédupliquée par clé
+ * d'idempotence : header {@code Idempotency-Key}, ou à défaut fournisseur + courseId + clientId. Les
+ * relances du dispatch après un timeout renvoient le token déjà généré, sans nouvelle écriture.
+ * <ul>
+ *     <li>Sur le nœud : une génération par clé, les requêtes simultanées attendent la même
+ *     ({@link AsyncCache}), et le résultat reste en mémoire jusqu'à {@code window}.</li>
+ *     <li>Entre nœuds : la clé est réservée par LWT dans qr_idempotency avant toute écriture ; une relance
+ *     arrivée sur un autre nœud reçoit le token enregistré dans la réponse du LWT.</li>
+ * </ul>
+ * Une clé réservée dont les écritures ont échoué est complétée par la relance suivante : elle retrouve le
+ * hash et les identifiants enregistrés, constate l'absence de la ligne qr_lookup et réécrit les trois lignes.
+ * La clé vaut au plus {@code window} et jamais au-delà de l'expiration du token. Elle est liée à l'empreinte
+ * de la requête qui l'a réservée : une requête différente avec la même clé est refusée. La révocation du code
+ * libère la clé ({@link #release}) : la relance suivante génère un nouveau code.
+ */
+@Service
+public class QRGenerationService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * @param replayed Token d'une génération précédente de la même clé.
+     * @param writes   Écritures des lignes, à attendre avant de répondre (déjà terminées pour un rejeu).
+     */
+    public record Generated(String token, boolean replayed, CompletableFuture<Void> writes) {
+    }
+
+    /** Clé d'idempotence déjà réservée par une requête différente (contenu ou options de signature). */
+    public static class IdempotencyKeyReusedException extends RuntimeException {
+        public IdempotencyKeyReusedException(String key) {
+            super("Clé d'idempotence déjà utilisée pour une autre requête : " + key);
+        }
+    }
+
+    private final QRCodeService qrCodeService;
+    private final QRDataHasher qrDataHasher;
+    private final AsyncQRRepository asyncQRRepository;
+    private final IdempotencyRepository idempotencyRepository;
+    private final RetentionPolicy retentionPolicy;
+    private final RevocationService revocationService;
+    private final AsyncCache<String, Entry> generations;
+    private final long windowMillis;
+    private final boolean deriveKey;
+    private final Counter createdCounter;
+    private final Counter localReplayCounter;
+    private final Counter storedReplayCounter;
+    private final Counter completedCounter;
+
+    public QRGenerationService(QRCodeService qrCodeService, QRDataHasher qrDataHasher, AsyncQRRepository asyncQRRepository,
+                               IdempotencyRepository idempotencyRepository, RetentionPolicy retentionPolicy,
+                               RevocationService revocationService, MeterRegistry meterRegistry,
+                               @Value("${qrapi.idempotency.window:24h}") Duration window,
+                               @Value("${qrapi.idempotency.cache.max-size:50000}") long maxSize,
+                               @Value("${qrapi.idempotency.derive-key:true}") boolean deriveKey) {
+        this.qrCodeService = qrCodeService;
+        this.qrDataHasher = qrDataHasher;
+        this.asyncQRRepository = asyncQRRepository;
+        this.idempotencyRepository = idempotencyRepository;
+        this.retentionPolicy = retentionPolicy;
+        this.revocationService = revocationService;
+        this.windowMillis = window.toMillis();
+        this.deriveKey = deriveKey;
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, generations.synchronous(), "idempotencyCache");
+        this.createdCounter = idempotencyCounter(meterRegistry, "created");
+        this.localReplayCounter = idempotencyCounter(meterRegistry, "replayed_local");
+        this.storedReplayCounter = idempotencyCounter(meterRegistry, "replayed_stored");
+        this.completedCounter = idempotencyCounter(meterRegistry, "completed");
+    }
+
+    private static Counter idempotencyCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("qr.generate.idempotency")
+                .tag("result", result)
+                .description("Générations avec clé d'idempotence, par résultat")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Clé d'idempotence de la requête, propre au fournisseur.
+     * @param idempotencyKey Valeur du header {@code Idempotency-Key}, null si absent.
+     * @return null si la requête n'a pas de clé (ni header, ni courseId, ou dérivation désactivée).
+     */
+    public String key(String fournisseur, String idempotencyKey, QRData qrData) {
+        // Préfixe de longueur : un nom de fournisseur ne peut pas déborder sur la clé
+        String scope = fournisseur.length() + ":" + fournisseur;
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException("Idempotency-Key doit contenir entre 1 et " + MAX_KEY_LENGTH + " caractères");
+            }
+            return scope + ":key:" + idempotencyKey;
+        }
+        if (!deriveKey || qrData.getCourseId() == null) {
+            return null;
+        }
+        return scope + ":course:" + qrData.getCourseId() + ":" + qrData.getClientId();
+    }
+
+    /**
+     * Génère le QR Code de {@code qrData}, ou renvoie celui déjà généré pour {@code key}.
+     * @param key    Clé d'idempotence ({@link #key}), null pour toujours générer.
+     * @param secret Secret HS256, ou null pour signer en ES256.
+     * @throws IdempotencyKeyReusedException si {@code key} a déjà servi pour une autre requête.
+     */
+    public Generated generate(String key, QRData qrData, String fournisseur, String secret, long expirationMillis,
+                              boolean compact, Integer maxUses) {
+        if (key == null) {
+            QRHash qrHash = prepare(qrData, fournisseur);
+            // Écritures en vol pendant la signature et l'encodage de l'image
+            CompletableFuture<Void> writes = asyncQRRepository.saveGenerated(qrData, qrHash, maxUses, retentionPolicy.ttl(expirationMillis));
+            return new Generated(qrCodeService.sign(qrHash.getHash(), secret, expirationMillis, compact), false, writes);
+        }
+
+        String fingerprint = fingerprint(qrData, secret, expirationMillis, compact, maxUses);
+        while (true) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            CompletableFuture<Entry> inFlight = generations.asMap().putIfAbsent(key, created);
+            if (inFlight != null) {
+                Entry entry = inFlight.join();
+                if (revocationService.isRevoked(entry.hash())) {
+                    // Code révoqué sur un autre nœud depuis sa génération : la clé repasse par le LWT
+                    generations.asMap().remove(key, inFlight);
+                    continue;
+                }
+                checkFingerprint(key, entry.fingerprint(), fingerprint);
+                localReplayCounter.increment();
+                return new Generated(entry.token(), true, CompletableFuture.completedFuture(null));
+            }
+            try {
+                Claimed claimed = claimAndWrite(key, qrData, fournisseur, secret, expirationMillis, compact, maxUses, fingerprint);
+                // Les requêtes en attente reçoivent le token une fois les lignes écrites ; en cas d'échec
+                // l'entrée est retirée du cache et la relance suivante reprend par le LWT
+                Generation generation = claimed.generation();
+                Entry entry = new Entry(generation.token(), generation.hash(), generation.fingerprint(),
+                        System.currentTimeMillis() + Math.min(windowMillis, expirationMillis));
+                claimed.generated().writes().whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        created.complete(entry);
+                    } else {
+                        created.completeExceptionally(error);
+                    }
+                });
+                return claimed.generated();
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Libère la clé d'idempotence du code {@code hash} (révocation) : une relance de la même clé génère un
+     * nouveau code au lieu de rendre le token révoqué, ou de réécrire ses lignes.
+     */
+    public void release(String hash) {
+        idempotencyRepository.releaseByHash(hash);
+        generations.asMap().forEach((key, future) -> {
+            Entry entry = future.getNow(null);
+            if (entry != null && entry.hash().equals(hash)) {
+                generations.asMap().remove(key, future);
+            }
+        });
+    }
+
+    private Claimed claimAndWrite(String key, QRData qrData, String fournisseur, String secret, long expirationMillis,
+                                  boolean compact, Integer maxUses, String fingerprint) {
+        QRHash qrHash = prepare(qrData, fournisseur);
+        String token = qrCodeService.sign(qrHash.getHash(), secret, expirationMillis, compact);
+        Generation generation = new Generation(token, qrHash.getHash(), qrData.getId(), qrHash.getId(), fingerprint, Instant.now());
+        int ttlSeconds = (int) Math.max(1, Math.ceilDiv(Math.min(windowMillis, expirationMillis), 1000L));
+        Duration ttl = retentionPolicy.ttl(expirationMillis);
+
+        ClaimResult claim = idempotencyRepository.claim(key, generation, ttlSeconds);
+        if (!claim.applied() && revocationService.isRevoked(claim.stored().hash())) {
+            // Clé d'un code révoqué dont la libération n'a pas abouti : libérée ici, une seule fois
+            idempotencyRepository.release(key, claim.stored().hash());
+            claim = idempotencyRepository.claim(key, generation, ttlSeconds);
+        }
+        // Un LWT rejoué par le driver après un timeout peut trouver la ligne qu'il vient d'écrire
+        if (claim.applied() || token.equals(claim.stored().token())) {
+            createdCounter.increment();
+            return new Claimed(new Generated(token, false, asyncQRRepository.saveGenerated(qrData, qrHash, maxUses, ttl)), generation);
+        }
+
+        Generation stored = claim.stored();
+        checkFingerprint(key, stored.fingerprint(), fingerprint);
+        if (!revocationService.isRevoked(stored.hash()) && asyncQRRepository.findLookup(stored.hash()).join() == null) {
+            // Génération précédente interrompue entre la réservation et les écritures : mêmes identifiants,
+            // les lignes sont des upserts. Datées de la réservation : si le code est révoqué entre-temps,
+            // la suppression de /revoke, postérieure, l'emporte sur la réécriture
+            qrData.setId(stored.qrDataId());
+            QRHash storedHash = new QRHash();
+            storedHash.setId(stored.qrHashId());
+            storedHash.setHash(stored.hash());
+            storedHash.setQrDataId(stored.qrDataId());
+            completedCounter.increment();
+            return new Claimed(new Generated(stored.token(), true,
+                    asyncQRRepository.saveGenerated(qrData, storedHash, maxUses, ttl, stored.createdAt())), stored);
+        }
+        storedReplayCounter.increment();
+        return new Claimed(new Generated(stored.token(), true, CompletableFuture.completedFuture(null)), stored);
+    }
+
+    // Une clé réservée avant l'ajout de l'empreinte (null) est acceptée
+    private static void checkFingerprint(String key, String stored, String fingerprint) {
+        if (stored != null && !stored.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+    }
+
+    /**
+     * Empreinte de la requête conservée avec la clé : contenu du QR Code et options de signature. Le
+     * fournisseur fait déjà partie de la clé ; les options de rendu de l'image peuvent changer d'une relance
+     * à l'autre.
+     */
+    static String fingerprint(QRData qrData, String secret, long expirationMillis, boolean compact, Integer maxUses) {
+        StringBuilder fields = new StringBuilder();
+        for (Object field : new Object[]{qrData.getClientId(), qrData.getChauffeurId(), qrData.getCourseId(), qrData.getLieu(),
+                qrData.getHeure(), qrData.getDate(), qrData.getVille(), qrData.getPays(),
+                secret == null ? "es256" : "hs256", compact, expirationMillis, maxUses}) {
+            // Préfixe de longueur, "-" pour null : deux requêtes différentes ne donnent jamais la même chaîne
+            if (field == null) {
+                fields.append('-');
+            } else {
+                String value = field.toString();
+                fields.append(value.length()).append(':').append(value);
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fields.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private QRHash prepare(QRData qrData, String fournisseur) {
+        qrData.setId(UUID.randomUUID());
+        qrData.setFournisseur(fournisseur);
+
+        QRHash qrHash = new QRHash();
+        qrHash.setId(UUID.randomUUID());
+        qrHash.setHash(qrDataHasher.hash(qrData));
+        qrHash.setQrDataId(qrData.getId());
+        return qrHash;
+    }
+
+    private record Claimed(Generated generated, Generation generation) {
+    }
+
+    private record Entry(String token, String hash, String fingerprint, long expiresAtMillis) {
+    }
+
+    private static class EntryExpiry implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
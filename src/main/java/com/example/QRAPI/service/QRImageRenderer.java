@@ -0,0 +1,102 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.service.render.PngEncoder;
+import com.example.QRAPI.service.render.QRMatrix;
+import com.example.QRAPI.service.render.RawMatrixEncoder;
+import com.example.QRAPI.service.render.RenderOptions;
+import com.example.QRAPI.service.render.SvgEncoder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.WriterException;
+import com.example.QRAPI.service.render.QRFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu des QR Codes (PNG 1 bit, SVG ou matrice brute) sans {@code BufferedImage}.
+ * Les rendus sont mis en cache par contenu signé et options : retélécharger un même QR Code ne
+ * réencode rien. Le cache est borné en octets (clé + image).
+ */
+@Service
+public class QRImageRenderer {
+
+    private final Cache<RenderKey, byte[]> images;
+    private final Timer encodeTimer;
+    private final Map<QRFormat, Timer> writeTimers = new EnumMap<>(QRFormat.class);
+
+    public QRImageRenderer(MeterRegistry meterRegistry,
+                           @Value("${qrapi.render-cache.max-bytes:67108864}") long maxBytes,
+                           @Value("${qrapi.render-cache.expire-after-access:1h}") Duration expireAfterAccess) {
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<RenderKey, byte[]>weigher((key, image) -> key.content().length() * 2 + image.length)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "qrImageCache");
+        this.encodeTimer = Timer.builder("qr.encode")
+                .description("Durée de l'encodage ZXing du contenu en matrice")
+                .register(meterRegistry);
+        for (QRFormat format : QRFormat.values()) {
+            writeTimers.put(format, Timer.builder("qr.image.write")
+                    .tag("format", format.name().toLowerCase())
+                    .description("Durée d'écriture de l'image à partir de la matrice")
+                    .register(meterRegistry));
+        }
+    }
+
+    public byte[] renderPng(String content) throws WriterException {
+        return render(content, RenderOptions.DEFAULT);
+    }
+
+    public byte[] render(String content, RenderOptions options) throws WriterException {
+        RenderKey key = new RenderKey(content, options);
+        byte[] cached = images.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long start = System.nanoTime();
+        QRMatrix matrix = QRMatrix.encode(content, options);
+        long encoded = System.nanoTime();
+        encodeTimer.record(encoded - start, TimeUnit.NANOSECONDS);
+        byte[] image = encode(matrix, options);
+        writeTimers.get(options.format()).record(System.nanoTime() - encoded, TimeUnit.NANOSECONDS);
+        images.put(key, image);
+        return image;
+    }
+
+    private static byte[] encode(QRMatrix matrix, RenderOptions options) {
+        try {
+            switch (options.format()) {
+                case SVG: {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+                    SvgEncoder.write(matrix, options.size(), out);
+                    return out.toByteArray();
+                }
+                case RAW: {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+                    RawMatrixEncoder.write(matrix, out);
+                    return out.toByteArray();
+                }
+                default:
+                    return PngEncoder.encode(matrix);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream ne lève pas d'IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record RenderKey(String content, RenderOptions options) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRLookup;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.ReaderException;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan à partir de photos de QR Codes.
+ * Chaque image est décodée sur un pool borné ({@code parallelism} threads, file de
+ * {@code queue-capacity} images) : la lecture ImageIO sous-échantillonne à la volée pour que le
+ * plus grand côté ne dépasse pas {@code max-dimension}, l'image pleine résolution n'est jamais
+ * allouée. Le texte décodé suit ensuite le même chemin que {@code /api/qr/scan}.
+ * Pool saturé : l'image est refusée ({@link Status#BUSY}) plutôt que mise en attente sans limite.
+ */
+@Service
+public class QRImageScanService {
+
+    public enum Status { OK, UNREADABLE, INVALID, UNKNOWN, USED, BUSY }
+
+    public record ImageScanResult(int index, Status status, QRData data) {
+    }
+
+    private static final Map<DecodeHintType, Object> HINTS = new EnumMap<>(DecodeHintType.class);
+
+    static {
+        HINTS.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+        HINTS.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+
+    private final QRCodeService qrCodeService;
+    private final ScanService scanService;
+    private final HistoryWriteBehind historyWriteBehind;
+    private final ScanUsageService scanUsageService;
+    private final ScanAggregator scanAggregator;
+    private final ScanMetrics scanMetrics;
+    private final ExecutorService decodePool;
+    private final int maxDimension;
+
+    public QRImageScanService(QRCodeService qrCodeService, ScanService scanService, HistoryWriteBehind historyWriteBehind,
+                              ScanUsageService scanUsageService, ScanAggregator scanAggregator, ScanMetrics scanMetrics,
+                              @Value("${qrapi.image-scan.parallelism:0}") int parallelism,
+                              @Value("${qrapi.image-scan.queue-capacity:256}") int queueCapacity,
+                              @Value("${qrapi.image-scan.max-dimension:1024}") int maxDimension) {
+        this.qrCodeService = qrCodeService;
+        this.scanService = scanService;
+        this.historyWriteBehind = historyWriteBehind;
+        this.scanUsageService = scanUsageService;
+        this.scanAggregator = scanAggregator;
+        this.scanMetrics = scanMetrics;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.decodePool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * Décode et valide chaque image, puis enregistre un historique par QR Code reconnu.
+     * Les résultats sont rendus dans l'ordre des images.
+     * @param history Informations communes aux scans (lieu, date...), recopiées pour chaque image.
+     */
+    public List<ImageScanResult> scan(List<MultipartFile> images, String secret, History history) {
+        List<CompletableFuture<ImageScanResult>> scans = new ArrayList<>(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            int index = i;
+            MultipartFile image = images.get(i);
+            try {
+                scans.add(CompletableFuture.supplyAsync(() -> scanOne(index, image, secret, history), decodePool));
+            } catch (RejectedExecutionException e) {
+                scans.add(CompletableFuture.completedFuture(result(index, Status.BUSY, ScanMetrics.Outcome.BUSY)));
+            }
+        }
+        List<ImageScanResult> results = new ArrayList<>(scans.size());
+        for (CompletableFuture<ImageScanResult> scan : scans) {
+            results.add(scan.join());
+        }
+        return results;
+    }
+
+    private ImageScanResult scanOne(int index, MultipartFile image, String secret, History template) {
+        String qrCodeData;
+        try (InputStream in = image.getInputStream()) {
+            qrCodeData = decode(in);
+        } catch (IOException e) {
+            qrCodeData = null;
+        }
+        if (qrCodeData == null) {
+            return result(index, Status.UNREADABLE, ScanMetrics.Outcome.UNREADABLE);
+        }
+
+        QRCodeService.Verification verification = qrCodeService.verify(qrCodeData, secret);
+        if (verification.status() != QRCodeService.TokenStatus.VALID) {
+            return result(index, Status.INVALID, verification.status() == QRCodeService.TokenStatus.EXPIRED
+                    ? ScanMetrics.Outcome.EXPIRED : ScanMetrics.Outcome.INVALID_SIGNATURE);
+        }
+        Claims claims = verification.claims();
+        QRLookup result = scanService.processScan(claims.getSubject(), claims.getExpiration());
+        if (result == null) {
+            return result(index, Status.UNKNOWN, ScanMetrics.Outcome.UNKNOWN_HASH);
+        }
+        switch (scanUsageService.consume(result, claims.getExpiration())) {
+            case EXHAUSTED:
+                return result(index, Status.USED, ScanMetrics.Outcome.USED);
+            case CONTENDED:
+                return result(index, Status.BUSY, ScanMetrics.Outcome.CONTENDED);
+            default:
+                break;
+        }
+
+        QRData data = result.toQRData();
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setLieu(template.getLieu());
+        history.setHeure(template.getHeure());
+        history.setDate(template.getDate());
+        history.setVille(template.getVille());
+        history.setPays(template.getPays());
+        history.setClientId(data.getClientId());
+        history.setChauffeurId(data.getChauffeurId());
+        history.setCourseId(data.getCourseId());
+        history.setFournisseur(data.getFournisseur());
+        historyWriteBehind.submit(history);
+        scanAggregator.record(history.getFournisseur(), history.getVille(), history.getPays());
+        scanMetrics.record(ScanMetrics.Source.IMAGE, ScanMetrics.Outcome.VALID);
+        return new ImageScanResult(index, Status.OK, data);
+    }
+
+    // Résultat d'un scan refusé, compté dans scan.outcome
+    private ImageScanResult result(int index, Status status, ScanMetrics.Outcome outcome) {
+        scanMetrics.record(ScanMetrics.Source.IMAGE, outcome);
+        return new ImageScanResult(index, status, null);
+    }
+
+    /**
+     * Lit l'image en sous-échantillonnant (1 pixel sur n en largeur et en hauteur) puis cherche un
+     * QR Code après binarisation locale (HybridBinarizer).
+     * @return Le texte du QR Code, ou null si le fichier n'est pas une image lisible ou n'en contient pas.
+     */
+    String decode(InputStream in) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            if (stream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, (longestSide + maxDimension - 1) / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+                return new QRCodeReader().decode(bitmap, HINTS).getText();
+            } catch (ReaderException e) {
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decodePool.shutdown();
+    }
+}
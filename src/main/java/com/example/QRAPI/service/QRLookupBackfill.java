@@ -0,0 +1,78 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import com.example.QRAPI.repository.QRDataRepository;
+import com.example.QRAPI.repository.QRHashRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Migration des lignes qr_hash existantes vers qr_lookup.
+ * Parcourt qr_hash page par page (paging state Cassandra) et recopie chaque entrée avec ses
+ * données de course. L'écriture est conditionnelle (IF NOT EXISTS) : une ligne déjà présente, écrite à la
+ * génération ou par un passage précédent, est conservée avec son {@code max_uses} ; le job peut être relancé.
+ * La ligne recopiée expire avec la ligne qr_hash d'origine (TTL restant de celle-ci).
+ * Activé par {@code qrapi.lookup.backfill.enabled=true} au démarrage.
+ */
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "qrapi.lookup.backfill.enabled", havingValue = "true")
+public class QRLookupBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(QRLookupBackfill.class);
+
+    private final QRHashRepository qrHashRepository;
+    private final QRDataRepository qrDataRepository;
+    private final AsyncQRRepository asyncQRRepository;
+    private final int pageSize;
+
+    public QRLookupBackfill(QRHashRepository qrHashRepository, QRDataRepository qrDataRepository, AsyncQRRepository asyncQRRepository,
+                            @Value("${qrapi.lookup.backfill.page-size:500}") int pageSize) {
+        this.qrHashRepository = qrHashRepository;
+        this.qrDataRepository = qrDataRepository;
+        this.asyncQRRepository = asyncQRRepository;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long copied = 0;
+        long existing = 0;
+        long orphans = 0;
+        Slice<QRHash> page = qrHashRepository.findAll(CassandraPageRequest.first(pageSize));
+        while (true) {
+            for (QRHash qrHash : page) {
+                var data = qrDataRepository.findById(qrHash.getQrDataId());
+                if (data.isEmpty()) {
+                    orphans++;
+                } else if (asyncQRRepository.saveLookupIfAbsent(QRLookup.of(qrHash, data.get()), remainingTtl(qrHash)).join()) {
+                    copied++;
+                } else {
+                    existing++;
+                }
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = qrHashRepository.findAll(page.nextPageable());
+        }
+        log.info("Migration qr_lookup terminée : {} copiés, {} déjà présents, {} sans qr_data", copied, existing, orphans);
+    }
+
+    private Duration remainingTtl(QRHash qrHash) {
+        Integer seconds = qrHashRepository.findRemainingTtl(qrHash.getId());
+        return seconds != null ? Duration.ofSeconds(seconds) : null;
+    }
+}
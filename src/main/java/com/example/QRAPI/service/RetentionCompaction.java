@@ -0,0 +1,58 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.repository.RetentionRepository;
+import com.example.QRAPI.repository.RetentionRepository.RetainedTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Applique TimeWindowCompactionStrategy à qr_data, qr_hash et qr_lookup au démarrage.
+ * Les lignes écrites la même fenêtre (un jour par défaut) sont compactées ensemble et ont des TTL
+ * voisins : une fois toutes expirées (et {@code gc-grace} écoulé), le SSTable de la fenêtre est
+ * supprimé en entier, sans réécriture. Sans effet si les tables ont déjà ces options.
+ * Activé par {@code qrapi.retention.compaction.enabled=true}.
+ */
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "qrapi.retention.compaction.enabled", havingValue = "true")
+public class RetentionCompaction implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionCompaction.class);
+
+    private final RetentionRepository retentionRepository;
+    private final String windowUnit;
+    private final int windowSize;
+    private final int gcGraceSeconds;
+
+    public RetentionCompaction(RetentionRepository retentionRepository,
+                               @Value("${qrapi.retention.compaction.window-unit:DAYS}") String windowUnit,
+                               @Value("${qrapi.retention.compaction.window-size:1}") int windowSize,
+                               @Value("${qrapi.retention.compaction.gc-grace:10d}") Duration gcGrace) {
+        this.retentionRepository = retentionRepository;
+        this.windowUnit = windowUnit;
+        this.windowSize = windowSize;
+        this.gcGraceSeconds = Math.toIntExact(gcGrace.toSeconds());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (RetainedTable table : RetentionRepository.TABLES) {
+            try {
+                if (retentionRepository.applyTimeWindowCompaction(table.name(), windowUnit, windowSize, gcGraceSeconds)) {
+                    log.info("Compaction TWCS ({} {}) appliquée à {}", windowSize, windowUnit, table.name());
+                }
+            } catch (RuntimeException e) {
+                // Le service fonctionne sans : les lignes expirent quand même, leur purge est seulement plus tardive
+                log.warn("Compaction TWCS non appliquée à {} : {}", table.name(), e.getMessage());
+            }
+        }
+    }
+}
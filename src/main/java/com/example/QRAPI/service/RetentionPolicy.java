@@ -0,0 +1,51 @@
+package com.example.QRAPI.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Durée de vie des lignes qr_data / qr_hash / qr_lookup d'un QR Code généré : validité du token
+ * ({@code expirationMillis}) plus un délai de grâce, pour qu'un scan d'un code tout juste expiré
+ * réponde encore EXPIRED et non UNKNOWN_HASH, et qu'un scan hors ligne envoyé en retard soit encore
+ * reconnu. Passé ce délai, Cassandra ne renvoie plus les lignes
+ * et la compaction les supprime.
+ */
+@Component
+public class RetentionPolicy {
+
+    // TTL maximal accepté par Cassandra (20 ans)
+    static final long MAX_TTL_SECONDS = 630_720_000L;
+
+    private final boolean enabled;
+    private final long graceSeconds;
+
+    public RetentionPolicy(@Value("${qrapi.retention.ttl-enabled:true}") boolean enabled,
+                           @Value("${qrapi.retention.grace:7d}") Duration grace) {
+        this.enabled = enabled;
+        this.graceSeconds = grace.toSeconds();
+    }
+
+    /** TTL des lignes d'un QR Code valable {@code expirationMillis}, null pour des lignes sans expiration. */
+    public Duration ttl(long expirationMillis) {
+        if (!enabled) {
+            return null;
+        }
+        long validitySeconds = Math.max(0, Math.ceilDiv(expirationMillis, 1000L));
+        long seconds = Math.min(MAX_TTL_SECONDS, validitySeconds + graceSeconds);
+        return Duration.ofSeconds(Math.max(1, seconds));
+    }
+
+    /**
+     * TTL d'une ligne liée à un code qui expire à {@code expiration} (compteur d'utilisations) : elle vit
+     * aussi longtemps que les lignes du code. Null sans expiration ou si les TTL sont désactivés.
+     */
+    public Duration ttlUntil(Date expiration) {
+        if (expiration == null) {
+            return null;
+        }
+        return ttl(expiration.getTime() - System.currentTimeMillis());
+    }
+}
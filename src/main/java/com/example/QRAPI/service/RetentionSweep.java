@@ -0,0 +1,219 @@
+package com.example.QRAPI.service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.example.QRAPI.repository.JobLeaseRepository;
+import com.example.QRAPI.repository.RetentionRepository;
+import com.example.QRAPI.repository.RetentionRepository.RetainedTable;
+import com.example.QRAPI.repository.TokenRing;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rapport de rétention de qr_data, qr_hash et qr_lookup, et purge des lignes sans TTL.
+ * Chaque table est parcourue par plages de tokens (TTL et WRITETIME de chaque ligne) ; les lignes se
+ * répartissent en :
+ * <ul>
+ *     <li>{@code ttl} : écrites avec un TTL, vivantes, supprimées par Cassandra à expiration ;</li>
+ *     <li>{@code legacy} : sans TTL (écrites avant leur mise en place), plus récentes que {@code legacy-max-age} ;</li>
+ *     <li>{@code expired} : sans TTL et plus anciennes que {@code legacy-max-age} — codes morts qui ne
+ *     disparaîtraient jamais d'eux-mêmes, supprimés si {@code qrapi.retention.sweep.delete=true}.</li>
+ * </ul>
+ * Les lignes déjà expirées par TTL ne sont plus lues par Cassandra : leur volume est libéré par la compaction.
+ * Le dernier rapport est publié en jauges {@code retention.rows{table, state}}.
+ * Le même parcours supprime les partitions journalières de scan_counts plus anciennes que
+ * {@code qrapi.aggregation.retention} : une table de compteurs n'accepte pas de TTL.
+ * Le job se déclenche sur tous les nœuds mais ne s'exécute que sur celui qui obtient le bail
+ * {@value #LEASE} ({@link JobLeaseRepository}, valable {@code qrapi.retention.sweep.lease}).
+ */
+@Service
+@Profile("!memory")
+public class RetentionSweep {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionSweep.class);
+
+    static final String LEASE = "retention-sweep";
+
+    public enum State {
+        TTL, LEGACY, EXPIRED;
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final RetentionRepository retentionRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final CqlSession session;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+    private final Duration lease;
+    private final long legacyMaxAgeMicros;
+    private final Duration counterRetention;
+    private final boolean delete;
+    private final int splits;
+    private final int pageSize;
+    private final Map<String, Map<State, AtomicLong>> rows = new HashMap<>();
+    private final Map<String, Counter> deleted = new HashMap<>();
+    private final Timer sweepTimer;
+
+    public RetentionSweep(RetentionRepository retentionRepository, JobLeaseRepository jobLeaseRepository,
+                          CqlSession session, MeterRegistry meterRegistry,
+                          @Value("${qrapi.retention.sweep.lease:1h}") Duration lease,
+                          @Value("${qrapi.retention.legacy-max-age:365d}") Duration legacyMaxAge,
+                          @Value("${qrapi.aggregation.retention:90d}") Duration counterRetention,
+                          @Value("${qrapi.retention.sweep.delete:false}") boolean delete,
+                          @Value("${qrapi.retention.sweep.splits:64}") int splits,
+                          @Value("${qrapi.retention.sweep.page-size:1000}") int pageSize) {
+        this.retentionRepository = retentionRepository;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.session = session;
+        this.lease = lease;
+        this.legacyMaxAgeMicros = TimeUnit.MILLISECONDS.toMicros(legacyMaxAge.toMillis());
+        this.counterRetention = counterRetention;
+        this.delete = delete;
+        this.splits = splits;
+        this.pageSize = pageSize;
+        for (RetainedTable table : RetentionRepository.TABLES) {
+            Map<State, AtomicLong> counts = new EnumMap<>(State.class);
+            for (State state : State.values()) {
+                AtomicLong count = new AtomicLong();
+                counts.put(state, count);
+                Gauge.builder("retention.rows", count, AtomicLong::get)
+                        .tag("table", table.name())
+                        .tag("state", state.key())
+                        .description("Lignes par état de rétention, au dernier rapport")
+                        .register(meterRegistry);
+            }
+            rows.put(table.name(), counts);
+            deleted.put(table.name(), Counter.builder("retention.sweep.deleted")
+                    .tag("table", table.name())
+                    .description("Lignes sans TTL expirées supprimées par la purge")
+                    .register(meterRegistry));
+        }
+        deleted.put(RetentionRepository.COUNTER_TABLE, Counter.builder("retention.sweep.deleted")
+                .tag("table", RetentionRepository.COUNTER_TABLE)
+                .description("Partitions de compteurs plus anciennes que la durée de conservation supprimées")
+                .register(meterRegistry));
+        this.sweepTimer = Timer.builder("retention.sweep")
+                .description("Durée du parcours de rétention des tables")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parcourt les trois tables et publie le rapport, puis purge scan_counts ; "-" dans
+     * {@code qrapi.retention.sweep.cron} désactive le job.
+     */
+    @Scheduled(cron = "${qrapi.retention.sweep.cron:0 30 3 * * *}")
+    public void sweep() {
+        try {
+            if (!jobLeaseRepository.tryAcquire(LEASE, owner, lease)) {
+                log.debug("Parcours de rétention pris en charge par un autre nœud");
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Bail du parcours de rétention indisponible, parcours sauté : {}", e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        List<ScanRange> ranges = TokenRing.split(session, splits);
+        for (RetainedTable table : RetentionRepository.TABLES) {
+            try {
+                sweep(table, ranges);
+            } catch (RuntimeException e) {
+                log.warn("Rapport de rétention de {} interrompu : {}", table.name(), e.getMessage());
+            }
+        }
+        try {
+            sweepCounters(ranges);
+        } catch (RuntimeException e) {
+            log.warn("Purge de {} interrompue : {}", RetentionRepository.COUNTER_TABLE, e.getMessage());
+        }
+        sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void sweep(RetainedTable table, List<ScanRange> ranges) {
+        long expiredBefore = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - legacyMaxAgeMicros;
+        long[] counts = new long[State.values().length];
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        for (ScanRange range : ranges) {
+            retentionRepository.scan(table, range, pageSize, (key, ttlSeconds, writeTimeMicros) -> {
+                State state = ttlSeconds != null ? State.TTL
+                        : writeTimeMicros != null && writeTimeMicros < expiredBefore ? State.EXPIRED
+                        : State.LEGACY;
+                counts[state.ordinal()]++;
+                if (state == State.EXPIRED && delete) {
+                    deletes.add(retentionRepository.delete(table, key));
+                    if (deletes.size() >= pageSize) {
+                        join(table, deletes);
+                    }
+                }
+            });
+        }
+        join(table, deletes);
+        Map<State, AtomicLong> published = rows.get(table.name());
+        for (State state : State.values()) {
+            published.get(state).set(counts[state.ordinal()]);
+        }
+        log.info("Rétention {} : {} avec TTL, {} sans TTL, {} expirées sans TTL{}", table.name(),
+                counts[State.TTL.ordinal()], counts[State.LEGACY.ordinal()], counts[State.EXPIRED.ordinal()],
+                delete ? " (supprimées)" : "");
+    }
+
+    private void sweepCounters(List<ScanRange> ranges) {
+        LocalDate oldestKept = LocalDate.now(ZoneOffset.UTC).minusDays(counterRetention.toDays());
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        long[] expired = new long[1];
+        for (ScanRange range : ranges) {
+            retentionRepository.scanCounterPartitions(range, pageSize, partition -> {
+                if (partition.day().isBefore(oldestKept)) {
+                    expired[0]++;
+                    deletes.add(retentionRepository.deleteCounterPartition(partition));
+                    if (deletes.size() >= pageSize) {
+                        join(RetentionRepository.COUNTER_TABLE, deletes);
+                    }
+                }
+            });
+        }
+        join(RetentionRepository.COUNTER_TABLE, deletes);
+        log.info("Rétention {} : {} partitions antérieures au {} supprimées", RetentionRepository.COUNTER_TABLE,
+                expired[0], oldestKept);
+    }
+
+    private void join(RetainedTable table, List<CompletableFuture<Void>> deletes) {
+        join(table.name(), deletes);
+    }
+
+    private void join(String table, List<CompletableFuture<Void>> deletes) {
+        Counter counter = deleted.get(table);
+        for (CompletableFuture<Void> future : deletes) {
+            try {
+                future.join();
+                counter.increment();
+            } catch (RuntimeException e) {
+                log.warn("Echec de suppression dans {} : {}", table, e.getMessage());
+            }
+        }
+        deletes.clear();
+    }
+}
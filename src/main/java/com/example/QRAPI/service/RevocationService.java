@@ -0,0 +1,165 @@
+package com.example.QRAPI.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.repository.RevocationRepository;
+import com.example.QRAPI.repository.RevocationRepository.Revocation;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import com.example.QRAPI.service.RevocationSnapshot.Entry;
+import com.example.QRAPI.service.RevocationSnapshot.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Liste des QR Codes à refuser par les lecteurs hors ligne : codes révoqués et codes à usage limité
+ * épuisés, jusqu'à l'expiration de leur token.
+ * Les entrées sont écrites dans qr_revocations par le nœud qui les constate. Chaque nœud charge la table
+ * au démarrage (parcours par plages) puis relit toutes les {@code poll-interval} les entrées
+ * récentes, et sert la liste depuis la mémoire ({@link RevocationSnapshot}).
+ * Curseur rendu aux lecteurs : début de la dernière relecture moins {@code settle} — une entrée
+ * enregistrée par un autre nœud avant le curseur est supposée visible au moment de la relecture. Les
+ * entrées plus récentes sont relues au tour suivant : un lecteur peut recevoir une entrée deux fois,
+ * jamais la manquer.
+ * Hypothèse : l'instant d'une entrée est pris sur l'horloge du nœud qui l'écrit (timeuuid), le curseur sur
+ * celle du nœud qui relit. La garantie ne tient que si l'écart entre les horloges des nœuds plus la durée
+ * d'une écriture (relances comprises) reste inférieur à {@code settle}. Au-delà, une entrée peut être
+ * datée avant un curseur déjà rendu et manquer aux lecteurs jusqu'à leur prochain chargement complet.
+ * Un code révoqué sur un autre nœud est retiré du cache de scans de ce nœud dès que son entrée est lue :
+ * il n'y reste pas jusqu'à {@code qrapi.scan.cache.max-ttl}.
+ */
+@Service
+public class RevocationService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationService.class);
+
+    private final RevocationRepository revocationRepository;
+    private final ScanCache scanCache;
+    private final long settleMillis;
+    private final int splits;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean added = new AtomicBoolean();
+    private final Counter failureCounter;
+    // null tant que la table n'est pas chargée : une liste partielle ferait accepter des codes révoqués
+    private volatile RevocationSnapshot snapshot;
+    private volatile long polledFrom;
+
+    public RevocationService(RevocationRepository revocationRepository, ScanCache scanCache, MeterRegistry meterRegistry,
+                             @Value("${qrapi.revocation.settle:10s}") Duration settle,
+                             @Value("${qrapi.revocation.load-splits:64}") int splits) {
+        this.revocationRepository = revocationRepository;
+        this.scanCache = scanCache;
+        this.settleMillis = settle.toMillis();
+        this.splits = splits;
+        Gauge.builder("revocation.entries", entries, ConcurrentHashMap::size)
+                .description("QR Codes de la liste de révocation hors ligne")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("revocation.write.failures")
+                .description("Entrées de révocation non enregistrées")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ajoute le code à la liste, jusqu'à {@code expiration}. Écriture asynchrone : l'appelant n'attend pas.
+     * Un token déjà expiré n'est pas enregistré (le lecteur le refuse de lui-même).
+     */
+    public void record(String hash, Reason reason, Date expiration) {
+        if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revocationRepository.save(hash, reason.name(), expiration.toInstant())
+                .exceptionally(e -> {
+                    failureCounter.increment();
+                    log.warn("Echec d'enregistrement de la révocation {} : {}", hash, e.getMessage());
+                    return null;
+                });
+    }
+
+    /** Chargement complet au démarrage. */
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        for (ScanRange range : revocationRepository.splitRing(splits)) {
+            revocationRepository.scan(range, this::add);
+        }
+        polledFrom = start - settleMillis;
+        publish(start);
+        log.info("Liste de révocation chargée : {} entrées", entries.size());
+    }
+
+    // @Scheduled n'accepte que des millisecondes ou l'ISO-8601 : durée au format des propriétés ("5s") convertie
+    @Scheduled(fixedDelayString = "#{T(org.springframework.boot.convert.DurationStyle).detectAndParse('${qrapi.revocation.poll-interval:5s}').toMillis()}")
+    public void poll() {
+        if (snapshot == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            for (Revocation revocation : revocationRepository.findSince(polledFrom)) {
+                add(revocation);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Relecture de qr_revocations en échec : {}", e.getMessage());
+            return;
+        }
+        polledFrom = start - settleMillis;
+        publish(start);
+    }
+
+    /**
+     * Vrai si le code a été révoqué par /revoke, d'après les entrées chargées (vues au plus tard une
+     * {@code poll-interval} après leur enregistrement). Un code épuisé n'est pas révoqué.
+     */
+    public boolean isRevoked(String hash) {
+        Entry entry = entries.get(hash);
+        return entry != null && entry.reason() == Reason.REVOKED;
+    }
+
+    /** Liste courante, null tant que le chargement initial n'est pas terminé. */
+    public RevocationSnapshot snapshot() {
+        return snapshot;
+    }
+
+    private void add(Revocation revocation) {
+        if (revocation.hash() == null || revocation.hash().length() != 64) {
+            return;
+        }
+        byte[] hash;
+        try {
+            hash = HexFormat.of().parseHex(revocation.hash());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        Reason reason = Reason.REVOKED.name().equals(revocation.reason()) ? Reason.REVOKED : Reason.EXHAUSTED;
+        // Première entrée d'un code conservée : son instant ne bouge pas d'une relecture à l'autre
+        if (entries.putIfAbsent(revocation.hash(), new Entry(Uuids.unixTimestamp(revocation.at()), hash, reason,
+                revocation.expiresAt().toEpochMilli())) == null) {
+            added.set(true);
+            // Lignes déjà supprimées par le nœud qui a révoqué : le prochain scan ne trouvera plus le code
+            if (reason == Reason.REVOKED) {
+                scanCache.invalidate(revocation.hash());
+            }
+        }
+    }
+
+    // Liste retriée seulement si des entrées ont été ajoutées ou ont expiré
+    private synchronized void publish(long pollStart) {
+        boolean expired = entries.values().removeIf(entry -> entry.expiresAtMillis() <= pollStart);
+        boolean changed = added.getAndSet(false) || expired;
+        long cursor = pollStart - settleMillis;
+        RevocationSnapshot published = snapshot;
+        snapshot = published != null && !changed ? published.withCursor(cursor) : RevocationSnapshot.of(cursor, entries.values());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.QRAPI.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Liste immuable des QR Codes à refuser hors ligne, triée par instant d'enregistrement, et son
+ * encodage binaire ({@code application/vnd.qrapi.revocations}) :
+ * <pre>
+ * "QRV1" | nombre d'entrées (varint)
+ * puis par entrée : écart en ms avec l'entrée précédente, ou avec {@code since} pour la première (varint)
+ *                 | motif (1 octet : 0 révoqué, 1 épuisé)
+ *                 | validité restante du token en secondes à l'enregistrement (varint)
+ *                 | hash SHA-256 brut (32 octets)
+ * </pre>
+ * Environ 40 octets par code. Une mise à jour ({@code since}) ne contient que les entrées postérieures.
+ */
+public final class RevocationSnapshot {
+
+    public enum Reason { REVOKED, EXHAUSTED }
+
+    public static final String MEDIA_TYPE = "application/vnd.qrapi.revocations";
+
+    private static final byte[] MAGIC = "QRV1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HASH_LENGTH = 32;
+
+    /** {@code hash} : SHA-256 brut du QR Code. */
+    record Entry(long atMillis, byte[] hash, Reason reason, long expiresAtMillis) {
+    }
+
+    private final long cursor;
+    private final Entry[] entries;
+    private volatile byte[] full;
+
+    private RevocationSnapshot(long cursor, Entry[] entries) {
+        this.cursor = cursor;
+        this.entries = entries;
+    }
+
+    static RevocationSnapshot of(long cursor, Collection<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Entry::atMillis));
+        return new RevocationSnapshot(cursor, sorted);
+    }
+
+    /** Même contenu, curseur avancé : l'encodage complet déjà calculé est conservé. */
+    RevocationSnapshot withCursor(long cursor) {
+        RevocationSnapshot snapshot = new RevocationSnapshot(cursor, entries);
+        snapshot.full = full;
+        return snapshot;
+    }
+
+    /**
+     * Instant (ms) jusqu'où ce nœud a tout lu : {@code since} de la mise à jour suivante.
+     */
+    public long cursor() {
+        return cursor;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /** ETag du contenu renvoyé pour {@code since} : change dès qu'une entrée postérieure est ajoutée ou expire. */
+    public String etag(long since) {
+        int first = firstAfter(since);
+        long last = first < entries.length ? entries[entries.length - 1].atMillis() : 0;
+        return "\"" + since + "-" + (entries.length - first) + "-" + last + "\"";
+    }
+
+    /** Entrées enregistrées après {@code since} (toutes pour 0). */
+    public byte[] encode(long since) {
+        if (since <= 0) {
+            byte[] encoded = full;
+            if (encoded == null) {
+                encoded = encode(0, 0);
+                full = encoded;
+            }
+            return encoded;
+        }
+        return encode(firstAfter(since), since);
+    }
+
+    private byte[] encode(int first, long since) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + (entries.length - first) * (HASH_LENGTH + 10));
+        out.writeBytes(MAGIC);
+        writeVarint(out, entries.length - first);
+        long previous = since;
+        for (int i = first; i < entries.length; i++) {
+            Entry entry = entries[i];
+            writeVarint(out, Math.max(0, entry.atMillis() - previous));
+            out.write(entry.reason().ordinal());
+            writeVarint(out, Math.max(0, (entry.expiresAtMillis() - entry.atMillis()) / 1000));
+            out.writeBytes(entry.hash());
+            previous = entry.atMillis();
+        }
+        return out.toByteArray();
+    }
+
+    // Première entrée strictement postérieure à since
+    private int firstAfter(long since) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].atMillis() <= since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.repository.ScanCountRepository;
+import com.example.QRAPI.repository.ScanCountRepository.MinuteCount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nombre de scans par minute, par fournisseur, et par ville et pays pour chaque fournisseur : un
+ * fournisseur ne voit que ses propres volumes, y compris par ville ou par pays.
+ * Le scan incrémente un {@link LongAdder} de la fenêtre de la minute courante : sans verrou, et sans
+ * allocation une fois la valeur vue dans la minute. Les fenêtres closes (fin de minute + {@code flush-grace})
+ * sont versées périodiquement dans la table de compteurs scan_counts, puis oubliées. La lecture additionne
+ * Cassandra et les fenêtres de ce nœud pas encore versées.
+ * Au-delà de {@code max-values} valeurs distinctes d'une dimension dans la minute (tous fournisseurs
+ * confondus), les scans sont comptés sous {@value #OTHER} : ville et pays viennent du client, leur
+ * cardinalité n'est pas maîtrisée.
+ */
+@Service
+public class ScanAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanAggregator.class);
+
+    public enum Dimension {
+        FOURNISSEUR, VILLE, PAYS;
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    static final String OTHER = "_autres";
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final ScanCountRepository scanCountRepository;
+    private final ConcurrentHashMap<Long, Window> windows = new ConcurrentHashMap<>();
+    private final int maxValues;
+    private final long graceMillis;
+    private final Timer flushTimer;
+    private final Counter failureCounter;
+    private volatile Window latest;
+
+    public ScanAggregator(ScanCountRepository scanCountRepository, MeterRegistry meterRegistry,
+                          @Value("${qrapi.aggregation.max-values:10000}") int maxValues,
+                          @Value("${qrapi.aggregation.flush-grace:5s}") Duration flushGrace) {
+        this.scanCountRepository = scanCountRepository;
+        this.maxValues = maxValues;
+        this.graceMillis = flushGrace.toMillis();
+        this.latest = new Window(-1, maxValues);
+        this.flushTimer = Timer.builder("scan.aggregation.flush")
+                .description("Durée d'écriture des compteurs d'une minute")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("scan.aggregation.flush.failures")
+                .description("Incréments de compteurs perdus (écriture en échec)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compte un scan accepté. Ville et pays sont comptés par fournisseur : sans fournisseur, le scan n'est
+     * pas compté ; une ville ou un pays null ou vide est ignoré.
+     */
+    public void record(String fournisseur, String ville, String pays) {
+        if (fournisseur == null || fournisseur.isEmpty()) {
+            return;
+        }
+        Window window = window(System.currentTimeMillis() / MINUTE_MILLIS);
+        Counters counters = window.counters(fournisseur);
+        counters.scans.increment();
+        window.increment(counters, Dimension.VILLE, ville);
+        window.increment(counters, Dimension.PAYS, pays);
+    }
+
+    private Window window(long minute) {
+        Window window = latest;
+        if (window.minute == minute) {
+            return window;
+        }
+        window = windows.computeIfAbsent(minute, m -> new Window(m, maxValues));
+        if (window.minute > latest.minute) {
+            latest = window;
+        }
+        return window;
+    }
+
+    /**
+     * Verse dans Cassandra les fenêtres closes depuis au moins {@code flush-grace}. Un incrément en échec
+     * n'est pas rejoué (un compteur Cassandra n'est pas idempotent) : il est compté comme perdu.
+     * Une fenêtre n'est oubliée qu'une fois toutes ses écritures terminées : pendant l'écriture, la lecture
+     * peut compter deux fois une minute (Cassandra et fenêtre), mais ne la perd jamais.
+     */
+    // @Scheduled n'accepte que des millisecondes ou l'ISO-8601 : durée au format des propriétés ("10s") convertie
+    @Scheduled(fixedDelayString = "#{T(org.springframework.boot.convert.DurationStyle).detectAndParse('${qrapi.aggregation.flush-interval:10s}').toMillis()}")
+    public void flush() {
+        flush(System.currentTimeMillis() - graceMillis);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    // Sous le verrou, seulement le choix des fenêtres et l'envoi des écritures : le flush planifié et celui
+    // de l'arrêt ne versent pas deux fois la même fenêtre. L'attente des réponses se fait hors du verrou.
+    private void flush(long closedBefore) {
+        List<Flush> started = new ArrayList<>();
+        synchronized (this) {
+            for (Window window : windows.values()) {
+                if (window.flushing || (window.minute + 1) * MINUTE_MILLIS > closedBefore) {
+                    continue;
+                }
+                window.flushing = true;
+                started.add(new Flush(window, System.nanoTime(), writes(window)));
+            }
+        }
+        for (Flush flush : started) {
+            for (CompletableFuture<Void> write : flush.writes()) {
+                try {
+                    write.join();
+                } catch (RuntimeException e) {
+                    failureCounter.increment();
+                    log.warn("Echec d'écriture des compteurs de scans : {}", e.getMessage());
+                }
+            }
+            windows.remove(flush.window().minute);
+            flushTimer.record(System.nanoTime() - flush.start(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<CompletableFuture<Void>> writes(Window window) {
+        Instant minute = Instant.ofEpochMilli(window.minute * MINUTE_MILLIS);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        window.suppliers.forEach((supplier, counters) -> {
+            writes.add(scanCountRepository.increment(supplier, Dimension.FOURNISSEUR.key(), supplier, minute, counters.scans.sum()));
+            for (Dimension dimension : List.of(Dimension.VILLE, Dimension.PAYS)) {
+                counters.values(dimension).forEach((value, count) ->
+                        writes.add(scanCountRepository.increment(supplier, dimension.key(), value, minute, count.sum())));
+            }
+        });
+        return writes;
+    }
+
+    private record Flush(Window window, long start, List<CompletableFuture<Void>> writes) {
+    }
+
+    /**
+     * Scans par minute du fournisseur {@code supplier} pour une valeur d'une dimension (pour
+     * {@link Dimension#FOURNISSEUR}, {@code value} est le fournisseur), de {@code from} à {@code to},
+     * minutes sans scan omises.
+     */
+    public List<MinuteCount> series(String supplier, Dimension dimension, String value, Instant from, Instant to) {
+        Map<Instant, Long> counts = new TreeMap<>();
+        LocalDate lastDay = LocalDate.ofInstant(to, ZoneOffset.UTC);
+        for (LocalDate day = LocalDate.ofInstant(from, ZoneOffset.UTC); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            for (MinuteCount count : scanCountRepository.find(supplier, dimension.key(), value, day, from, to)) {
+                counts.put(count.minute(), count.scans());
+            }
+        }
+        for (Window window : windows.values()) {
+            Instant minute = Instant.ofEpochMilli(window.minute * MINUTE_MILLIS);
+            Counters counters = window.suppliers.get(supplier);
+            LongAdder live = counters == null ? null
+                    : dimension == Dimension.FOURNISSEUR ? counters.scans : counters.values(dimension).get(value);
+            if (live != null && !minute.isBefore(from) && !minute.isAfter(to)) {
+                counts.merge(minute, live.sum(), Long::sum);
+            }
+        }
+        List<MinuteCount> series = new ArrayList<>(counts.size());
+        counts.forEach((minute, scans) -> series.add(new MinuteCount(minute, scans)));
+        return series;
+    }
+
+    private static final class Window {
+        final long minute;
+        final int maxValues;
+        final ConcurrentHashMap<String, Counters> suppliers = new ConcurrentHashMap<>();
+        // Valeurs distinctes de chaque dimension dans la minute, tous fournisseurs confondus
+        final AtomicIntegerArray distinct = new AtomicIntegerArray(Dimension.values().length);
+        // Écritures envoyées par un flush (accès sous le verrou de flush)
+        boolean flushing;
+
+        Window(long minute, int maxValues) {
+            this.minute = minute;
+            this.maxValues = maxValues;
+        }
+
+        Counters counters(String supplier) {
+            Counters counters = suppliers.get(supplier);
+            if (counters == null) {
+                String key = suppliers.size() < maxValues ? supplier : OTHER;
+                counters = suppliers.computeIfAbsent(key, k -> new Counters());
+            }
+            return counters;
+        }
+
+        void increment(Counters counters, Dimension dimension, String value) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            ConcurrentHashMap<String, LongAdder> values = counters.values(dimension);
+            LongAdder count = values.get(value);
+            if (count == null) {
+                String key = distinct.get(dimension.ordinal()) < maxValues ? value : OTHER;
+                count = values.computeIfAbsent(key, k -> {
+                    distinct.incrementAndGet(dimension.ordinal());
+                    return new LongAdder();
+                });
+            }
+            count.increment();
+        }
+    }
+
+    // Compteurs d'un fournisseur dans une minute
+    private static final class Counters {
+        final LongAdder scans = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> villes = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> pays = new ConcurrentHashMap<>();
+
+        ConcurrentHashMap<String, LongAdder> values(Dimension dimension) {
+            return dimension == Dimension.VILLE ? villes : pays;
+        }
+    }
+}
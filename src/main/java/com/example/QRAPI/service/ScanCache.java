@@ -0,0 +1,79 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRLookup;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache des scans validés, indexé par le hash décodé.
+ * Chaque entrée expire à l'instant {@code exp} du token qui l'a chargée (borné par {@code max-ttl},
+ * ce qui limite aussi le délai de prise en compte d'une révocation faite sur un autre nœud).
+ * Les statistiques hit / miss / eviction sont publiées sous le nom de cache {@code scanCache}.
+ */
+@Component
+public class ScanCache {
+
+    private final Cache<String, CachedScan> cache;
+    private final long maxTtlNanos;
+
+    public ScanCache(MeterRegistry meterRegistry,
+                     @Value("${qrapi.scan-cache.max-size:100000}") long maxSize,
+                     @Value("${qrapi.scan-cache.max-ttl:5m}") Duration maxTtl) {
+        this.maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "scanCache");
+    }
+
+    public QRLookup get(String hash) {
+        CachedScan cached = cache.getIfPresent(hash);
+        return cached != null ? cached.lookup : null;
+    }
+
+    /**
+     * Mémorise un scan valide jusqu'à {@code expiration}. Un token déjà expiré n'est pas mis en cache.
+     */
+    public void put(String hash, QRLookup lookup, Date expiration) {
+        if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(hash, new CachedScan(lookup, expiration.getTime()));
+    }
+
+    public void invalidate(String hash) {
+        cache.invalidate(hash);
+    }
+
+    private record CachedScan(QRLookup lookup, long expiresAtMillis) {
+    }
+
+    private class TokenExpiry implements Expiry<String, CachedScan> {
+        @Override
+        public long expireAfterCreate(String key, CachedScan value, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis - System.currentTimeMillis());
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedScan value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedScan value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.QRAPI.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compteurs des issues de scan ({@code scan.outcome}), par issue et par canal : {@code text} pour
+ * /api/qr/scan, {@code image} pour /api/qr/scan/image (une issue par image), {@code offline} pour les
+ * scans hors ligne envoyés à /api/qr/scan/offline.
+ */
+@Component
+public class ScanMetrics {
+
+    public enum Outcome {
+        VALID, INVALID_SIGNATURE, EXPIRED, UNKNOWN_HASH, USED, CONTENDED, UNREADABLE, BUSY;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    public enum Source { TEXT, IMAGE, OFFLINE }
+
+    private final Map<Source, Map<Outcome, Counter>> counters = new EnumMap<>(Source.class);
+
+    public ScanMetrics(MeterRegistry meterRegistry) {
+        for (Source source : Source.values()) {
+            Map<Outcome, Counter> bySource = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                bySource.put(outcome, Counter.builder("scan.outcome")
+                        .tag("outcome", outcome.tag())
+                        .tag("source", source.name().toLowerCase())
+                        .description("Scans par issue")
+                        .register(meterRegistry));
+            }
+            counters.put(source, bySource);
+        }
+    }
+
+    public void record(Source source, Outcome outcome) {
+        counters.get(source).get(outcome).increment();
+    }
+}
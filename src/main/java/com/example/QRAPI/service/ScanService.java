@@ -1,27 +1,87 @@
 package com.example.QRAPI.service;
 
+import com.example.QRAPI.CassandraConfig;
+import com.example.QRAPI.model.QRData;
 import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import com.example.QRAPI.repository.QRDataRepository;
 import com.example.QRAPI.repository.QRHashRepository;
+import com.example.QRAPI.repository.QRLookupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.cql.QueryOptions;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Date;
 import java.util.Optional;
 
+import static com.example.QRAPI.repository.AsyncQRRepository.queryTimer;
+
 @Service
 public class ScanService {
 
+    // Lectures idempotentes : le driver peut les relancer sur un autre réplica (exécution spéculative)
+    private static final QueryOptions SCAN_READ = QueryOptions.builder()
+            .executionProfile(CassandraConfig.SCAN_PROFILE)
+            .idempotent(true)
+            .build();
+
+    private final QRLookupRepository qrLookupRepository;
     private final QRHashRepository qrHashRepository;
+    private final QRDataRepository qrDataRepository;
+    private final AsyncQRRepository asyncQRRepository;
+    private final ScanCache scanCache;
+    private final boolean legacyFallback;
+    private final Timer selectLookupTimer;
+    private final Timer selectHashTimer;
+    private final Timer selectDataTimer;
 
-    public ScanService(QRHashRepository qrHashRepository) {
+    public ScanService(QRLookupRepository qrLookupRepository, QRHashRepository qrHashRepository, QRDataRepository qrDataRepository,
+                       AsyncQRRepository asyncQRRepository, ScanCache scanCache, MeterRegistry meterRegistry,
+                       @Value("${qrapi.lookup.legacy-fallback:true}") boolean legacyFallback) {
+        this.qrLookupRepository = qrLookupRepository;
         this.qrHashRepository = qrHashRepository;
+        this.qrDataRepository = qrDataRepository;
+        this.asyncQRRepository = asyncQRRepository;
+        this.scanCache = scanCache;
+        this.legacyFallback = legacyFallback;
+        this.selectLookupTimer = queryTimer(meterRegistry, "qr_lookup.select");
+        this.selectHashTimer = queryTimer(meterRegistry, "qr_hash.select");
+        this.selectDataTimer = queryTimer(meterRegistry, "qr_data.select");
+    }
+
+    /**
+     * Variante mise en cache de {@link #processScan(String)} : un QR Code présenté plusieurs fois
+     * ne relit pas Cassandra tant que son token n'a pas expiré.
+     * @param qrCodeData Le hash extrait du token JWT.
+     * @param expiration La date d'expiration (claim {@code exp}) du token.
+     */
+    public QRLookup processScan(String qrCodeData, Date expiration) {
+        if (qrCodeData == null) {
+            return null;
+        }
+        QRLookup cached = scanCache.get(qrCodeData);
+        if (cached != null) {
+            return cached;
+        }
+        QRLookup result = processScan(qrCodeData);
+        if (result != null) {
+            scanCache.put(qrCodeData, result, expiration);
+        }
+        return result;
     }
 
     /**
-     * Traite le scan d'un QR Code en validant le token JWT et en vérifiant les données.
-     * @param qrCodeData Le token JWT extrait du QR Code.
-     * @param secret La clé secrète utilisée pour signer le token.
-     * @return Un message indiquant le statut du scan.
+     * Traite le scan d'un QR Code à partir du hash extrait du token JWT (déjà vérifié).
+     * La recherche se fait par clé de partition dans qr_lookup ; les codes générés avant
+     * l'introduction de cette table sont retrouvés via qr_hash puis recopiés dans qr_lookup.
+     * @param qrCodeData Le hash extrait du token JWT.
+     * @return Les données de la course, ou null si le hash est inconnu.
      */
-    public QRHash processScan(String qrCodeData) {
+    public QRLookup processScan(String qrCodeData) {
         // Extraction des données hachées du token JWT
         String extractedHashedData = qrCodeData;
         
@@ -29,13 +89,43 @@ public class ScanService {
             return null;
         }
 
-        // Vérification dans la base de données
-        Optional<QRHash> storedHash = qrHashRepository.findByHash(extractedHashedData);
+        // Vérification dans la base de données (une seule lecture de partition)
+        Optional<QRLookup> lookup = selectLookupTimer.record(() -> qrLookupRepository.findByHash(extractedHashedData, SCAN_READ));
+        if (lookup.isPresent()) {
+            return lookup.get();
+        }
+        return legacyFallback ? migrateLegacy(extractedHashedData) : null;
+    }
+
+    /**
+     * Révoque un QR Code : les lignes qr_lookup et qr_hash sont supprimées (le repli sur qr_hash
+     * ne peut donc pas le retrouver) et l'entrée du cache est invalidée.
+     */
+    public void revoke(QRLookup lookup) {
+        qrLookupRepository.deleteById(lookup.getHash());
+        if (lookup.getQrHashId() != null) {
+            qrHashRepository.deleteById(lookup.getQrHashId());
+        }
+        scanCache.invalidate(lookup.getHash());
+    }
 
-        if (storedHash.isPresent()) {
-            return storedHash.get();
-        } else {
+    private QRLookup migrateLegacy(String hash) {
+        Optional<QRHash> storedHash = selectHashTimer.record(() -> qrHashRepository.findByHash(hash, SCAN_READ));
+        if (storedHash.isEmpty()) {
             return null;
         }
+        Optional<QRData> data = selectDataTimer.record(() -> qrDataRepository.findById(storedHash.get().getQrDataId()));
+        if (data.isEmpty()) {
+            return null;
+        }
+        // Recopie conditionnelle : si une autre recopie ou le backfill l'a devancée, la ligne en place fait foi.
+        // Elle expire avec la ligne qr_hash d'origine.
+        QRLookup lookup = QRLookup.of(storedHash.get(), data.get());
+        Integer ttlSeconds = selectHashTimer.record(() -> qrHashRepository.findRemainingTtl(storedHash.get().getId()));
+        Duration ttl = ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null;
+        if (asyncQRRepository.saveLookupIfAbsent(lookup, ttl).join()) {
+            return lookup;
+        }
+        return selectLookupTimer.record(() -> qrLookupRepository.findByHash(hash, SCAN_READ)).orElse(null);
     }
 }
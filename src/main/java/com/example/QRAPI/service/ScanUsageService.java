@@ -0,0 +1,144 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.QRUsageRepository;
+import com.example.QRAPI.repository.QRUsageRepository.CasResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consommation des QR Codes à usage limité ({@code max_uses} renseigné dans qr_lookup).
+ * Chaque scan accepté incrémente qr_usage par LWT ; la ligne expire avec le code ({@link RetentionPolicy#ttlUntil}). Les codes épuisés sont mémorisés localement
+ * jusqu'à l'expiration de leur token : un rejeu sur le même nœud est refusé sans aller-retour Paxos.
+ * L'ensemble local est exact (pas de faux positif, un code valide n'est jamais refusé à tort) et
+ * borné ; une entrée évincée coûte seulement un LWT, qui refusera le code à son tour.
+ * Les codes sans {@code max_uses} ne touchent ni Cassandra ni l'ensemble local.
+ * Le scan qui consomme la dernière utilisation inscrit le code dans la liste de révocation des lecteurs
+ * hors ligne ({@link RevocationService}).
+ */
+@Service
+public class ScanUsageService {
+
+    public enum Outcome { ACCEPTED, EXHAUSTED, CONTENDED }
+
+    private final QRUsageRepository qrUsageRepository;
+    private final RevocationService revocationService;
+    private final RetentionPolicy retentionPolicy;
+    private final Cache<String, Long> exhausted;
+    private final int maxAttempts;
+    private final Timer lwtTimer;
+    private final Counter contentionCounter;
+    private final Counter localRejectCounter;
+    private final Counter remoteRejectCounter;
+
+    public ScanUsageService(QRUsageRepository qrUsageRepository, RevocationService revocationService,
+                            RetentionPolicy retentionPolicy, MeterRegistry meterRegistry,
+                            @Value("${qrapi.usage.exhausted-cache.max-size:100000}") long maxSize,
+                            @Value("${qrapi.usage.max-attempts:5}") int maxAttempts) {
+        this.qrUsageRepository = qrUsageRepository;
+        this.revocationService = revocationService;
+        this.retentionPolicy = retentionPolicy;
+        this.maxAttempts = maxAttempts;
+        this.exhausted = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exhausted, "exhaustedQRCache");
+        this.lwtTimer = Timer.builder("scan.usage.lwt")
+                .description("Durée d'un LWT sur qr_usage")
+                .register(meterRegistry);
+        this.contentionCounter = Counter.builder("scan.usage.contention")
+                .description("LWT non appliqués car le compteur a changé entre-temps")
+                .register(meterRegistry);
+        this.localRejectCounter = Counter.builder("scan.usage.rejected")
+                .tag("source", "local")
+                .description("Scans refusés : code déjà épuisé")
+                .register(meterRegistry);
+        this.remoteRejectCounter = Counter.builder("scan.usage.rejected")
+                .tag("source", "lwt")
+                .description("Scans refusés : code déjà épuisé")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre une utilisation du code scanné.
+     * @param expiration Expiration du token : au-delà, inutile de mémoriser le code épuisé.
+     * @return {@link Outcome#ACCEPTED} si le scan est autorisé, {@link Outcome#EXHAUSTED} si toutes les
+     * utilisations sont consommées, {@link Outcome#CONTENDED} si le compteur n'a pas pu être mis à jour
+     * après {@code max-attempts} essais (scans simultanés du même code).
+     */
+    public Outcome consume(QRLookup lookup, Date expiration) {
+        Integer maxUses = lookup.getMaxUses();
+        if (maxUses == null) {
+            return Outcome.ACCEPTED;
+        }
+        String hash = lookup.getHash();
+        if (exhausted.getIfPresent(hash) != null) {
+            localRejectCounter.increment();
+            return Outcome.EXHAUSTED;
+        }
+
+        Duration ttl = retentionPolicy.ttlUntil(expiration);
+        int ttlSeconds = ttl != null ? (int) ttl.toSeconds() : 0;
+        CasResult result = lwtTimer.record(() -> qrUsageRepository.recordFirstUse(hash, ttlSeconds));
+        int uses = 1;
+        for (int attempt = 1; !result.applied(); attempt++) {
+            uses = result.uses();
+            if (uses >= maxUses) {
+                markExhausted(hash, expiration);
+                remoteRejectCounter.increment();
+                return Outcome.EXHAUSTED;
+            }
+            if (attempt > 1) {
+                contentionCounter.increment();
+            }
+            if (attempt >= maxAttempts) {
+                return Outcome.CONTENDED;
+            }
+            int expected = uses;
+            result = lwtTimer.record(() -> qrUsageRepository.recordUse(hash, expected, ttlSeconds));
+            uses = expected + 1;
+        }
+        if (uses >= maxUses) {
+            markExhausted(hash, expiration);
+            revocationService.record(hash, RevocationSnapshot.Reason.EXHAUSTED, expiration);
+        }
+        return Outcome.ACCEPTED;
+    }
+
+    private void markExhausted(String hash, Date expiration) {
+        if (expiration != null && expiration.getTime() > System.currentTimeMillis()) {
+            exhausted.put(hash, expiration.getTime());
+        }
+    }
+
+    // Valeur : instant d'expiration du token, en millisecondes
+    private static class TokenExpiry implements Expiry<String, Long> {
+        @Override
+        public long expireAfterCreate(String key, Long expiresAtMillis, long currentTime) {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiresAtMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Long expiresAtMillis, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, expiresAtMillis, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Long expiresAtMillis, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
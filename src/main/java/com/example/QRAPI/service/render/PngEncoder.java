@@ -0,0 +1,125 @@
+package com.example.QRAPI.service.render;
+
+import com.example.QRAPI.BoundedPool;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodeur PNG niveaux de gris 1 bit pour {@link QRMatrix}, sans {@code BufferedImage} ni ImageIO.
+ * Le {@link Deflater}, la ligne de pixels et les tampons de sortie sont réutilisés ({@link BoundedPool}) ;
+ * un Deflater en surplus est libéré aussitôt ({@code end()}) plutôt qu'à son passage par le GC.
+ */
+public final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final BoundedPool<Buffers> BUFFERS = new BoundedPool<>(Buffers::new, buffers -> buffers.deflater.end());
+
+    private PngEncoder() {
+    }
+
+    public static byte[] encode(QRMatrix matrix) {
+        Buffers buffers = BUFFERS.acquire();
+        try {
+            return encode(matrix, buffers);
+        } finally {
+            BUFFERS.release(buffers);
+        }
+    }
+
+    private static byte[] encode(QRMatrix matrix, Buffers buffers) {
+        int rowLength = 1 + (matrix.getWidth() + 7) / 8;
+        byte[] row = buffers.row(rowLength);
+
+        // Données image : octet de filtre (0 = aucun) suivi des pixels de chaque ligne
+        Deflater deflater = buffers.deflater;
+        Buffer idat = buffers.idat;
+        deflater.reset();
+        idat.reset();
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            row[0] = 0;
+            matrix.fillRow(y, row, 1);
+            deflater.setInput(row, 0, rowLength);
+            while (!deflater.needsInput()) {
+                idat.write(buffers.chunk, 0, deflater.deflate(buffers.chunk));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            idat.write(buffers.chunk, 0, deflater.deflate(buffers.chunk));
+        }
+
+        Buffer out = buffers.out;
+        out.reset();
+        out.writeBytes(SIGNATURE);
+
+        byte[] header = buffers.header;
+        writeInt(header, 0, matrix.getWidth());
+        writeInt(header, 4, matrix.getHeight());
+        header[8] = 1;   // profondeur : 1 bit
+        header[9] = 0;   // niveaux de gris
+        header[10] = 0;  // compression deflate
+        header[11] = 0;  // filtrage adaptatif standard
+        header[12] = 0;  // non entrelacé
+        writeChunk(out, buffers, IHDR, header, 13);
+        writeChunk(out, buffers, IDAT, idat.array(), idat.size());
+        writeChunk(out, buffers, IEND, header, 0);
+        return out.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, Buffers buffers, byte[] type, byte[] data, int length) {
+        byte[] word = buffers.word;
+        CRC32 crc = buffers.crc;
+        writeInt(word, 0, length);
+        out.writeBytes(word);
+        out.writeBytes(type);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, length);
+        writeInt(word, 0, (int) crc.getValue());
+        out.writeBytes(word);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static final class Buffers {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final Buffer idat = new Buffer();
+        final Buffer out = new Buffer();
+        final CRC32 crc = new CRC32();
+        final byte[] header = new byte[13];
+        final byte[] word = new byte[4];
+        final byte[] chunk = new byte[4096];
+        byte[] row = new byte[0];
+
+        byte[] row(int length) {
+            if (row.length < length) {
+                row = new byte[length];
+            }
+            return row;
+        }
+    }
+
+    // Expose le tableau interne pour calculer le CRC sans copie
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(4096);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.QRAPI.service.render;
+
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Formats de sortie des QR Codes générés.
+ */
+public enum QRFormat {
+    /** PNG niveaux de gris 1 bit. */
+    PNG(MediaType.IMAGE_PNG),
+    /** SVG vectoriel : un chemin par suite de modules sombres, taille indépendante de la résolution. */
+    SVG(MediaType.parseMediaType("image/svg+xml")),
+    /**
+     * Matrice brute des modules, sans marge : largeur en modules sur 4 octets (big-endian) puis une
+     * ligne de {@code ceil(largeur / 8)} octets par rangée, bit de poids fort en premier, 1 = sombre.
+     */
+    RAW(MediaType.parseMediaType("application/vnd.qrapi.modules"));
+
+    private final MediaType mediaType;
+
+    QRFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Choisit le format : paramètre {@code format} s'il est fourni, sinon le type reconnu du header
+     * {@code Accept} de plus haute qualité ({@code q}, ordre du header à qualité égale ; {@code q=0} exclut
+     * le type), PNG par défaut. {@code *}{@code /*} n'impose rien : PNG.
+     * @throws IllegalArgumentException si le paramètre {@code format} est inconnu.
+     */
+    public static QRFormat negotiate(String format, List<MediaType> accept) {
+        if (format != null && !format.isBlank()) {
+            return valueOf(format.trim().toUpperCase());
+        }
+        // Tri stable : à qualité égale, l'ordre du client est conservé
+        List<MediaType> byQuality = accept.stream()
+                .filter(mediaType -> mediaType.getQualityValue() > 0)
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .toList();
+        for (MediaType mediaType : byQuality) {
+            for (QRFormat candidate : values()) {
+                if (!mediaType.isWildcardType() && mediaType.includes(candidate.mediaType)) {
+                    return candidate;
+                }
+            }
+        }
+        return PNG;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.QRAPI.service.render;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.Arrays;
+
+/**
+ * Matrice de modules d'un QR Code et sa mise à l'échelle en pixels, avec la même géométrie que
+ * {@code QRCodeWriter} (marge en modules, facteur entier, image centrée). Les lignes de pixels
+ * sont produites à la demande : aucune {@code BitMatrix} pleine taille n'est allouée.
+ */
+public final class QRMatrix {
+
+    private final ByteMatrix modules;
+    private final int margin;
+    private final int width;
+    private final int height;
+    private final int multiple;
+    private final int leftPadding;
+    private final int topPadding;
+
+    private QRMatrix(ByteMatrix modules, int size, int margin) {
+        this.modules = modules;
+        this.margin = margin;
+        int qrWidth = modules.getWidth() + margin * 2;
+        int qrHeight = modules.getHeight() + margin * 2;
+        this.width = Math.max(size, qrWidth);
+        this.height = Math.max(size, qrHeight);
+        this.multiple = Math.min(width / qrWidth, height / qrHeight);
+        this.leftPadding = (width - modules.getWidth() * multiple) / 2;
+        this.topPadding = (height - modules.getHeight() * multiple) / 2;
+    }
+
+    public static QRMatrix encode(String contents, int size, int margin, ErrorCorrectionLevel errorCorrection) throws WriterException {
+        return new QRMatrix(Encoder.encode(contents, errorCorrection).getMatrix(), size, margin);
+    }
+
+    public static QRMatrix encode(String contents, RenderOptions options) throws WriterException {
+        return encode(contents, options.size(), options.margin(), options.errorCorrection());
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /** Nombre de modules par côté, hors marge. */
+    public int getModuleCount() { return modules.getWidth(); }
+    public int getMargin() { return margin; }
+
+    /** Rangée {@code y} des modules (1 = sombre), sans copie. */
+    public byte[] moduleRow(int y) {
+        return modules.getArray()[y];
+    }
+
+    /**
+     * Écrit la ligne de pixels {@code y} en 1 bit par pixel (1 = blanc, 0 = noir, bit de poids
+     * fort en premier) dans {@code row} à partir de {@code offset}.
+     */
+    public void fillRow(int y, byte[] row, int offset) {
+        Arrays.fill(row, offset, offset + (width + 7) / 8, (byte) 0xFF);
+        int moduleY = y - topPadding;
+        if (moduleY < 0 || moduleY >= modules.getHeight() * multiple) {
+            return;
+        }
+        byte[] moduleRow = modules.getArray()[moduleY / multiple];
+        for (int x = 0; x < moduleRow.length; x++) {
+            if (moduleRow[x] == 1) {
+                int start = leftPadding + x * multiple;
+                for (int px = start; px < start + multiple; px++) {
+                    row[offset + (px >> 3)] &= (byte) ~(0x80 >>> (px & 7));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.QRAPI.service.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodeur de la matrice brute ({@link QRFormat#RAW}) : largeur sur 4 octets puis les rangées
+ * de modules packées à 1 bit, soit 460 octets pour un QR Code version 10 (57 modules).
+ */
+public final class RawMatrixEncoder {
+
+    private RawMatrixEncoder() {
+    }
+
+    public static void write(QRMatrix matrix, OutputStream out) throws IOException {
+        int count = matrix.getModuleCount();
+        out.write(count >>> 24);
+        out.write(count >>> 16);
+        out.write(count >>> 8);
+        out.write(count);
+
+        byte[] packed = new byte[(count + 7) / 8];
+        for (int y = 0; y < count; y++) {
+            byte[] row = matrix.moduleRow(y);
+            Arrays.fill(packed, (byte) 0);
+            for (int x = 0; x < count; x++) {
+                if (row[x] == 1) {
+                    packed[x >> 3] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+            out.write(packed);
+        }
+    }
+}
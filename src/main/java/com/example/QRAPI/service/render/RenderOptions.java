@@ -0,0 +1,25 @@
+package com.example.QRAPI.service.render;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+/**
+ * Paramètres de rendu d'un QR Code : format, taille en pixels (PNG / SVG), marge en modules
+ * et niveau de correction d'erreur.
+ */
+public record RenderOptions(QRFormat format, int size, int margin, ErrorCorrectionLevel errorCorrection) {
+
+    public static final int MIN_SIZE = 21;
+    public static final int MAX_SIZE = 4096;
+
+    /** Rendu historique de /api/qr/generate : PNG 350x350, marge 1, correction L. */
+    public static final RenderOptions DEFAULT = new RenderOptions(QRFormat.PNG, 350, 1, ErrorCorrectionLevel.L);
+
+    public RenderOptions {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("La taille doit être comprise entre " + MIN_SIZE + " et " + MAX_SIZE);
+        }
+        if (margin < 0 || margin > 16) {
+            throw new IllegalArgumentException("La marge doit être comprise entre 0 et 16 modules");
+        }
+    }
+}
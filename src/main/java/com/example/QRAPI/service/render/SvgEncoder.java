@@ -0,0 +1,55 @@
+package com.example.QRAPI.service.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodeur SVG écrit au fil de l'eau : les coordonnées sont en modules (viewBox), chaque suite
+ * de modules sombres d'une rangée devient un rectangle du chemin. Le navigateur ou le client
+ * mobile met à l'échelle sans perte.
+ */
+public final class SvgEncoder {
+
+    private SvgEncoder() {
+    }
+
+    public static void write(QRMatrix matrix, int size, OutputStream out) throws IOException {
+        int count = matrix.getModuleCount();
+        int margin = matrix.getMargin();
+        int extent = count + margin * 2;
+
+        StringBuilder buffer = new StringBuilder(256);
+        buffer.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(extent).append(' ').append(extent)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        flush(buffer, out);
+
+        for (int y = 0; y < count; y++) {
+            byte[] row = matrix.moduleRow(y);
+            int x = 0;
+            while (x < count) {
+                if (row[x] != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < count && row[x] == 1) {
+                    x++;
+                }
+                buffer.append('M').append(start + margin).append(' ').append(y + margin)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+            flush(buffer, out);
+        }
+        buffer.append("\"/></svg>");
+        flush(buffer, out);
+    }
+
+    private static void flush(StringBuilder buffer, OutputStream out) throws IOException {
+        out.write(buffer.toString().getBytes(StandardCharsets.US_ASCII));
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.QRAPI.controller;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.HistoryEntry;
+import com.example.QRAPI.repository.HistoryByProviderRepository;
+import com.example.QRAPI.service.HistoryExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class HistoryControllerTest {
+
+    private static final Instant FROM = Instant.parse("2026-10-16T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-10-17T23:59:59Z");
+
+    @Autowired
+    private HistoryController historyController;
+    @Autowired
+    private HistoryByProviderRepository historyByProviderRepository;
+
+    // Fournisseur propre à chaque test : les partitions en mémoire sont partagées par le contexte
+    private final String provider = "fournisseur-" + UUID.randomUUID();
+    private final Principal principal = () -> provider;
+
+    @Test
+    void pagesCrossDayBoundaryWithoutGapOrDuplicate() {
+        List<Instant> scans = List.of(
+                Instant.parse("2026-10-17T00:00:02Z"),
+                Instant.parse("2026-10-17T00:00:01Z"),
+                Instant.parse("2026-10-17T00:00:00Z"),
+                Instant.parse("2026-10-16T23:59:59Z"),
+                Instant.parse("2026-10-16T23:59:58Z"));
+        for (Instant scannedAt : scans) {
+            save(scannedAt);
+        }
+
+        List<Instant> read = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            HistoryController.HistoryPage page = page(cursor, 2);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(2);
+            page.items().stream().map(HistoryEntry::scannedAt).forEach(read::add);
+            cursor = page.next();
+            if (cursor != null) {
+                cursors.add(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            }
+        } while (cursor != null);
+
+        assertThat(read).containsExactlyElementsOf(scans);
+        // Milieu du 17, puis 17 épuisé au milieu de la page : la suite reprend dans la partition du 16
+        assertThat(cursors).hasSize(2);
+        assertThat(cursors.get(0)).startsWith("2026-10-17.");
+        assertThat(cursors.get(1)).startsWith("2026-10-16.");
+    }
+
+    @Test
+    void cursorOutsideRangeIsRejected() {
+        save(Instant.parse("2026-10-17T12:00:00Z"));
+
+        assertThat(status(encode("2026-10-18"))).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status(encode("2026-10-15"))).isEqualTo(HttpStatus.BAD_REQUEST);
+        // Jour dans l'intervalle, sans état de pagination : lecture depuis le début de la partition
+        assertThat(status(encode("2026-10-17"))).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThat(status("pas du base64 !")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status(encode("hier"))).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status(encode("2026-10-17.pas-un-timeuuid"))).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void exportStreamsOnlyTheCallersHistory() throws Exception {
+        save(Instant.parse("2026-10-17T12:00:00Z"));
+        LocalDate day = LocalDate.parse("2026-10-17");
+
+        ResponseEntity<StreamingResponseBody> response = historyController.exportHistory("csv", day, day, principal);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(HistoryExportService.Format.CSV.getMediaType());
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("history.csv");
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(2).last().asString().contains(provider);
+        ResponseEntity<StreamingResponseBody> other = historyController.exportHistory("ndjson", day, day, () -> "autre-" + provider);
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        other.getBody().writeTo(empty);
+        assertThat(empty.size()).isZero();
+
+        assertThat(historyController.exportHistory("xml", day, day, principal).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(historyController.exportHistory("csv", day, day.minusDays(1), principal).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(historyController.exportHistory("csv", day.minusDays(366), day, principal).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private void save(Instant scannedAt) {
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setFournisseur(provider);
+        history.setScannedAt(Uuids.startOf(scannedAt.toEpochMilli()));
+        historyByProviderRepository.savePartition(List.of(history)).join();
+    }
+
+    private HistoryController.HistoryPage page(String cursor, int pageSize) {
+        ResponseEntity<?> response = historyController.findHistory(null, FROM, TO, pageSize, cursor, principal);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return (HistoryController.HistoryPage) response.getBody();
+    }
+
+    private HttpStatus status(String cursor) {
+        return HttpStatus.valueOf(historyController.findHistory(null, FROM, TO, 10, cursor, principal).getStatusCode().value());
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
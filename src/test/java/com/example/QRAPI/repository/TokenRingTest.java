@@ -0,0 +1,66 @@
+package com.example.QRAPI.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenRange;
+import com.example.QRAPI.repository.TokenRing.ScanRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRingTest {
+
+    private static CqlSession session(Set<TokenRange> ranges) {
+        CqlSession session = mock(CqlSession.class);
+        Metadata metadata = mock(Metadata.class);
+        TokenMap tokenMap = mock(TokenMap.class);
+        when(session.getMetadata()).thenReturn(metadata);
+        when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+        when(tokenMap.getTokenRanges()).thenReturn(ranges);
+        return session;
+    }
+
+    private static Murmur3TokenRange range(long start, long end) {
+        return new Murmur3TokenRange(new Murmur3Token(start), new Murmur3Token(end));
+    }
+
+    private static long value(ScanRange range, boolean start) {
+        return ((Murmur3Token) (start ? range.start() : range.end())).getValue();
+    }
+
+    @Test
+    void wrappingRangeIsSplitAtRingEnd() {
+        // Trois nœuds : (100, -100] fait le tour de l'anneau
+        List<ScanRange> ranges = TokenRing.split(session(Set.of(range(-100, 0), range(0, 100), range(100, -100))), 6);
+
+        assertThat(ranges).hasSizeGreaterThanOrEqualTo(6);
+        List<ScanRange> sorted = ranges.stream().sorted(Comparator.comparingLong(range -> value(range, true))).toList();
+        // Plages contiguës du plus petit token à la fin de l'anneau, aucune ne fait le tour
+        assertThat(value(sorted.get(0), true)).isEqualTo(Long.MIN_VALUE);
+        for (int i = 0; i < sorted.size() - 1; i++) {
+            ScanRange range = sorted.get(i);
+            assertThat(value(range, true)).isLessThan(value(range, false));
+            assertThat(range.end()).isEqualTo(sorted.get(i + 1).start());
+        }
+        ScanRange last = sorted.get(sorted.size() - 1);
+        assertThat(value(last, true)).isGreaterThanOrEqualTo(100);
+        assertThat(last.end()).isNull();
+        assertThat(ranges).filteredOn(range -> range.end() == null).hasSize(1);
+    }
+
+    @Test
+    void singleTokenOrUnknownRingScansWholeTable() {
+        assertThat(TokenRing.split(session(Set.of(range(42, 42))), 8)).containsExactly(new ScanRange(null, null));
+        assertThat(TokenRing.split(session(Set.of()), 8)).containsExactly(new ScanRange(null, null));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.QRAPI.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base45Test {
+
+    private static String encode(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        return Base45.encode(data, data.length);
+    }
+
+    @Test
+    void encodesRfc9285Examples() {
+        assertThat(encode("AB")).isEqualTo("BB8");
+        assertThat(encode("Hello!!")).isEqualTo("%69 VD92EX0");
+        assertThat(encode("base-45")).isEqualTo("UJCLQE7W581");
+        assertThat(encode("ietf!")).isEqualTo("QED8WEX0");
+    }
+
+    @Test
+    void decodesFromOffset() {
+        assertThat(new String(Base45.decode("QR1:QED8WEX0", 4), StandardCharsets.UTF_8)).isEqualTo("ietf!");
+        assertThat(Base45.decode("QR1:", 4)).isEmpty();
+    }
+
+    @Test
+    void roundTripsEvenAndOddLengths() {
+        Random random = new Random(45);
+        for (int length = 0; length < 70; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            // Seuls les length premiers octets du tampon sont encodés
+            byte[] buffer = new byte[length + 3];
+            System.arraycopy(data, 0, buffer, 0, length);
+            assertThat(Base45.decode(Base45.encode(buffer, length), 0)).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThatThrownBy(() -> Base45.decode("BB8B", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Base45.decode("bb8", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Base45.decode("BBé", 0)).isInstanceOf(IllegalArgumentException.class);
+        // ":::" vaut 44 + 44 * 45 + 44 * 2025 > 0xFFFF, "::" vaut 44 + 44 * 45 > 0xFF
+        assertThatThrownBy(() -> Base45.decode(":::", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Base45.decode("::", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
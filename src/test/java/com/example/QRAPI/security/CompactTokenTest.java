@@ -0,0 +1,64 @@
+package com.example.QRAPI.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactTokenTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor("secret-de-test-hs256-au-moins-32-octets".getBytes(StandardCharsets.UTF_8));
+    private static final SecretKey OTHER_KEY = Keys.hmacShaKeyFor("autre-secret-hs256-lui-aussi-32-octets".getBytes(StandardCharsets.UTF_8));
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3_600_000);
+    }
+
+    @Test
+    void signedTokenVerifiesToHashAndExpiration() {
+        Date expiration = inOneHour();
+        String token = CompactToken.sign(HASH, KEY, expiration);
+
+        assertThat(CompactToken.isCompact(token)).isTrue();
+        // 84 caractères, tous dans l'alphabet alphanumérique des QR Codes
+        assertThat(token).hasSize(84).matches("[0-9A-Z $%*+\\-./:]+");
+        Claims claims = CompactToken.verify(token, KEY);
+        assertThat(claims.getSubject()).isEqualTo(HASH);
+        assertThat(claims.getExpiration().getTime()).isEqualTo(expiration.getTime() / 1000 * 1000);
+    }
+
+    @Test
+    void rejectsOtherKeyAndAlteredToken() {
+        String token = CompactToken.sign(HASH, KEY, inOneHour());
+
+        assertThat(CompactToken.verify(token, OTHER_KEY)).isNull();
+        char last = token.charAt(token.length() - 1);
+        String altered = token.substring(0, token.length() - 1) + (last == '0' ? '1' : '0');
+        assertThat(CompactToken.verify(altered, KEY)).isNull();
+        assertThat(CompactToken.verify(CompactToken.PREFIX + "BB8", KEY)).isNull();
+        assertThat(CompactToken.verify(CompactToken.PREFIX + "invalide", KEY)).isNull();
+    }
+
+    @Test
+    void expiredTokenKeepsValidSignature() {
+        Date expiration = new Date(System.currentTimeMillis() - 60_000);
+        String token = CompactToken.sign(HASH, KEY, expiration);
+
+        assertThat(CompactToken.verify(token, KEY)).isNull();
+        Claims claims = CompactToken.verifySignature(token, KEY);
+        assertThat(claims.getSubject()).isEqualTo(HASH);
+        assertThat(claims.getExpiration()).isBefore(new Date());
+    }
+
+    @Test
+    void rejectsHashOfWrongLength() {
+        assertThatThrownBy(() -> CompactToken.sign("abcd", KEY, inOneHour())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
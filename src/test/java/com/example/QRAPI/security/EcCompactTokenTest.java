@@ -0,0 +1,75 @@
+package com.example.QRAPI.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EcCompactTokenTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private static KeyPair pair;
+    private static KeyPair otherPair;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        pair = generator.generateKeyPair();
+        otherPair = generator.generateKeyPair();
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3_600_000);
+    }
+
+    @Test
+    void signedTokenVerifiesWithPublicKeyOfKid() {
+        Date expiration = inOneHour();
+        String token = EcCompactToken.sign(HASH, "k1", pair.getPrivate(), expiration);
+
+        assertThat(EcCompactToken.isCompact(token)).isTrue();
+        assertThat(token).matches("QR2:[0-9A-Z $%*+\\-./:]+");
+        Claims claims = EcCompactToken.verifySignature(token, Map.of("k1", pair.getPublic())::get);
+        assertThat(claims.getSubject()).isEqualTo(HASH);
+        assertThat(claims.getExpiration().getTime()).isEqualTo(expiration.getTime() / 1000 * 1000);
+    }
+
+    @Test
+    void rejectsUnknownKidOtherKeyAndAlteredToken() {
+        String token = EcCompactToken.sign(HASH, "k1", pair.getPrivate(), inOneHour());
+
+        assertThat(EcCompactToken.verifySignature(token, Map.<String, PublicKey>of("k2", pair.getPublic())::get)).isNull();
+        assertThat(EcCompactToken.verifySignature(token, Map.of("k1", otherPair.getPublic())::get)).isNull();
+        char last = token.charAt(token.length() - 1);
+        String altered = token.substring(0, token.length() - 1) + (last == '0' ? '1' : '0');
+        assertThat(EcCompactToken.verifySignature(altered, Map.of("k1", pair.getPublic())::get)).isNull();
+        assertThat(EcCompactToken.verifySignature(EcCompactToken.PREFIX + "BB8", Map.of("k1", pair.getPublic())::get)).isNull();
+    }
+
+    @Test
+    void expiredTokenStillReturnsClaims() {
+        String token = EcCompactToken.sign(HASH, "k1", pair.getPrivate(), new Date(System.currentTimeMillis() - 60_000));
+
+        Claims claims = EcCompactToken.verifySignature(token, Map.of("k1", pair.getPublic())::get);
+        assertThat(claims.getExpiration()).isBefore(new Date());
+    }
+
+    @Test
+    void rejectsInvalidHashAndKid() {
+        assertThatThrownBy(() -> EcCompactToken.sign("abcd", "k1", pair.getPrivate(), inOneHour()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> EcCompactToken.sign(HASH, "k".repeat(256), pair.getPrivate(), inOneHour()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
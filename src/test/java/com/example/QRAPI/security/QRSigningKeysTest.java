@@ -0,0 +1,35 @@
+package com.example.QRAPI.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRSigningKeysTest {
+
+    private static String token(String header) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(header.getBytes(StandardCharsets.UTF_8)) + ".e30.sig";
+    }
+
+    @Test
+    void detectsEs256Header() {
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("{\"alg\":\"ES256\",\"kid\":\"k1\"}"))).isTrue();
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("{ \"kid\": \"k1\", \"alg\" : \"ES256\" }"))).isTrue();
+    }
+
+    @Test
+    void ignoresAlgOutsideTopLevelMember() {
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("{\"alg\":\"HS256\",\"kid\":\"\\\"alg\\\":\\\"ES256\\\"\"}"))).isFalse();
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("{\"x\":{\"alg\":\"ES256\"},\"alg\":\"HS256\"}"))).isFalse();
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("{\"alg\":[\"ES256\"]}"))).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThat(QRSigningKeys.isAsymmetricJwt("sans-point")).isFalse();
+        assertThat(QRSigningKeys.isAsymmetricJwt("!!!.e30.sig")).isFalse();
+        assertThat(QRSigningKeys.isAsymmetricJwt(token("[\"ES256\"]"))).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.QRAPI.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void bucketAcceptsBurstThenRejectsWithWait() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(new RateLimitProperties.Limit(10.0, 3));
+        long now = System.nanoTime() + SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.acquire(now)).isZero();
+        }
+        long wait = bucket.acquire(now);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND / 10);
+        // Après l'attente annoncée, une requête passe de nouveau, et une seule
+        assertThat(bucket.acquire(now + wait)).isZero();
+        assertThat(bucket.acquire(now + wait)).isPositive();
+    }
+
+    @Test
+    void bucketRefillsAtRate() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(new RateLimitProperties.Limit(2.0, 1));
+        long now = System.nanoTime() + SECOND;
+        assertThat(bucket.acquire(now)).isZero();
+        assertThat(bucket.acquire(now)).isEqualTo(SECOND / 2);
+        assertThat(bucket.acquire(now + SECOND / 2)).isZero();
+        // Un seau longtemps inutilisé ne dépasse pas son burst
+        long later = now + 60 * SECOND;
+        assertThat(bucket.acquire(later)).isZero();
+        assertThat(bucket.acquire(later)).isPositive();
+    }
+
+    @Test
+    void bucketAcceptsExactlyBurstUnderContention() throws InterruptedException {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(new RateLimitProperties.Limit(0.001, 50));
+        long now = System.nanoTime() + SECOND;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 100; j++) {
+                    if (bucket.acquire(now) == 0) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(accepted.get()).isEqualTo(50);
+    }
+
+    @Test
+    void partialOverrideInheritsMissingFields() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefault(new RateLimitProperties.Limit(50.0, 100));
+        properties.setEndpoints(Map.of("qr-generate", new RateLimitProperties.Limit(20.0, 40)));
+        properties.setProviders(Map.of("acme", Map.of(
+                "qr-generate", new RateLimitProperties.Limit(null, 5),
+                "default", new RateLimitProperties.Limit(7.0, null))));
+
+        RateLimitProperties.Limit generate = properties.resolve("acme", "qr-generate");
+        assertThat(generate.getRate()).isEqualTo(7.0);
+        assertThat(generate.getBurst()).isEqualTo(5);
+
+        RateLimitProperties.Limit other = properties.resolve("acme", "qr-scan");
+        assertThat(other.getRate()).isEqualTo(7.0);
+        assertThat(other.getBurst()).isEqualTo(100);
+
+        RateLimitProperties.Limit unknownProvider = properties.resolve("globex", "qr-generate");
+        assertThat(unknownProvider.getRate()).isEqualTo(20.0);
+        assertThat(unknownProvider.getBurst()).isEqualTo(40);
+    }
+}
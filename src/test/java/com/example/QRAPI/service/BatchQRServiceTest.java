@@ -0,0 +1,183 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchQRServiceTest {
+
+    private final PendingWrites writes = new PendingWrites();
+    private BatchQRService service;
+
+    private BatchQRService service(int parallelism) throws Exception {
+        QRCodeService qrCodeService = mock(QRCodeService.class);
+        when(qrCodeService.sign(any(), any(), anyLong(), anyBoolean())).thenAnswer(call -> "token-" + call.getArgument(0));
+        when(qrCodeService.generateQRCodeImageFromData(any(String.class)))
+                .thenAnswer(call -> call.<String>getArgument(0).getBytes(StandardCharsets.UTF_8));
+        service = new BatchQRService(qrCodeService, new QRDataHasher(new SimpleMeterRegistry()), writes,
+                new RetentionPolicy(true, Duration.ofDays(7)), parallelism);
+        return service;
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    private static List<QRData> batch(int size) {
+        return IntStream.range(0, size).mapToObj(i -> {
+            QRData qrData = new QRData();
+            qrData.setClientId((long) i);
+            return qrData;
+        }).toList();
+    }
+
+    @Test
+    void keepsAtMostWindowInFlightAndWritesInCompletionOrder() throws Exception {
+        // 2 threads : fenêtre de 4 éléments
+        BatchQRService service = service(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                service.generateBatch(batch(6), "acme", "secret", 60_000, false, null, out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        await(() -> writes.size() == 4);
+        Thread.sleep(100);
+        assertThat(writes.size()).isEqualTo(4);
+
+        // Un élément terminé libère une place dans la fenêtre
+        writes.complete(2);
+        await(() -> writes.size() == 5);
+        writes.complete(0);
+        await(() -> writes.size() == 6);
+        for (int index : new int[]{5, 1, 4, 3}) {
+            writes.complete(index);
+        }
+        running.get();
+
+        assertThat(entries(out.toByteArray())).containsExactly(
+                "qr-00002.png", "qr-00000.png", "qr-00005.png", "qr-00001.png", "qr-00004.png", "qr-00003.png");
+    }
+
+    @Test
+    void failedItemBecomesErrorEntry() throws Exception {
+        BatchQRService service = service(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writes.failing = 1;
+        writes.completeImmediately = true;
+
+        service.generateBatch(batch(3), "acme", "secret", 60_000, false, null, out);
+
+        assertThat(entries(out.toByteArray())).containsExactlyInAnyOrder("qr-00000.png", "qr-00001.error.txt", "qr-00002.png");
+    }
+
+    private static List<String> entries(byte[] zip) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("délai dépassé").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Écritures retenues jusqu'à ce que le test les termine, dans l'ordre de son choix
+    private static class PendingWrites implements AsyncQRRepository {
+        private final List<CompletableFuture<Void>> pending = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> clientIds = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean completeImmediately;
+        volatile long failing = -1;
+
+        int size() {
+            return pending.size();
+        }
+
+        void complete(long clientId) {
+            pending.get(clientIds.indexOf(clientId)).complete(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> saveGenerated(QRData qrData, QRHash qrHash, Integer maxUses, Duration ttl, Instant writtenAt) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            synchronized (pending) {
+                clientIds.add(qrData.getClientId());
+                pending.add(future);
+            }
+            if (qrData.getClientId() == failing) {
+                future.completeExceptionally(new IllegalStateException("écriture refusée"));
+            } else if (completeImmediately) {
+                future.complete(null);
+            }
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<QRData> saveData(QRData qrData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<QRHash> saveHash(QRHash qrHash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<QRLookup> saveLookup(QRLookup lookup) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> saveLookupIfAbsent(QRLookup lookup, Duration ttl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<History> saveHistory(History history) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<QRLookup> findLookup(String hash) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
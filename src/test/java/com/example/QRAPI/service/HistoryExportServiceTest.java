@@ -0,0 +1,171 @@
+package com.example.QRAPI.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.repository.HistoryExportRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryByProviderRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HistoryExportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2026-10-17");
+
+    private HistoryExportService service;
+
+    private HistoryExportService service(HistoryExportRepository repository, int parallelism, int pageSize, int maxInFlightPages) {
+        service = new HistoryExportService(repository, new ObjectMapper(), parallelism, pageSize, maxInFlightPages, 2);
+        return service;
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void exportsOnlyTheProviderAndDaysRequested() throws Exception {
+        InMemoryHistoryByProviderRepository partitions = new InMemoryHistoryByProviderRepository();
+        partitions.savePartition(List.of(history("acme", DAY.minusDays(1), 1, "Paris"), history("acme", DAY.minusDays(1), 2, "Lyon"))).join();
+        partitions.savePartition(List.of(history("acme", DAY, 3, "Nice"))).join();
+        partitions.savePartition(List.of(history("acme", DAY.plusDays(1), 4, "Lille"))).join();
+        partitions.savePartition(List.of(history("autre", DAY, 5, "Brest"))).join();
+        HistoryExportService service = service(new InMemoryHistoryExportRepository(partitions), 2, 1, 2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export("acme", DAY.minusDays(1), DAY, HistoryExportService.Format.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(3);
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(lines.stream().map(line -> {
+            try {
+                return objectMapper.readTree(line).get("clientId").asLong();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        })).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void csvQuotesFieldsWithSeparatorsQuotesOrLineBreaks() throws Exception {
+        InMemoryHistoryByProviderRepository partitions = new InMemoryHistoryByProviderRepository();
+        History history = history("acme", DAY, 7, "Saint-Denis, \"La Plaine\"");
+        history.setLieu("Quai 1\nSortie B");
+        history.setPays(null);
+        partitions.savePartition(List.of(history)).join();
+        HistoryExportService service = service(new InMemoryHistoryExportRepository(partitions), 1, 10, 2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export("acme", DAY, DAY, HistoryExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,clientId,chauffeurId,courseId,lieu,fournisseur,heure,date,ville,pays\n"
+                        + history.getId() + ",7,12,345,\"Quai 1\nSortie B\",acme,08:30,2026-10-17,"
+                        + "\"Saint-Denis, \"\"La Plaine\"\"\",\n");
+    }
+
+    @Test
+    void slowClientHoldsReadersToBoundedPages() throws Exception {
+        AtomicInteger pagesRead = new AtomicInteger();
+        HistoryExportRepository endless = (supplier, day, pageSize, consumer) -> {
+            for (int i = 0; i < 50; i++) {
+                pagesRead.incrementAndGet();
+                if (!consumer.accept(List.of(history(supplier, day, i, "Paris")))) {
+                    return;
+                }
+            }
+        };
+        HistoryExportService service = service(endless, 1, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream blockedClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.write(b, off, len);
+            }
+        };
+
+        CompletableFuture<Void> export = CompletableFuture.runAsync(() -> {
+            try {
+                service.export("acme", DAY, DAY, HistoryExportService.Format.NDJSON, blockedClient);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(300);
+        // Page en cours d'écriture, file pleine (2), lecteur bloqué sur la page suivante
+        assertThat(pagesRead.get()).isLessThanOrEqualTo(4);
+        assertThat(export).isNotDone();
+
+        release.countDown();
+        export.get();
+        assertThat(pagesRead.get()).isEqualTo(50);
+        assertThat(written.toString(StandardCharsets.UTF_8).lines()).hasSize(50);
+    }
+
+    @Test
+    void readFailureBecomesIOExceptionAndStopsOtherReaders() {
+        AtomicInteger pagesRead = new AtomicInteger();
+        HistoryExportRepository failing = (supplier, day, pageSize, consumer) -> {
+            if (day.equals(DAY)) {
+                throw new IllegalStateException("partition illisible");
+            }
+            for (int i = 0; i < 1_000 && consumer.accept(List.of(history(supplier, day, i, "Paris"))); i++) {
+                pagesRead.incrementAndGet();
+            }
+        };
+        HistoryExportService service = service(failing, 2, 1, 2);
+
+        assertThatThrownBy(() -> service.export("acme", DAY.minusDays(1), DAY, HistoryExportService.Format.NDJSON,
+                OutputStream.nullOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasRootCauseMessage("partition illisible");
+        assertThat(pagesRead.get()).isLessThan(1_000);
+    }
+
+    private static History history(String supplier, LocalDate day, long clientId, String ville) {
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setFournisseur(supplier);
+        history.setClientId(clientId);
+        history.setChauffeurId(12L);
+        history.setCourseId(345L);
+        history.setLieu("Gare");
+        history.setHeure("08:30");
+        history.setDate(day.toString());
+        history.setVille(ville);
+        history.setPays("France");
+        Instant scannedAt = day.atTime(8, 30).toInstant(ZoneOffset.UTC).plusMillis(clientId);
+        history.setScannedAt(Uuids.startOf(scannedAt.toEpochMilli()));
+        return history;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.repository.memory.InMemoryAsyncQRRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryByProviderRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRDataRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRHashRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRLookupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryWriteBehindTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryHistoryRepository historyRepository = new InMemoryHistoryRepository();
+    private final HistoryWriteBehind writeBehind = new HistoryWriteBehind(
+            new InMemoryAsyncQRRepository(new InMemoryQRDataRepository(), new InMemoryQRHashRepository(),
+                    new InMemoryQRLookupRepository(), historyRepository),
+            new InMemoryHistoryByProviderRepository(), meterRegistry, 100, 10, Duration.ofMillis(50));
+
+    private static History scan() {
+        History history = new History();
+        history.setFournisseur("acme");
+        history.setVille("Paris");
+        return history;
+    }
+
+    @Test
+    void entryWithoutIdIsWrittenThroughQueue() {
+        writeBehind.start();
+        History history = scan();
+        writeBehind.submit(history);
+        writeBehind.stop();
+
+        assertThat(history.getId()).isNotNull();
+        assertThat(history.getScannedAt()).isNotNull();
+        assertThat(historyRepository.findById(history.getId())).isPresent();
+        assertThat(meterRegistry.get("history.writebehind.failures").counter().count()).isZero();
+    }
+
+    @Test
+    void entryWithoutIdIsWrittenSynchronouslyWhenStopped() {
+        History history = scan();
+        writeBehind.submit(history);
+
+        assertThat(historyRepository.findById(history.getId())).isPresent();
+        assertThat(meterRegistry.get("history.writebehind.failures").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.controller.OfflineController;
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.repository.ScanCountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OfflineScanServiceTest {
+
+    private static final String SECRET = "secret-de-test-hs256-au-moins-32-octets";
+    private static final long EXPIRATION = 3_600_000;
+
+    @Autowired
+    private OfflineScanService offlineScanService;
+    @Autowired
+    private OfflineController offlineController;
+    @Autowired
+    private QRGenerationService generationService;
+    @Autowired
+    private ScanAggregator scanAggregator;
+
+    // Fournisseur propre au test : les compteurs de scans sont partagés par le contexte
+    private final String provider = "fournisseur-" + UUID.randomUUID();
+
+    @Test
+    void resentBatchIsNotConsumedOrCountedTwice() {
+        // Deux utilisations : le lot les prend toutes les deux
+        String token = generate(2);
+        Instant scannedAt = Instant.now().minusSeconds(60);
+        List<OfflineScanService.OfflineScan> batch = List.of(scan(token, scannedAt), scan(token, scannedAt.plusSeconds(5)));
+
+        List<OfflineScanService.OfflineScanResult> first = offlineScanService.upload(batch, SECRET);
+        List<OfflineScanService.OfflineScanResult> resent = offlineScanService.upload(batch, SECRET);
+
+        assertThat(first).extracting(OfflineScanService.OfflineScanResult::status)
+                .containsExactly(OfflineScanService.Status.OK, OfflineScanService.Status.OK);
+        assertThat(resent).extracting(OfflineScanService.OfflineScanResult::status)
+                .containsExactly(OfflineScanService.Status.DUPLICATE, OfflineScanService.Status.DUPLICATE);
+        assertThat(scans()).isEqualTo(2);
+
+        // Un nouveau scan trouve le code épuisé par le premier envoi seulement
+        List<OfflineScanService.OfflineScanResult> another = offlineScanService.upload(List.of(scan(token, scannedAt)), SECRET);
+        assertThat(another).extracting(OfflineScanService.OfflineScanResult::status)
+                .containsExactly(OfflineScanService.Status.USED);
+        assertThat(scans()).isEqualTo(3);
+    }
+
+    @Test
+    void scanWithoutInstantOrIdIsRejected() {
+        String token = generate(null);
+        History withoutId = new History();
+
+        assertThat(offlineController.uploadOfflineScans(List.of(scan(token, Instant.now()),
+                new OfflineScanService.OfflineScan(token, null, history())), SECRET).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(offlineController.uploadOfflineScans(List.of(
+                new OfflineScanService.OfflineScan(token, Instant.now(), withoutId)), SECRET).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(scans()).isZero();
+    }
+
+    private String generate(Integer maxUses) {
+        QRData qrData = new QRData();
+        qrData.setClientId(UUID.randomUUID().getMostSignificantBits());
+        qrData.setVille("Paris");
+        QRGenerationService.Generated generated = generationService.generate(null, qrData, provider, SECRET, EXPIRATION, false, maxUses);
+        generated.writes().join();
+        return generated.token();
+    }
+
+    private static OfflineScanService.OfflineScan scan(String token, Instant scannedAt) {
+        return new OfflineScanService.OfflineScan(token, scannedAt, history());
+    }
+
+    private static History history() {
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setVille("Paris");
+        history.setPays("France");
+        return history;
+    }
+
+    // Scans comptés pour le fournisseur du test, toutes minutes confondues
+    private long scans() {
+        Instant now = Instant.now();
+        return scanAggregator.series(provider, ScanAggregator.Dimension.FOURNISSEUR, provider,
+                        now.minus(Duration.ofMinutes(5)), now.plus(Duration.ofMinutes(1))).stream()
+                .mapToLong(ScanCountRepository.MinuteCount::scans)
+                .sum();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRDataHasherTest {
+
+    private final QRDataHasher hasher = new QRDataHasher(new SimpleMeterRegistry());
+
+    // Ancien chemin : SHA-256 du JSON de toString(), qui a produit les hash des QR Codes existants
+    private static String legacyHash(QRData qrData) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(qrData.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static QRData qrData(Long clientId, String lieu, String ville) {
+        QRData qrData = new QRData();
+        qrData.setId(UUID.fromString("0a1b2c3d-4e5f-6071-8293-a4b5c6d7e8f9"));
+        qrData.setClientId(clientId);
+        qrData.setChauffeurId(12L);
+        qrData.setCourseId(345L);
+        qrData.setLieu(lieu);
+        qrData.setFournisseur("acme");
+        qrData.setHeure("08:30");
+        qrData.setDate("2026-10-18");
+        qrData.setVille(ville);
+        qrData.setPays("France");
+        return qrData;
+    }
+
+    @Test
+    void matchesLegacyHashOfToString() throws Exception {
+        QRData qrData = qrData(7L, "Gare de Lyon", "Paris");
+        assertThat(hasher.hash(qrData)).isEqualTo(legacyHash(qrData));
+    }
+
+    @Test
+    void matchesLegacyHashWithNullFields() throws Exception {
+        assertThat(hasher.hash(new QRData())).isEqualTo(legacyHash(new QRData()));
+        QRData qrData = qrData(null, null, "Paris");
+        qrData.setId(null);
+        assertThat(hasher.hash(qrData)).isEqualTo(legacyHash(qrData));
+    }
+
+    @Test
+    void matchesLegacyHashForExtremeNumbers() throws Exception {
+        for (long clientId : new long[]{0, -1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            QRData qrData = qrData(clientId, "Gare de Lyon", "Paris");
+            assertThat(hasher.hash(qrData)).isEqualTo(legacyHash(qrData));
+        }
+    }
+
+    @Test
+    void matchesLegacyHashForNonAsciiText() throws Exception {
+        // 2, 3 et 4 octets en UTF-8, surrogate isolé, guillemet et chaîne plus longue que le tampon initial
+        String[] lieux = {"Aéroport Orly", "東京駅", "Gare 🚆", "x\uD800y", "y\uDC00", "\"quai\"", "é".repeat(200)};
+        for (String lieu : lieux) {
+            QRData qrData = qrData(7L, lieu, "Saint-Étienne");
+            assertThat(hasher.hash(qrData)).as(lieu).isEqualTo(legacyHash(qrData));
+        }
+    }
+
+    @Test
+    void reusedDigestStartsFromScratch() {
+        QRData first = qrData(7L, "é".repeat(200), "Paris");
+        QRData second = qrData(8L, "Gare de Lyon", "Paris");
+        String expected = hasher.hash(second);
+        hasher.hash(first);
+        assertThat(hasher.hash(second)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.AsyncQRRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QRGenerationServiceTest {
+
+    private static final String FOURNISSEUR = "acme";
+    private static final String SECRET = "secret-de-test-hs256-au-moins-32-octets";
+    private static final long EXPIRATION = 3_600_000;
+
+    @Autowired
+    private QRGenerationService generationService;
+    @Autowired
+    private QRCodeService qrCodeService;
+    @Autowired
+    private ScanService scanService;
+    @Autowired
+    private RevocationService revocationService;
+    @Autowired
+    private AsyncQRRepository asyncQRRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void replayReturnsSameTokenWithoutNewRows() {
+        String key = newKey();
+        QRGenerationService.Generated first = generate(key, qrData(7L));
+        first.writes().join();
+        QRGenerationService.Generated replay = generate(key, qrData(7L));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(replay.replayed()).isTrue();
+        assertThat(replay.token()).isEqualTo(first.token());
+        assertThat(replay.writes()).isCompleted();
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        String key = newKey();
+        generate(key, qrData(7L)).writes().join();
+
+        assertThatThrownBy(() -> generate(key, qrData(8L)))
+                .isInstanceOf(QRGenerationService.IdempotencyKeyReusedException.class);
+        // Options de signature comprises dans l'empreinte
+        assertThatThrownBy(() -> generationService.generate(key, qrData(7L), FOURNISSEUR, SECRET, EXPIRATION, false, 3))
+                .isInstanceOf(QRGenerationService.IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void concurrentRequestsShareOneGeneration() throws Exception {
+        String key = newKey();
+        double created = idempotencyCount("created");
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> tokens = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<CompletableFuture<Void>> requests = IntStream.range(0, threads)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        QRGenerationService.Generated generated = generate(key, qrData(7L));
+                        generated.writes().join();
+                        tokens.add(generated.token());
+                    }, executor))
+                    .toList();
+            start.countDown();
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        }
+
+        assertThat(tokens).hasSize(1);
+        assertThat(idempotencyCount("created") - created).isEqualTo(1.0);
+    }
+
+    @Test
+    void revokedCodeIsRegeneratedUnderSameKey() {
+        String key = newKey();
+        QRGenerationService.Generated first = generate(key, qrData(7L));
+        first.writes().join();
+        String revokedHash = hash(first.token());
+
+        // Chemin de /revoke : clé libérée, puis lignes supprimées
+        generationService.release(revokedHash);
+        scanService.revoke(asyncQRRepository.findLookup(revokedHash).join());
+
+        QRGenerationService.Generated again = generate(key, qrData(7L));
+        again.writes().join();
+        assertThat(again.replayed()).isFalse();
+        assertThat(hash(again.token())).isNotEqualTo(revokedHash);
+        assertThat(asyncQRRepository.findLookup(revokedHash).join()).isNull();
+    }
+
+    @Test
+    void revocationSeenFromAnotherNodeReleasesKey() {
+        String key = newKey();
+        QRGenerationService.Generated first = generate(key, qrData(7L));
+        first.writes().join();
+        String revokedHash = hash(first.token());
+
+        // Révoqué par un autre nœud : lignes supprimées, clé toujours réservée et en cache sur ce nœud
+        QRLookup lookup = asyncQRRepository.findLookup(revokedHash).join();
+        scanService.revoke(lookup);
+        revocationService.record(revokedHash, RevocationSnapshot.Reason.REVOKED, new Date(System.currentTimeMillis() + EXPIRATION));
+        revocationService.poll();
+
+        QRGenerationService.Generated again = generate(key, qrData(7L));
+        again.writes().join();
+        assertThat(again.token()).isNotEqualTo(first.token());
+        assertThat(asyncQRRepository.findLookup(revokedHash).join()).isNull();
+    }
+
+    private QRGenerationService.Generated generate(String key, QRData qrData) {
+        return generationService.generate(key, qrData, FOURNISSEUR, SECRET, EXPIRATION, false, null);
+    }
+
+    private String hash(String token) {
+        return qrCodeService.verifyClaims(token, SECRET).getSubject();
+    }
+
+    private double idempotencyCount(String result) {
+        return meterRegistry.get("qr.generate.idempotency").tag("result", result).counter().count();
+    }
+
+    private String newKey() {
+        return generationService.key(FOURNISSEUR, UUID.randomUUID().toString(), null);
+    }
+
+    private static QRData qrData(long clientId) {
+        QRData qrData = new QRData();
+        qrData.setClientId(clientId);
+        qrData.setChauffeurId(12L);
+        qrData.setCourseId(345L);
+        qrData.setLieu("Gare de Lyon");
+        qrData.setHeure("08:30");
+        qrData.setDate("2026-10-18");
+        qrData.setVille("Paris");
+        qrData.setPays("France");
+        return qrData;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.History;
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.service.render.QRFormat;
+import com.example.QRAPI.service.render.RenderOptions;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class QRImageScanServiceTest {
+
+    private static final String FOURNISSEUR = "acme";
+    private static final String SECRET = "secret-de-test-hs256-au-moins-32-octets";
+    private static final long EXPIRATION = 3_600_000;
+
+    @Autowired
+    private QRImageScanService imageScanService;
+    @Autowired
+    private QRGenerationService generationService;
+    @Autowired
+    private QRCodeService qrCodeService;
+    @Autowired
+    private ScanService scanService;
+    @Autowired
+    private HistoryWriteBehind historyWriteBehind;
+    @Autowired
+    private ScanUsageService scanUsageService;
+    @Autowired
+    private ScanAggregator scanAggregator;
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    @Test
+    void resultsFollowImageOrderAndEachImageIsJudgedAlone() throws Exception {
+        QRData qrData = qrData();
+        String token = generate(qrData, null);
+        String forged = qrCodeService.sign("0".repeat(64), "autre-secret-hs256-au-moins-32-octets", EXPIRATION, false);
+
+        List<QRImageScanService.ImageScanResult> results = imageScanService.scan(List.of(
+                image(png(forged, 350)), image("pas une image".getBytes()), image(png(token, 350))), SECRET, template());
+
+        assertThat(results).extracting(QRImageScanService.ImageScanResult::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(QRImageScanService.ImageScanResult::status).containsExactly(
+                QRImageScanService.Status.INVALID, QRImageScanService.Status.UNREADABLE, QRImageScanService.Status.OK);
+        assertThat(results.get(2).data().getClientId()).isEqualTo(qrData.getClientId());
+    }
+
+    @Test
+    void singleUseCodeIsConsumedOnce() throws Exception {
+        byte[] image = png(generate(qrData(), 1), 350);
+
+        List<QRImageScanService.ImageScanResult> results = imageScanService.scan(List.of(image(image)), SECRET, template());
+        List<QRImageScanService.ImageScanResult> again = imageScanService.scan(List.of(image(image)), SECRET, template());
+
+        assertThat(results.get(0).status()).isEqualTo(QRImageScanService.Status.OK);
+        assertThat(again.get(0).status()).isEqualTo(QRImageScanService.Status.USED);
+        assertThat(again.get(0).data()).isNull();
+    }
+
+    @Test
+    void largePhotoIsSubsampledBeforeDecoding() throws Exception {
+        String token = generate(qrData(), null);
+
+        // 3000 px pour un plafond de 1024 : lecture d'un pixel sur trois
+        assertThat(imageScanService.decode(new ByteArrayInputStream(png(token, 3000)))).isEqualTo(token);
+    }
+
+    @Test
+    void saturatedPoolRefusesInsteadOfQueueing() throws Exception {
+        // Un thread occupé, une place en file : la troisième image est refusée
+        QRImageScanService saturated = new QRImageScanService(qrCodeService, scanService, historyWriteBehind,
+                scanUsageService, scanAggregator, scanMetrics, 1, 1, 1024);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<List<QRImageScanService.ImageScanResult>> running = CompletableFuture.supplyAsync(() ->
+                    saturated.scan(List.of(blocked(release), blocked(release), image(new byte[0])), SECRET, template()));
+            Thread.sleep(100);
+            assertThat(running).isNotDone();
+            release.countDown();
+
+            assertThat(running.get()).extracting(QRImageScanService.ImageScanResult::status).containsExactly(
+                    QRImageScanService.Status.UNREADABLE, QRImageScanService.Status.UNREADABLE, QRImageScanService.Status.BUSY);
+        } finally {
+            release.countDown();
+            saturated.shutdown();
+        }
+    }
+
+    private String generate(QRData qrData, Integer maxUses) {
+        QRGenerationService.Generated generated = generationService.generate(null, qrData, FOURNISSEUR, SECRET, EXPIRATION, false, maxUses);
+        generated.writes().join();
+        return generated.token();
+    }
+
+    private byte[] png(String token, int size) throws Exception {
+        return qrCodeService.generateQRCodeImageFromData(token, new RenderOptions(QRFormat.PNG, size, 2, ErrorCorrectionLevel.L));
+    }
+
+    private static MultipartFile image(byte[] bytes) {
+        return new MockMultipartFile("images", "qr.png", "image/png", bytes);
+    }
+
+    // Image vide dont la lecture attend le signal du test
+    private static MultipartFile blocked(CountDownLatch release) {
+        return new MockMultipartFile("images", new byte[0]) {
+            @Override
+            public InputStream getInputStream() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        };
+    }
+
+    private static History template() {
+        History history = new History();
+        history.setLieu("Gare de Lyon");
+        history.setHeure("08:30");
+        history.setDate("2026-10-18");
+        history.setVille("Paris");
+        history.setPays("France");
+        return history;
+    }
+
+    private static QRData qrData() {
+        QRData qrData = new QRData();
+        qrData.setClientId(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        qrData.setChauffeurId(12L);
+        qrData.setCourseId(345L);
+        qrData.setLieu("Gare de Lyon");
+        qrData.setHeure("08:30");
+        qrData.setDate("2026-10-18");
+        qrData.setVille("Paris");
+        qrData.setPays("France");
+        return qrData;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.memory.InMemoryAsyncQRRepository;
+import com.example.QRAPI.repository.memory.InMemoryHistoryRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRDataRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRHashRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRLookupRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRLookupBackfillTest {
+
+    // TTL restant d'une ligne qr_hash : fixé par le test, le profil memory n'en gère pas
+    private final Map<UUID, Integer> hashTtls = new HashMap<>();
+    private final InMemoryQRHashRepository qrHashes = new InMemoryQRHashRepository() {
+        @Override
+        public Integer findRemainingTtl(UUID id) {
+            return hashTtls.get(id);
+        }
+    };
+    private final InMemoryQRDataRepository qrData = new InMemoryQRDataRepository();
+    private final InMemoryQRLookupRepository lookups = new InMemoryQRLookupRepository();
+    private final Map<String, Duration> lookupTtls = new HashMap<>();
+    private final QRLookupBackfill backfill = new QRLookupBackfill(qrHashes, qrData,
+            new InMemoryAsyncQRRepository(qrData, qrHashes, lookups, new InMemoryHistoryRepository()) {
+                @Override
+                public synchronized CompletableFuture<Boolean> saveLookupIfAbsent(QRLookup lookup, Duration ttl) {
+                    lookupTtls.put(lookup.getHash(), ttl);
+                    return super.saveLookupIfAbsent(lookup, ttl);
+                }
+            }, 100);
+
+    @Test
+    void rerunKeepsExistingRowsAndTheirMaxUses() {
+        QRHash limited = stored("a".repeat(64), true);
+        lookups.save(QRLookup.of(limited, qrData.findById(limited.getQrDataId()).orElseThrow(), 3));
+        QRHash legacy = stored("b".repeat(64), true);
+        QRHash orphan = stored("c".repeat(64), false);
+
+        backfill.run(null);
+        backfill.run(null);
+
+        assertThat(lookups.findById(limited.getHash())).get().extracting(QRLookup::getMaxUses).isEqualTo(3);
+        assertThat(lookups.findById(legacy.getHash())).get().satisfies(lookup -> {
+            assertThat(lookup.getQrHashId()).isEqualTo(legacy.getId());
+            assertThat(lookup.getMaxUses()).isNull();
+        });
+        assertThat(lookups.existsById(orphan.getHash())).isFalse();
+    }
+
+    @Test
+    void copiedRowExpiresWithItsQrHashRow() {
+        QRHash expiring = stored("d".repeat(64), true);
+        hashTtls.put(expiring.getId(), 86_400);
+        QRHash permanent = stored("e".repeat(64), true);
+
+        backfill.run(null);
+
+        assertThat(lookupTtls.get(expiring.getHash())).isEqualTo(Duration.ofDays(1));
+        assertThat(lookupTtls).containsEntry(permanent.getHash(), null);
+    }
+
+    // Ligne qr_hash, avec sa ligne qr_data ou orpheline
+    private QRHash stored(String hash, boolean withData) {
+        QRData data = new QRData();
+        data.setId(UUID.randomUUID());
+        data.setClientId(7L);
+        data.setFournisseur("acme");
+        if (withData) {
+            qrData.save(data);
+        }
+        QRHash qrHash = new QRHash();
+        qrHash.setId(UUID.randomUUID());
+        qrHash.setHash(hash);
+        qrHash.setQrDataId(data.getId());
+        return qrHashes.save(qrHash);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.memory.InMemoryRevocationRepository;
+import com.example.QRAPI.service.RevocationSnapshot.Reason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScanCache scanCache = new ScanCache(meterRegistry, 1000, Duration.ofMinutes(5));
+    private final InMemoryRevocationRepository revocations = new InMemoryRevocationRepository();
+    private final RevocationService service = new RevocationService(revocations, scanCache, meterRegistry, Duration.ofSeconds(10), 1);
+
+    @Test
+    void codeRevokedOnAnotherNodeLeavesTheScanCache() {
+        Date expiration = new Date(System.currentTimeMillis() + 3_600_000);
+        QRLookup revoked = cached("a".repeat(64), expiration);
+        QRLookup exhausted = cached("b".repeat(64), expiration);
+        service.run(null);
+
+        // Entrées écrites par un autre nœud, vues à la relecture suivante
+        service.record(revoked.getHash(), Reason.REVOKED, expiration);
+        service.record(exhausted.getHash(), Reason.EXHAUSTED, expiration);
+        service.poll();
+
+        assertThat(service.isRevoked(revoked.getHash())).isTrue();
+        assertThat(scanCache.get(revoked.getHash())).isNull();
+        // Code épuisé : le cache garde le code, la consommation le refuse
+        assertThat(scanCache.get(exhausted.getHash())).isSameAs(exhausted);
+    }
+
+    private QRLookup cached(String hash, Date expiration) {
+        QRData data = new QRData();
+        data.setId(UUID.randomUUID());
+        QRHash qrHash = new QRHash();
+        qrHash.setId(UUID.randomUUID());
+        qrHash.setHash(hash);
+        QRLookup lookup = QRLookup.of(qrHash, data);
+        scanCache.put(hash, lookup, expiration);
+        return lookup;
+    }
+}
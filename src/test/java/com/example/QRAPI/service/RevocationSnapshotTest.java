@@ -0,0 +1,117 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.service.RevocationSnapshot.Entry;
+import com.example.QRAPI.service.RevocationSnapshot.Reason;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationSnapshotTest {
+
+    private static final long T0 = 1_760_000_000_000L;
+
+    private static Entry entry(long atMillis, int hashByte, Reason reason) {
+        byte[] hash = new byte[32];
+        Arrays.fill(hash, (byte) hashByte);
+        return new Entry(atMillis, hash, reason, atMillis + 3_600_000);
+    }
+
+    // Décodage du format QRV1, comme un lecteur hors ligne
+    private record Decoded(long atMillis, Reason reason, long validitySeconds, byte[] hash) {
+    }
+
+    private static List<Decoded> decode(byte[] encoded, long since) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        assertThat(new String(bytes(in, 4), StandardCharsets.US_ASCII)).isEqualTo("QRV1");
+        long count = readVarint(in);
+        List<Decoded> decoded = new ArrayList<>();
+        long at = since;
+        for (long i = 0; i < count; i++) {
+            at += readVarint(in);
+            Reason reason = Reason.values()[in.get()];
+            long validity = readVarint(in);
+            decoded.add(new Decoded(at, reason, validity, bytes(in, 32)));
+        }
+        assertThat(in.hasRemaining()).isFalse();
+        return decoded;
+    }
+
+    private static byte[] bytes(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    @Test
+    void encodesAllEntriesSortedByInstant() {
+        RevocationSnapshot snapshot = RevocationSnapshot.of(T0 + 10_000, List.of(
+                entry(T0 + 2_000, 2, Reason.EXHAUSTED), entry(T0, 0, Reason.REVOKED), entry(T0 + 1_000, 1, Reason.REVOKED)));
+
+        List<Decoded> decoded = decode(snapshot.encode(0), 0);
+        assertThat(decoded).extracting(Decoded::atMillis).containsExactly(T0, T0 + 1_000, T0 + 2_000);
+        assertThat(decoded).extracting(Decoded::reason).containsExactly(Reason.REVOKED, Reason.REVOKED, Reason.EXHAUSTED);
+        assertThat(decoded).extracting(Decoded::validitySeconds).containsOnly(3_600L);
+        assertThat(decoded.get(2).hash()).containsOnly((byte) 2);
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.cursor()).isEqualTo(T0 + 10_000);
+    }
+
+    @Test
+    void sinceReturnsOnlyLaterEntriesRelativeToSince() {
+        RevocationSnapshot snapshot = RevocationSnapshot.of(T0 + 10_000, List.of(
+                entry(T0, 0, Reason.REVOKED), entry(T0 + 1_000, 1, Reason.REVOKED), entry(T0 + 2_000, 2, Reason.EXHAUSTED)));
+
+        // Entrée à l'instant exact de since déjà rendue à la mise à jour précédente
+        List<Decoded> decoded = decode(snapshot.encode(T0 + 1_000), T0 + 1_000);
+        assertThat(decoded).extracting(Decoded::atMillis).containsExactly(T0 + 2_000);
+        assertThat(decode(snapshot.encode(T0 + 500), T0 + 500)).extracting(Decoded::atMillis).containsExactly(T0 + 1_000, T0 + 2_000);
+        assertThat(decode(snapshot.encode(T0 + 2_000), T0 + 2_000)).isEmpty();
+    }
+
+    @Test
+    void etagChangesOnlyWithEntriesAfterSince() {
+        List<Entry> entries = new ArrayList<>(List.of(entry(T0, 0, Reason.REVOKED), entry(T0 + 1_000, 1, Reason.REVOKED)));
+        RevocationSnapshot snapshot = RevocationSnapshot.of(T0 + 10_000, entries);
+        String etag = snapshot.etag(T0);
+        byte[] full = snapshot.encode(0);
+
+        // Même contenu, curseur avancé : même ETag, encodage complet déjà calculé conservé
+        RevocationSnapshot advanced = snapshot.withCursor(T0 + 20_000);
+        assertThat(advanced.etag(T0)).isEqualTo(etag);
+        assertThat(advanced.encode(0)).isSameAs(full);
+        assertThat(advanced.cursor()).isEqualTo(T0 + 20_000);
+
+        entries.add(entry(T0 + 2_000, 2, Reason.EXHAUSTED));
+        RevocationSnapshot added = RevocationSnapshot.of(T0 + 20_000, entries);
+        assertThat(added.etag(T0)).isNotEqualTo(etag);
+        // Une entrée antérieure à since qui expire ne change pas la réponse de since
+        RevocationSnapshot expired = RevocationSnapshot.of(T0 + 20_000, entries.subList(1, 3));
+        assertThat(expired.etag(T0)).isEqualTo(added.etag(T0));
+        assertThat(expired.etag(0)).isNotEqualTo(added.etag(0));
+    }
+
+    @Test
+    void emptySnapshotEncodesHeaderOnly() {
+        RevocationSnapshot snapshot = RevocationSnapshot.of(T0, List.of());
+
+        assertThat(decode(snapshot.encode(0), 0)).isEmpty();
+        assertThat(snapshot.etag(0)).isEqualTo("\"0-0-0\"");
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.repository.ScanCountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScanAggregatorTest {
+
+    @Test
+    void flushWaitsForWritesWithoutBlockingOtherFlushes() throws Exception {
+        PendingCounts counts = new PendingCounts();
+        ScanAggregator aggregator = new ScanAggregator(counts, new SimpleMeterRegistry(), 100, Duration.ofSeconds(5));
+        aggregator.record("acme", "Paris", "France");
+        Instant from = Instant.now().minus(Duration.ofMinutes(2));
+        Instant to = Instant.now().plus(Duration.ofMinutes(2));
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(aggregator::flushAll);
+        while (counts.writes.size() < 3) {
+            Thread.sleep(5);
+        }
+        // Écritures en attente : un autre flush rend la main sans reverser la fenêtre
+        CompletableFuture.runAsync(aggregator::flushAll).get(1, TimeUnit.SECONDS);
+        CompletableFuture.runAsync(aggregator::flush).get(1, TimeUnit.SECONDS);
+        assertThat(counts.writes).hasSize(3);
+        assertThat(shutdown).isNotDone();
+        // Fenêtre conservée jusqu'aux réponses : la minute reste lisible
+        assertThat(aggregator.series("acme", ScanAggregator.Dimension.VILLE, "Paris", from, to))
+                .extracting(ScanCountRepository.MinuteCount::scans).containsExactly(1L);
+
+        counts.writes.forEach(write -> write.complete(null));
+        shutdown.get(1, TimeUnit.SECONDS);
+        assertThat(aggregator.series("acme", ScanAggregator.Dimension.VILLE, "Paris", from, to)).isEmpty();
+    }
+
+    // Incréments retenus jusqu'à ce que le test y réponde ; la table reste vide
+    private static class PendingCounts implements ScanCountRepository {
+        final List<CompletableFuture<Void>> writes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public CompletableFuture<Void> increment(String supplier, String dimension, String value, Instant minute, long delta) {
+            CompletableFuture<Void> write = new CompletableFuture<>();
+            writes.add(write);
+            return write;
+        }
+
+        @Override
+        public List<MinuteCount> find(String supplier, String dimension, String value, LocalDate day, Instant from, Instant to) {
+            return List.of();
+        }
+    }
+}
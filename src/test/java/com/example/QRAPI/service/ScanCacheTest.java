@@ -0,0 +1,61 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRLookup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScanCacheTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private static ScanCache cache(Duration maxTtl) {
+        return new ScanCache(new SimpleMeterRegistry(), 1000, maxTtl);
+    }
+
+    private static Date in(long millis) {
+        return new Date(System.currentTimeMillis() + millis);
+    }
+
+    @Test
+    void entryExpiresWithToken() throws InterruptedException {
+        ScanCache cache = cache(Duration.ofMinutes(5));
+        QRLookup lookup = new QRLookup();
+        cache.put(HASH, lookup, in(200));
+
+        assertThat(cache.get(HASH)).isSameAs(lookup);
+        Thread.sleep(300);
+        assertThat(cache.get(HASH)).isNull();
+    }
+
+    @Test
+    void entryLivesAtMostMaxTtl() throws InterruptedException {
+        ScanCache cache = cache(Duration.ofMillis(200));
+        cache.put(HASH, new QRLookup(), in(3_600_000));
+
+        assertThat(cache.get(HASH)).isNotNull();
+        Thread.sleep(300);
+        assertThat(cache.get(HASH)).isNull();
+    }
+
+    @Test
+    void expiredOrUndatedTokenIsNotCached() {
+        ScanCache cache = cache(Duration.ofMinutes(5));
+        cache.put(HASH, new QRLookup(), in(-1_000));
+        assertThat(cache.get(HASH)).isNull();
+        cache.put(HASH, new QRLookup(), null);
+        assertThat(cache.get(HASH)).isNull();
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        ScanCache cache = cache(Duration.ofMinutes(5));
+        cache.put(HASH, new QRLookup(), in(3_600_000));
+        cache.invalidate(HASH);
+        assertThat(cache.get(HASH)).isNull();
+    }
+}
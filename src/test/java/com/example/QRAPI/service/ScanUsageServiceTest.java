@@ -0,0 +1,157 @@
+package com.example.QRAPI.service;
+
+import com.example.QRAPI.model.QRData;
+import com.example.QRAPI.model.QRHash;
+import com.example.QRAPI.model.QRLookup;
+import com.example.QRAPI.repository.QRUsageRepository;
+import com.example.QRAPI.repository.memory.InMemoryQRUsageRepository;
+import com.example.QRAPI.repository.memory.InMemoryRevocationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScanUsageServiceTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ScanUsageService service(QRUsageRepository repository, int maxAttempts) {
+        RevocationService revocationService = new RevocationService(new InMemoryRevocationRepository(),
+                new ScanCache(meterRegistry, 1000, Duration.ofMinutes(5)), meterRegistry,
+                Duration.ofSeconds(10), 1);
+        return new ScanUsageService(repository, revocationService, new RetentionPolicy(true, Duration.ofDays(7)),
+                meterRegistry, 1000, maxAttempts);
+    }
+
+    private static QRLookup lookup(Integer maxUses) {
+        QRHash qrHash = new QRHash();
+        qrHash.setHash(HASH);
+        return QRLookup.of(qrHash, new QRData(), maxUses);
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3_600_000);
+    }
+
+    @Test
+    void unlimitedCodeNeverTouchesCounter() {
+        CountingRepository repository = new CountingRepository(new InMemoryQRUsageRepository());
+        ScanUsageService service = service(repository, 5);
+
+        assertThat(service.consume(lookup(null), inOneHour())).isEqualTo(ScanUsageService.Outcome.ACCEPTED);
+        assertThat(repository.calls.get()).isZero();
+    }
+
+    @Test
+    void lastUseExhaustsCodeThenRejectsLocally() {
+        CountingRepository repository = new CountingRepository(new InMemoryQRUsageRepository());
+        ScanUsageService service = service(repository, 5);
+        Date expiration = inOneHour();
+
+        assertThat(service.consume(lookup(2), expiration)).isEqualTo(ScanUsageService.Outcome.ACCEPTED);
+        assertThat(service.consume(lookup(2), expiration)).isEqualTo(ScanUsageService.Outcome.ACCEPTED);
+        int calls = repository.calls.get();
+        // Code épuisé mémorisé : refusé sans LWT
+        assertThat(service.consume(lookup(2), expiration)).isEqualTo(ScanUsageService.Outcome.EXHAUSTED);
+        assertThat(repository.calls.get()).isEqualTo(calls);
+        assertThat(meterRegistry.get("scan.usage.rejected").tag("source", "local").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void exhaustedCounterFromAnotherNodeIsRejected() {
+        InMemoryQRUsageRepository repository = new InMemoryQRUsageRepository();
+        repository.recordFirstUse(HASH, 0);
+        repository.recordUse(HASH, 1, 0);
+        ScanUsageService service = service(repository, 5);
+
+        assertThat(service.consume(lookup(2), inOneHour())).isEqualTo(ScanUsageService.Outcome.EXHAUSTED);
+        assertThat(meterRegistry.get("scan.usage.rejected").tag("source", "lwt").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void retriesWithCurrentValueUntilMaxAttempts() {
+        // Un autre nœud incrémente le compteur entre chaque lecture et chaque compare-and-set
+        AtomicInteger uses = new AtomicInteger(1);
+        List<Integer> expected = new ArrayList<>();
+        QRUsageRepository contended = new QRUsageRepository() {
+            @Override
+            public CasResult recordFirstUse(String hash, int ttlSeconds) {
+                return new CasResult(false, uses.get());
+            }
+
+            @Override
+            public CasResult recordUse(String hash, int expectedUses, int ttlSeconds) {
+                expected.add(expectedUses);
+                return new CasResult(false, uses.incrementAndGet());
+            }
+        };
+        ScanUsageService service = service(contended, 3);
+
+        assertThat(service.consume(lookup(100), inOneHour())).isEqualTo(ScanUsageService.Outcome.CONTENDED);
+        assertThat(expected).containsExactly(1, 2);
+        assertThat(meterRegistry.get("scan.usage.contention").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void concurrentScansNeverExceedMaxUses() throws Exception {
+        ScanUsageService service = service(new InMemoryQRUsageRepository(), 1000);
+        Date expiration = inOneHour();
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ScanUsageService.Outcome>> outcomes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    return service.consume(lookup(5), expiration);
+                }));
+            }
+            start.countDown();
+            List<ScanUsageService.Outcome> results = new ArrayList<>();
+            for (Future<ScanUsageService.Outcome> outcome : outcomes) {
+                results.add(outcome.get());
+            }
+            Map<ScanUsageService.Outcome, Long> counts = results.stream()
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            assertThat(counts).containsEntry(ScanUsageService.Outcome.ACCEPTED, 5L)
+                    .containsEntry(ScanUsageService.Outcome.EXHAUSTED, (long) threads - 5);
+        }
+    }
+
+    private static class CountingRepository implements QRUsageRepository {
+        private final QRUsageRepository delegate;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingRepository(QRUsageRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CasResult recordFirstUse(String hash, int ttlSeconds) {
+            calls.incrementAndGet();
+            return delegate.recordFirstUse(hash, ttlSeconds);
+        }
+
+        @Override
+        public CasResult recordUse(String hash, int expected, int ttlSeconds) {
+            calls.incrementAndGet();
+            return delegate.recordUse(hash, expected, ttlSeconds);
+        }
+    }
+}
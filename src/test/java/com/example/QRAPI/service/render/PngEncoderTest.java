@@ -0,0 +1,79 @@
+package com.example.QRAPI.service.render;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PngEncoderTest {
+
+    private static final String PAYLOAD = "QR1:9F86D081884C7D659A2FEAA0C55AD015A3BF4F1B2B0B822CD15D6C15B0F00A08";
+
+    @Test
+    void pngDecodesBackToPayload() throws Exception {
+        byte[] png = PngEncoder.encode(QRMatrix.encode(PAYLOAD, 350, 1, ErrorCorrectionLevel.L));
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        assertThat(new MultiFormatReader().decode(bitmap).getText()).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    void writesSignatureAndOneBitGrayscaleHeader() throws Exception {
+        byte[] png = PngEncoder.encode(QRMatrix.encode(PAYLOAD, 350, 1, ErrorCorrectionLevel.L));
+        ByteBuffer buffer = ByteBuffer.wrap(png);
+
+        assertThat(Arrays.copyOf(png, 8)).containsExactly(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n');
+        buffer.position(8);
+        assertThat(buffer.getInt()).isEqualTo(13);
+        byte[] typeAndData = new byte[4 + 13];
+        buffer.get(typeAndData);
+        assertThat(new String(typeAndData, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("IHDR");
+        ByteBuffer ihdr = ByteBuffer.wrap(typeAndData, 4, 13);
+        assertThat(ihdr.getInt()).isEqualTo(350);
+        assertThat(ihdr.getInt()).isEqualTo(350);
+        // Profondeur 1 bit, niveaux de gris, deflate, filtrage standard, non entrelacé
+        assertThat(new byte[]{ihdr.get(), ihdr.get(), ihdr.get(), ihdr.get(), ihdr.get()}).containsExactly(1, 0, 0, 0, 0);
+        CRC32 crc = new CRC32();
+        crc.update(typeAndData);
+        assertThat(buffer.getInt()).isEqualTo((int) crc.getValue());
+        assertThat(new String(png, png.length - 8, 4, StandardCharsets.US_ASCII)).isEqualTo("IEND");
+    }
+
+    @Test
+    void pixelsMatchQRCodeWriter() throws Exception {
+        // 101 pixels : la dernière ligne d'octets n'est pas pleine
+        for (int size : new int[]{101, 350}) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+                    PngEncoder.encode(QRMatrix.encode(PAYLOAD, size, 2, ErrorCorrectionLevel.M))));
+            BitMatrix expected = new QRCodeWriter().encode(PAYLOAD, BarcodeFormat.QR_CODE, size, size,
+                    Map.of(EncodeHintType.MARGIN, 2, EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M));
+
+            assertThat(image.getWidth()).isEqualTo(expected.getWidth());
+            assertThat(image.getHeight()).isEqualTo(expected.getHeight());
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    boolean dark = (image.getRGB(x, y) & 0xFFFFFF) == 0;
+                    assertThat(dark).as("pixel %d,%d (%d px)", x, y, size).isEqualTo(expected.get(x, y));
+                }
+            }
+        }
+    }
+}
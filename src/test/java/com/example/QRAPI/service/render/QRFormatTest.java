@@ -0,0 +1,47 @@
+package com.example.QRAPI.service.render;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QRFormatTest {
+
+    private static QRFormat negotiate(String accept) {
+        return QRFormat.negotiate(null, MediaType.parseMediaTypes(accept));
+    }
+
+    @Test
+    void formatParameterWinsOverAccept() {
+        assertThat(QRFormat.negotiate(" svg ", MediaType.parseMediaTypes("image/png"))).isEqualTo(QRFormat.SVG);
+        assertThat(QRFormat.negotiate("raw", List.of())).isEqualTo(QRFormat.RAW);
+        assertThatThrownBy(() -> QRFormat.negotiate("gif", List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void picksFirstRecognisedType() {
+        assertThat(negotiate("image/svg+xml")).isEqualTo(QRFormat.SVG);
+        assertThat(negotiate("application/vnd.qrapi.modules")).isEqualTo(QRFormat.RAW);
+        assertThat(negotiate("text/html, image/svg+xml, image/png")).isEqualTo(QRFormat.SVG);
+        assertThat(negotiate("image/*")).isEqualTo(QRFormat.PNG);
+    }
+
+    @Test
+    void wildcardUnknownOrMissingAcceptGivesPng() {
+        assertThat(negotiate("*/*")).isEqualTo(QRFormat.PNG);
+        assertThat(negotiate("application/json, text/plain")).isEqualTo(QRFormat.PNG);
+        assertThat(QRFormat.negotiate(null, List.of())).isEqualTo(QRFormat.PNG);
+        assertThat(QRFormat.negotiate("", List.of())).isEqualTo(QRFormat.PNG);
+    }
+
+    @Test
+    void followsQualityValues() {
+        assertThat(negotiate("image/png;q=0.5, image/svg+xml")).isEqualTo(QRFormat.SVG);
+        assertThat(negotiate("application/vnd.qrapi.modules;q=0.9, image/svg+xml;q=0.9")).isEqualTo(QRFormat.RAW);
+        assertThat(negotiate("image/svg+xml;q=0, */*")).isEqualTo(QRFormat.PNG);
+        assertThat(negotiate("*/*;q=1, image/svg+xml;q=0.1")).isEqualTo(QRFormat.SVG);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.QRAPI.service.render;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawMatrixEncoderTest {
+
+    @Test
+    void writesWidthThenPackedRows() throws Exception {
+        QRMatrix matrix = QRMatrix.encode("QR1:9F86D081884C7D659A2FEAA0C55AD015", 350, 4, ErrorCorrectionLevel.L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RawMatrixEncoder.write(matrix, out);
+
+        int count = matrix.getModuleCount();
+        int rowBytes = (count + 7) / 8;
+        ByteBuffer raw = ByteBuffer.wrap(out.toByteArray());
+        // Ni marge ni mise à l'échelle : modules seuls
+        assertThat(raw.getInt()).isEqualTo(count);
+        assertThat(raw.remaining()).isEqualTo(count * rowBytes);
+        for (int y = 0; y < count; y++) {
+            byte[] packed = new byte[rowBytes];
+            raw.get(packed);
+            byte[] modules = matrix.moduleRow(y);
+            for (int x = 0; x < rowBytes * 8; x++) {
+                boolean dark = (packed[x >> 3] & (0x80 >>> (x & 7))) != 0;
+                // Bits de bourrage en fin de rangée à 0
+                assertThat(dark).as("module %d,%d", x, y).isEqualTo(x < count && modules[x] == 1);
+            }
+        }
+    }
+}
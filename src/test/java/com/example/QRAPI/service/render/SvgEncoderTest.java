@@ -0,0 +1,65 @@
+package com.example.QRAPI.service.render;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SvgEncoderTest {
+
+    private static final Pattern RUN = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v1h-(\\d+)z");
+
+    @Test
+    void svgIsWellFormedAndDrawsEveryDarkModule() throws Exception {
+        QRMatrix matrix = QRMatrix.encode("QR1:9F86D081884C7D659A2FEAA0C55AD015", 350, 2, ErrorCorrectionLevel.M);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SvgEncoder.write(matrix, 350, out);
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        Element svg = document.getDocumentElement();
+        int count = matrix.getModuleCount();
+        int extent = count + 2 * matrix.getMargin();
+        assertThat(svg.getLocalName()).isEqualTo("svg");
+        assertThat(svg.getNamespaceURI()).isEqualTo("http://www.w3.org/2000/svg");
+        assertThat(svg.getAttribute("width")).isEqualTo("350");
+        assertThat(svg.getAttribute("viewBox")).isEqualTo("0 0 " + extent + " " + extent);
+
+        // Rectangles du chemin reportés sur une grille : exactement les modules sombres
+        String path = ((Element) svg.getElementsByTagNameNS("http://www.w3.org/2000/svg", "path").item(0)).getAttribute("d");
+        boolean[][] drawn = new boolean[extent][extent];
+        Matcher run = RUN.matcher(path);
+        int end = 0;
+        while (run.find()) {
+            assertThat(run.start()).isEqualTo(end);
+            end = run.end();
+            int x = Integer.parseInt(run.group(1));
+            int y = Integer.parseInt(run.group(2));
+            int length = Integer.parseInt(run.group(3));
+            assertThat(run.group(4)).isEqualTo(run.group(3));
+            for (int i = 0; i < length; i++) {
+                assertThat(drawn[y][x + i]).isFalse();
+                drawn[y][x + i] = true;
+            }
+        }
+        assertThat(end).isEqualTo(path.length());
+        for (int y = 0; y < extent; y++) {
+            for (int x = 0; x < extent; x++) {
+                int moduleX = x - matrix.getMargin();
+                int moduleY = y - matrix.getMargin();
+                boolean dark = moduleX >= 0 && moduleY >= 0 && moduleX < count && moduleY < count
+                        && matrix.moduleRow(moduleY)[moduleX] == 1;
+                assertThat(drawn[y][x]).as("module %d,%d", x, y).isEqualTo(dark);
+            }
+        }
+    }
+}